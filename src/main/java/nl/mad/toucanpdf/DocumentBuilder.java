@@ -6,8 +6,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import nl.mad.toucanpdf.api.BaseFont;
 import nl.mad.toucanpdf.api.BaseImage;
@@ -21,6 +24,7 @@ import nl.mad.toucanpdf.model.Color;
 import nl.mad.toucanpdf.model.DocumentPart;
 import nl.mad.toucanpdf.model.DocumentPartType;
 import nl.mad.toucanpdf.model.Font;
+import nl.mad.toucanpdf.model.FontEmbedding;
 import nl.mad.toucanpdf.model.Image;
 import nl.mad.toucanpdf.model.ImageType;
 import nl.mad.toucanpdf.model.Page;
@@ -63,6 +67,7 @@ public class DocumentBuilder {
     private int defaultPageWidth = A4_WIDTH;
     private int defaultPageHeight = A4_HEIGHT;
     private List<Page> pages;
+    private List<Page> sectionStarts;
     private String filename;
     private DocumentState state;
     private int defaultMarginTop = 0;
@@ -72,6 +77,9 @@ public class DocumentBuilder {
     private Font defaultFont = Constants.DEFAULT_FONT;
     private Integer defaultTextSize = Constants.DEFAULT_TEXT_SIZE;
     private Color defaultColor = Color.BLACK;
+    private FontEmbedding defaultFontEmbedding = FontEmbedding.SUBSET;
+    private boolean previewEnabled = true;
+    private int expectedTotalPages = DocumentState.DEFAULT_EXPECTED_TOTAL_PAGES;
 
     /**
      * Creates a new instance of DocumentBuilder, this also creates a document.
@@ -80,6 +88,7 @@ public class DocumentBuilder {
      */
     public DocumentBuilder() {
         pages = new LinkedList<Page>();
+        sectionStarts = new LinkedList<Page>();
         author = "";
         title = "";
         subject = "";
@@ -158,6 +167,38 @@ public class DocumentBuilder {
         return page;
     }
 
+    /**
+     * Starts a new section by creating a new page and adding it to the document. A section is a run of pages of which the content 
+     * never overflows into the next section. Because of this, the sections of a document can be laid out in parallel. 
+     * Use the returned page object to specify the attributes of the first page of the section.
+     * @return page object.
+     * @see Page
+     */
+    public Page addSection() {
+        Page page = this.addPage();
+        sectionStarts.add(page);
+        return page;
+    }
+
+    /**
+     * Returns the amount of sections in the document. Pages added before the first call to addSection form a section as well.
+     * @return int containing amount of sections.
+     */
+    public int getSectionAmount() {
+        //section starts are matched by identity, like DocumentState does when splitting the sections
+        Set<Page> starts = Collections.newSetFromMap(new IdentityHashMap<Page, Boolean>());
+        starts.addAll(sectionStarts);
+        int amount = 0;
+        boolean first = true;
+        for (Page page : pages) {
+            if (first || starts.contains(page)) {
+                ++amount;
+            }
+            first = false;
+        }
+        return amount;
+    }
+
     /**
      * Creates a new page and adds it to the document on the given position. Use the returned page object to specify the attributes of the page.
      * @param pageNumber The position to place the page on.
@@ -233,11 +274,22 @@ public class DocumentBuilder {
      */
     public void finish(OutputStream os) {
         try {
-            state.updateState(pages);
-            PdfDocument pdfDoc = new PdfDocument();
-            for (Page page : state.getPages()) {
-                pdfDoc.add(page);
-                pdfDoc.add(page.getContent());
+            state.setPreviewEnabled(previewEnabled);
+            state.setExpectedTotalPages(expectedTotalPages);
+            state.updateState(pages, sectionStarts);
+            PdfDocument pdfDoc = new PdfDocument(defaultFontEmbedding);
+            pdfDoc.setTotalPages(state.getTotalPages());
+            if (previewEnabled) {
+                for (Page page : state.getPages()) {
+                    addPageToDocument(pdfDoc, page);
+                }
+            } else {
+                //pages are removed from the state once they have been added, so they can be released while the rest is processed
+                Page page = state.removeFirstPage();
+                while (page != null) {
+                    addPageToDocument(pdfDoc, page);
+                    page = state.removeFirstPage();
+                }
             }
             pdfDoc.addDocumentInfo(author, title, subject, Calendar.getInstance());
             pdfDoc.write(os);
@@ -246,6 +298,11 @@ public class DocumentBuilder {
         }
     }
 
+    private void addPageToDocument(PdfDocument pdfDoc, Page page) {
+        pdfDoc.add(page);
+        pdfDoc.add(page.getContent());
+    }
+
     /**
      * Sets the creation date of the document.
      * @param calendar Calendar containing the date.
@@ -455,7 +512,9 @@ public class DocumentBuilder {
      * @return DocumentState containing the state of the document as is.
      */
     public DocumentState getPreview() {
-        state.updateState(pages);
+        state.setPreviewEnabled(previewEnabled);
+        state.setExpectedTotalPages(expectedTotalPages);
+        state.updateState(pages, sectionStarts);
         return state;
     }
 
@@ -672,4 +731,62 @@ public class DocumentBuilder {
         this.defaultColor = defaultColor;
         return this;
     }
+
+    /**
+     * Returns the default way in which font programs are included in the document.
+     * @return default font embedding
+     */
+    public FontEmbedding getDefaultFontEmbedding() {
+        return defaultFontEmbedding;
+    }
+
+    /**
+     * Sets the default way in which font programs are included in the document. This is used for each font that does not specify an embedding itself.
+     * Fonts are embedded as subset by default.
+     * @param defaultFontEmbedding embedding to use by default.
+     * @return this builder
+     */
+    public DocumentBuilder setDefaultFontEmbedding(FontEmbedding defaultFontEmbedding) {
+        this.defaultFontEmbedding = defaultFontEmbedding;
+        return this;
+    }
+
+    /**
+     * Returns whether the preview of the document can be used to look up the objects that correspond to the objects of the builder.
+     * @return true if the preview is enabled, false otherwise.
+     */
+    public boolean isPreviewEnabled() {
+        return previewEnabled;
+    }
+
+    /**
+     * Sets whether the preview of the document can be used to look up the objects that correspond to the objects of the builder. The preview is enabled by default.
+     * Disabling the preview saves the bookkeeping required for these lookups and releases each page once it has been written,
+     * which reduces the memory usage of large documents that are only written to a file or stream.
+     * @param previewEnabled true to enable the preview, false otherwise.
+     * @return this builder
+     */
+    public DocumentBuilder setPreviewEnabled(boolean previewEnabled) {
+        this.previewEnabled = previewEnabled;
+        return this;
+    }
+
+    /**
+     * Returns the amount of pages the document is expected to have at most.
+     * @return the expected total amount of pages.
+     */
+    public int getExpectedTotalPages() {
+        return expectedTotalPages;
+    }
+
+    /**
+     * Sets the amount of pages the document is expected to have at most. Texts in headers and footers reserve the space of the digits of this amount
+     * for "%totalPages". A total with fewer digits is right-aligned within this space, a total with more digits is scaled down to fit. Defaults to 999.
+     * @param expectedTotalPages The expected total amount of pages.
+     * @return this builder
+     */
+    public DocumentBuilder setExpectedTotalPages(int expectedTotalPages) {
+        this.expectedTotalPages = expectedTotalPages;
+        return this;
+    }
 }
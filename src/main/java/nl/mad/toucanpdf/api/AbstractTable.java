@@ -16,6 +16,7 @@ public abstract class AbstractTable extends AbstractPlaceableFixedSizeDocumentPa
     protected double padding = 5;
     private boolean verticalAlignment = false;
     private boolean prioritizeHeaderWidth = false;
+    private Iterable<? extends Iterable<?>> rowSource;
 
     public AbstractTable(int pageWidth) {
         super(DocumentPartType.TABLE);
@@ -42,6 +43,7 @@ public abstract class AbstractTable extends AbstractPlaceableFixedSizeDocumentPa
         this.padding = table.getPadding();
         this.verticalAlignment = table.isVerticalAligned();
         this.prioritizeHeaderWidth = table.isPrioritizingHeaderWidth();
+        this.rowSource = table.getRowSource();
     }
 
     @Override
@@ -187,4 +189,15 @@ public abstract class AbstractTable extends AbstractPlaceableFixedSizeDocumentPa
         return this;
     }
 
+    @Override
+    public Table rows(Iterable<? extends Iterable<?>> rowSource) {
+        this.rowSource = rowSource;
+        return this;
+    }
+
+    @Override
+    public Iterable<? extends Iterable<?>> getRowSource() {
+        return this.rowSource;
+    }
+
 }
@@ -2,6 +2,7 @@ package nl.mad.toucanpdf.api;
 
 import nl.mad.toucanpdf.model.DocumentPartType;
 import nl.mad.toucanpdf.model.Font;
+import nl.mad.toucanpdf.model.FontEmbedding;
 import nl.mad.toucanpdf.model.FontFamily;
 import nl.mad.toucanpdf.model.FontFamilyType;
 import nl.mad.toucanpdf.model.FontMetrics;
@@ -17,6 +18,7 @@ public class BaseFont extends AbstractDocumentPart implements Font {
     private FontFamilyType family;
     private FontStyle style;
     private FontFamily fontFamily;
+    private FontEmbedding embedding;
 
     /**
      * Creates a new instance of BaseFont. Will copy the default font specified in Document.
@@ -34,6 +36,7 @@ public class BaseFont extends AbstractDocumentPart implements Font {
         this.family = font.getFamily();
         this.style = font.getStyle();
         this.fontFamily = font.getFontFamily();
+        this.embedding = font.getEmbedding();
     }
 
     /**
@@ -115,4 +118,15 @@ public class BaseFont extends AbstractDocumentPart implements Font {
     public FontMetrics getMetrics() {
         return fontFamily.getMetricsForStyle(style);
     }
+
+    @Override
+    public FontEmbedding getEmbedding() {
+        return embedding;
+    }
+
+    @Override
+    public Font embedding(FontEmbedding fontEmbedding) {
+        this.embedding = fontEmbedding;
+        return this;
+    }
 }
@@ -55,8 +55,17 @@ public class BaseText extends AbstractPlaceableDocumentPart implements Text {
      * @param copyFrom Text object to copy from.
      */
     public BaseText(Text copyFrom) {
+        this(copyFrom, copyFrom.getText());
+    }
+
+    /**
+     * Creates a copy of the given Text object that will represent the given text instead of the text of the copied object.
+     * @param copyFrom Text object to copy from.
+     * @param text The text to use.
+     */
+    protected BaseText(Text copyFrom, String text) {
         super(DocumentPartType.TEXT);
-        this.textString = copyFrom.getText();
+        this.textString = text;
         this.font = copyFrom.getFont();
         this.textSize = copyFrom.getTextSize();
         this.scaleX = copyFrom.getScaleX();
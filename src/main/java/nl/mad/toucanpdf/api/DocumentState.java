@@ -1,12 +1,21 @@
 package nl.mad.toucanpdf.api;
 
+import java.util.AbstractList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 
 import nl.mad.toucanpdf.model.Cell;
 import nl.mad.toucanpdf.model.DocumentPart;
@@ -42,9 +51,25 @@ import org.slf4j.LoggerFactory;
  *
  */
 public class DocumentState {
+    /**
+     * Default amount of pages the document is expected to have at most, see {@link #setExpectedTotalPages(int)}.
+     */
+    public static final int DEFAULT_EXPECTED_TOTAL_PAGES = 999;
     private static final Logger LOGGER = LoggerFactory.getLogger(DocumentState.class);
+    private static final String PAGE_NUMBER_ATTRIBUTE = "pageNumber";
+    private static final String TOTAL_PAGES_ATTRIBUTE = "totalPages";
     private List<Page> state = new LinkedList<Page>();
     private Map<DocumentPart, List<DocumentPart>> stateLink = new HashMap<DocumentPart, List<DocumentPart>>();
+    private Map<DocumentPart, Page> pageIndex = null;
+    private boolean previewEnabled = true;
+    private int expectedTotalPages = DEFAULT_EXPECTED_TOTAL_PAGES;
+    private int totalPages = 0;
+    private Map<PageArea, PageAreaTemplate> pageAreaTemplates;
+    //page areas that refer to the total amount of pages in a table, these can only be processed once the total is known
+    private Map<PageArea, Boolean> areasRequiringTotal;
+    private List<Entry<Integer, StatePage>> pendingPageAreas;
+    //texts that reserve the space for the total amount of pages, the total is filled in once it is known
+    private List<BaseStateText> totalPagesTexts;
 
     /**
      * Creates a new instance of DocumentState.
@@ -57,20 +82,108 @@ public class DocumentState {
      * @param builderState Builder state to process.
      */
     public void updateState(List<Page> builderState) {
-        List<Page> builderStateCopy = new LinkedList<Page>(builderState);
+        updateState(builderState, new LinkedList<Page>());
+    }
+
+    /**
+     * Updates the state with the given builder state. This will clear the currently saved state.
+     * The builder state is split into sections, each starting at one of the given section start pages. The content of a section never overflows
+     * into the next section, so the sections are laid out in parallel and concatenated afterwards. The sections are laid out in the fork/join pool
+     * of the calling thread, or in the common pool if the calling thread is not part of a pool. Page numbers are processed after the merge.
+     * Without sections the page areas of each page are processed as soon as the page has been laid out.
+     * @param builderState Builder state to process.
+     * @param sectionStarts Pages that start a new section. The first page of the builder state always starts a section.
+     */
+    public void updateState(List<Page> builderState, List<Page> sectionStarts) {
+        List<List<Page>> sections = splitSections(builderState, sectionStarts);
+        pageAreaTemplates = new IdentityHashMap<PageArea, PageAreaTemplate>();
+        areasRequiringTotal = new IdentityHashMap<PageArea, Boolean>();
+        pendingPageAreas = new LinkedList<Entry<Integer, StatePage>>();
+        totalPagesTexts = new LinkedList<BaseStateText>();
+        if (sections.size() <= 1) {
+            layout(builderState, true);
+        } else {
+            List<ForkJoinTask<DocumentState>> tasks = new ArrayList<ForkJoinTask<DocumentState>>(sections.size());
+            for (List<Page> section : sections) {
+                //forked tasks run in the pool of the caller, or in the common pool if the caller is not part of a pool
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    DocumentState sectionState = new DocumentState();
+                    sectionState.setPreviewEnabled(previewEnabled);
+                    sectionState.layout(section, false);
+                    return sectionState;
+                }).fork());
+            }
+            state = new LinkedList<Page>();
+            stateLink = new HashMap<DocumentPart, List<DocumentPart>>();
+            pageIndex = null;
+            for (ForkJoinTask<DocumentState> task : tasks) {
+                merge(task.join());
+            }
+            //page numbers are only known once the sections have been merged
+            ListIterator<Page> pages = state.listIterator();
+            while (pages.hasNext()) {
+                int pageNumber = pages.nextIndex();
+                processPageAreas((StatePage) pages.next(), pageNumber);
+            }
+        }
+        fillInTotalPages();
+    }
+
+    private List<List<Page>> splitSections(List<Page> builderState, List<Page> sectionStarts) {
+        List<List<Page>> sections = new ArrayList<List<Page>>();
+        Set<Page> starts = Collections.newSetFromMap(new IdentityHashMap<Page, Boolean>());
+        starts.addAll(sectionStarts);
+        List<Page> section = null;
+        for (Page page : builderState) {
+            if (section == null || starts.contains(page)) {
+                section = new LinkedList<Page>();
+                sections.add(section);
+            }
+            section.add(page);
+        }
+        return sections;
+    }
+
+    /**
+     * Lays out the given pages and adds the results to the state. This will clear the currently saved state.
+     * The pages are processed as a queue, overflow of a page is placed in front of the queue so it is processed directly after the page itself.
+     * @param builderState Pages to lay out.
+     * @param withPageAreas Whether the page areas should be processed, which requires the pages to be the first pages of the document.
+     */
+    private void layout(List<Page> builderState, boolean withPageAreas) {
+        Deque<Page> pendingPages = new ArrayDeque<Page>(builderState);
         state = new LinkedList<Page>();
         stateLink = new HashMap<DocumentPart, List<DocumentPart>>();
-        for (int i = 0; i < builderStateCopy.size(); ++i) {
-            Page page = builderStateCopy.get(i);
+        pageIndex = null;
+        while (!pendingPages.isEmpty()) {
+            Page page = pendingPages.pollFirst();
             StatePage newPage = CreateStateInstanceForPage(page);
             state.add(newPage);
             addToStateLink(page, newPage);
             Page overflowPage = processPageContent(page, newPage);
             if (overflowPage != null) {
-                builderStateCopy.add(i + 1, overflowPage);
+                pendingPages.addFirst(overflowPage);
+            }
+            if (withPageAreas) {
+                processPageAreas(newPage, state.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Appends the pages and state links of the given section to this state.
+     * @param section Laid out section.
+     */
+    private void merge(DocumentState section) {
+        state.addAll(section.state);
+        for (Entry<DocumentPart, List<DocumentPart>> entry : section.stateLink.entrySet()) {
+            List<DocumentPart> results = stateLink.get(entry.getKey());
+            if (results != null) {
+                results.addAll(entry.getValue());
+            } else {
+                stateLink.put(entry.getKey(), entry.getValue());
             }
         }
-        processPageAreas();
     }
 
     private StatePage CreateStateInstanceForPage(Page page) {
@@ -90,56 +203,130 @@ public class DocumentState {
         }
     }
 
-    private void processPageAreas() {
-        String totalPageNumbers = String.valueOf(state.size() - 1);
-        //we skip the title page, so pagenumber starts at 1
-        for (int pageNumber = 1; pageNumber < state.size(); ++pageNumber) {
-            StatePage page = (StatePage) state.get(pageNumber);
-            ProcessPageAreaContent(totalPageNumbers, pageNumber, page, page.getHeader());
-            ProcessPageAreaContent(totalPageNumbers, pageNumber, page, page.getFooter());
+    /**
+     * Adds the page areas to the given page. Texts reserve the space for the total amount of pages, which means the total does not have to be known.
+     * Pages with a page area that refers to the total in a table are postponed until the total is known.
+     * @param page Page to process.
+     * @param pageNumber Number of the page, the title page has number 0 and is skipped.
+     */
+    private void processPageAreas(StatePage page, int pageNumber) {
+        if (pageNumber > 0) {
+            if (requiresTotalPages(page.getHeader()) || requiresTotalPages(page.getFooter())) {
+                pendingPageAreas.add(new SimpleEntry<Integer, StatePage>(pageNumber, page));
+            } else {
+                String reservation = getTotalPagesReservation();
+                ProcessPageAreaContent(reservation, pageNumber, page, page.getHeader());
+                ProcessPageAreaContent(reservation, pageNumber, page, page.getFooter());
+            }
+        }
+    }
+
+    /**
+     * Processes the page areas that had to wait for the total amount of pages and fills in the total in the texts that reserved space for it.
+     */
+    private void fillInTotalPages() {
+        totalPages = Math.max(0, state.size() - 1);
+        String totalPageNumbers = String.valueOf(totalPages);
+        for (Entry<Integer, StatePage> entry : pendingPageAreas) {
+            StatePage page = entry.getValue();
+            ProcessPageAreaContent(totalPageNumbers, entry.getKey(), page, page.getHeader());
+            ProcessPageAreaContent(totalPageNumbers, entry.getKey(), page, page.getFooter());
+        }
+        for (BaseStateText text : totalPagesTexts) {
+            text.fillInTotalPages(totalPageNumbers);
         }
+        pageAreaTemplates = null;
+        areasRequiringTotal = null;
+        pendingPageAreas = null;
+        totalPagesTexts = null;
+    }
+
+    private boolean requiresTotalPages(PageArea area) {
+        if (area == null) {
+            return false;
+        }
+        return areasRequiringTotal.computeIfAbsent(area, a -> a.getContent().stream().anyMatch(
+                part -> part.getType().equals(DocumentPartType.TABLE) && refersTo(part, TOTAL_PAGES_ATTRIBUTE)));
+    }
+
+    /**
+     * @return the text that reserves the space for the total amount of pages, which has the amount of digits of the expected total.
+     */
+    private String getTotalPagesReservation() {
+        return String.valueOf(Math.max(1, expectedTotalPages)).replaceAll("[0-9]", "0");
     }
 
     private void ProcessPageAreaContent(String totalPageNumbers, int i, StatePage sp, PageArea header) {
         if (header != null) {
             addPageNumbersToPageArea(totalPageNumbers, i, header);
-            processPageAreaContent(header, sp);
+            PageAreaTemplate template = pageAreaTemplates.get(header);
+            if (template == null || !template.isValidFor(sp)) {
+                template = new PageAreaTemplate(header, sp);
+                pageAreaTemplates.put(header, template);
+            }
+            template.addTo(sp);
         }
     }
 
     private void addPageNumbersToPageArea(String totalPageNumbers, int number, PageArea area) {
-        area.addAttribute("pageNumber", String.valueOf(number));
-        area.addAttribute("totalPages", totalPageNumbers);
+        area.addAttribute(PAGE_NUMBER_ATTRIBUTE, String.valueOf(number));
+        area.addAttribute(TOTAL_PAGES_ATTRIBUTE, totalPageNumbers);
+    }
+
+    /**
+     * Copies the given page area content and replaces the attributes in the text of the copy.
+     * @param part Page area content to copy.
+     * @param attributes Attributes of the page area.
+     * @return the copy.
+     */
+    private DocumentPart createPageAreaCopyOf(DocumentPart part, Map<String, String> attributes) {
+        DocumentPart copy = createCopyOf(part);
+        if (copy.getType().equals(DocumentPartType.TEXT)) {
+            //the total amount of pages is reserved in the state of the text instead, see createPageAreaPart
+            processAttributes((Text) copy, attributes, TOTAL_PAGES_ATTRIBUTE);
+        } else if (copy.getType().equals(DocumentPartType.TABLE)) {
+            processPageAreaAttributeForTextInTable(attributes, (Table) copy);
+        }
+        return copy;
     }
 
-    private void processPageAreaContent(PageArea area, StatePage sp) {
-        List<DocumentPart> content = new ArrayList<DocumentPart>();
-        CopyPageAreaContent(area, content);
+    /**
+     * Returns whether the given page area content refers to the page number, which means it differs on every page.
+     * @param part Page area content to check.
+     * @return true if the part refers to the page number, false otherwise.
+     */
+    private static boolean refersToPageNumber(DocumentPart part) {
+        return refersTo(part, PAGE_NUMBER_ATTRIBUTE);
+    }
 
-        Map<String, String> attributes = area.getAttributes();
-        for (DocumentPart part : content) {
-            if (part.getType().equals(DocumentPartType.TEXT)) {
-                processAttributes((Text) part, attributes);
-            } else if (part.getType().equals(DocumentPartType.TABLE)) {
-                processPageAreaAttributeForTextInTable(attributes, (Table) part);
+    /**
+     * Returns whether the given page area content refers to the given attribute.
+     * @param part Page area content to check.
+     * @param attribute Key of the attribute.
+     * @return true if the part refers to the attribute, false otherwise.
+     */
+    private static boolean refersTo(DocumentPart part, String attribute) {
+        if (part.getType().equals(DocumentPartType.TEXT)) {
+            return ((Text) part).getText().contains('%' + attribute);
+        } else if (part.getType().equals(DocumentPartType.TABLE)) {
+            for (Cell c : ((Table) part).getContent()) {
+                if (c.getContent() != null && refersTo(c.getContent(), attribute)) {
+                    return true;
+                }
             }
         }
-        processFixedPositionContent(content, sp);
+        return false;
     }
 
     private void processPageAreaAttributeForTextInTable(Map<String, String> attributes, Table table) {
         List<Cell> cells = table.getContent();
         for (Cell c : cells) {
             if (c.getContent().getType().equals(DocumentPartType.TEXT)) {
-                c.content(processAttributes((Text) c.getContent(), attributes));
+                c.content(processAttributes((Text) c.getContent(), attributes, null));
             }
         }
     }
 
-    private void CopyPageAreaContent(PageArea area, List<DocumentPart> content) {
-        content.addAll(area.getContent().stream().map(this::createCopyOf).collect(Collectors.toList()));
-    }
-
     private DocumentPart createCopyOf(DocumentPart part) {
         if (part != null) {
             switch (part.getType()) {
@@ -166,20 +353,51 @@ public class DocumentState {
         return newTable;
     }
 
-    private Text processAttributes(Text text, Map<String, String> attributes) {
+    /**
+     * Replaces the attributes in the text of the given text object.
+     * @param text Text to process.
+     * @param attributes Attributes to replace.
+     * @param ignoredAttribute Key of an attribute that should not be replaced, can be null.
+     * @return the given text object.
+     */
+    private Text processAttributes(Text text, Map<String, String> attributes, String ignoredAttribute) {
         String textString = text.getText();
         for (Entry<String, String> entry : attributes.entrySet()) {
-            textString = textString.replace('%' + entry.getKey(), entry.getValue());
+            if (!entry.getKey().equals(ignoredAttribute)) {
+                textString = textString.replace('%' + entry.getKey(), entry.getValue());
+            }
         }
         return text.text(textString);
     }
 
+    /**
+     * Creates the state object for the given page area content. Texts that refer to the total amount of pages reserve the space of the expected total,
+     * the total is drawn within this space when the document is written. Any other content is processed like fixed position content.
+     * @param part Copy of the page area content.
+     * @param page Page the content will be on.
+     * @return the state object, null if the type of the content is unsupported.
+     */
+    private StateDocumentPart createPageAreaPart(DocumentPart part, StatePage page) {
+        if (part.getType().equals(DocumentPartType.TEXT) && ((Text) part).getText().contains('%' + TOTAL_PAGES_ATTRIBUTE)) {
+            BaseStateText text = new BaseStateText((Text) part);
+            text.setOriginalObject(part);
+            text.reserveTotalPages('%' + TOTAL_PAGES_ATTRIBUTE, getTotalPagesReservation());
+            text.processContentSize(page, text.getPosition().getX(), true);
+            totalPagesTexts.add(text);
+            return text;
+        }
+        return createFixedPositionPart(part, page);
+    }
+
     private Page processPageContent(Page oldPage, StatePage newPage) {
         processFixedPositionContent(oldPage.getFixedPositionContent(), newPage);
         return processPositioning(oldPage.getPositionlessContent(), newPage);
     }
 
     private void addToStateLink(DocumentPart old, DocumentPart newPart) {
+        if (!previewEnabled) {
+            return;
+        }
         List<DocumentPart> results = this.stateLink.get(old);
         if (results != null) {
             results.add(newPart);
@@ -197,39 +415,48 @@ public class DocumentState {
      */
     private void processFixedPositionContent(List<DocumentPart> content, StatePage page) {
         for (DocumentPart part : content) {
-            switch (part.getType()) {
-            case TEXT:
-                StateText text = new BaseStateText((Text) part);
-                text.setOriginalObject(part);
-                text.processContentSize(page, text.getPosition().getX(), true);
-                AddPartToStatePage(page, part, text);
-                break;
-            case PARAGRAPH:
-                StateParagraph paragraph = new BaseStateParagraph((Paragraph) part, true);
-                paragraph.setOriginalObject(part);
-                paragraph.processContentSize(page, true);
-                AddPartToStatePage(page, part, paragraph);
-                break;
-            case IMAGE:
-                StateImage image = new BaseStateImage((Image) part);
-                image.setOriginalObject(part);
-                image.processContentSize(page, true, false, true);
-                AddPartToStatePage(page, part, image);
-                break;
-            case TABLE:
-                StateTable table = new BaseStateTable((Table) part);
-                ((Table) part).getContent().forEach(table::addCell);
-                table.setOriginalObject(part);
-                table.processContentSize(page, true, false, true);
-                AddPartToStatePage(page, part, table);
-                break;
-            default:
-                LOGGER.warn("The given document type: " + part.getType() + " is unsupported.");
-                break;
+            StateDocumentPart statePart = createFixedPositionPart(part, page);
+            if (statePart != null) {
+                AddPartToStatePage(page, part, statePart);
             }
         }
     }
 
+    /**
+     * Creates the state object for the given fixed position part and processes its content size.
+     * @param part Part to process.
+     * @param page Page the part will be added to.
+     * @return the state object, null if the type of the given part is unsupported.
+     */
+    private StateDocumentPart createFixedPositionPart(DocumentPart part, StatePage page) {
+        switch (part.getType()) {
+        case TEXT:
+            StateText text = new BaseStateText((Text) part);
+            text.setOriginalObject(part);
+            text.processContentSize(page, text.getPosition().getX(), true);
+            return text;
+        case PARAGRAPH:
+            StateParagraph paragraph = new BaseStateParagraph((Paragraph) part, true);
+            paragraph.setOriginalObject(part);
+            paragraph.processContentSize(page, true);
+            return paragraph;
+        case IMAGE:
+            StateImage image = new BaseStateImage((Image) part);
+            image.setOriginalObject(part);
+            image.processContentSize(page, true, false, true);
+            return image;
+        case TABLE:
+            StateTable table = new BaseStateTable((Table) part);
+            ((Table) part).getContent().forEach(table::addCell);
+            table.setOriginalObject(part);
+            table.processContentSize(page, true, false, true);
+            return table;
+        default:
+            LOGGER.warn("The given document type: " + part.getType() + " is unsupported.");
+            return null;
+        }
+    }
+
     private void AddPartToStatePage(StatePage page, DocumentPart original, StateDocumentPart part) {
         page.add(part);
         addToStateLink(original, part);
@@ -273,7 +500,10 @@ public class DocumentState {
         Position position;
         StateTable table = new BaseStateTable((Table) p);
         StateTable overflow;
-        ((Table) p).getContent().forEach(table::addCell);
+        //a table continuing another table takes over the remaining rows of that table
+        if (table.isOriginal()) {
+            ((Table) p).getContent().forEach(table::addCell);
+        }
         table.setOriginalObject(p);
         table.updateHeight(page);
 
@@ -382,7 +612,8 @@ public class DocumentState {
     }
 
     /**
-     * Processes the overflow by creating a new page and adding any remaining content to that page.
+     * Processes the overflow by creating a new page that holds any remaining content. The remaining content is not copied,
+     * the new page refers to the content being processed from the given index onwards.
      * @param page Page with overflow.
      * @param overflowIndex Index of the object causing overflow.
      * @param overflowContent Object that contains the non-fitting content of the overflow causing object.
@@ -390,22 +621,15 @@ public class DocumentState {
      * @return the new page with the overflowing content.
      */
     private Page handleOverflow(Page page, int overflowIndex, DocumentPart overflowContent, List<DocumentPart> content) {
-        BaseStatePage overflowPage = new BaseStatePage(page);
+        if (overflowContent instanceof PlaceableDocumentPart) {
+            ((PlaceableDocumentPart) overflowContent).setPosition(new Position());
+        }
+        OverflowPage overflowPage = new OverflowPage(page, RemainingContent.of(content).from(overflowIndex, overflowContent));
         if (page instanceof StateDocumentPart) {
             overflowPage.setOriginalObject(((StateDocumentPart) page).getOriginalObject());
         } else {
             overflowPage.setOriginalObject(page);
         }
-        List<DocumentPart> newContent = new LinkedList<>();
-        if (overflowContent != null) {
-            newContent.add(overflowContent);
-        }
-        newContent.addAll(content.subList(overflowIndex, content.size()));
-        page.getContent().removeAll(newContent);
-        newContent.stream()
-                .filter(p -> p instanceof PlaceableDocumentPart)
-                .forEach(p -> ((PlaceableDocumentPart) p).setPosition(new Position()));
-        overflowPage.addAll(newContent);
         return overflowPage;
     }
 
@@ -418,7 +642,65 @@ public class DocumentState {
     }
 
     /**
-     * Returns the page the given part is located on.
+     * Returns the total amount of pages shown by the page areas. The title page is not counted.
+     * This is the total the document should show where the space for the total has been reserved, see {@link StateText#getTotalPagesPositions()}.
+     * @return the total amount of pages.
+     */
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * Returns the amount of pages the document is expected to have at most.
+     * @return the expected total amount of pages.
+     */
+    public int getExpectedTotalPages() {
+        return expectedTotalPages;
+    }
+
+    /**
+     * Sets the amount of pages the document is expected to have at most. Texts in page areas reserve the space of the digits of this amount
+     * for the total amount of pages, which allows the page areas to be laid out before the total is known. A total that turns out to be wider
+     * is scaled down to fit the reserved space. This takes effect the next time the state is updated.
+     * @param expectedTotalPages The expected total amount of pages.
+     */
+    public void setExpectedTotalPages(int expectedTotalPages) {
+        this.expectedTotalPages = expectedTotalPages;
+    }
+
+    /**
+     * Removes the first page from the state and returns it. This allows each page to be released as soon as it has been processed.
+     * @return the first page of the state, null if the state contains no pages.
+     */
+    public Page removeFirstPage() {
+        if (state.isEmpty()) {
+            return null;
+        }
+        pageIndex = null;
+        return state.remove(0);
+    }
+
+    /**
+     * Returns whether the links between the objects of the builder and the objects of the state are kept.
+     * @return true if the preview objects can be retrieved, false otherwise.
+     */
+    public boolean isPreviewEnabled() {
+        return previewEnabled;
+    }
+
+    /**
+     * Sets whether the links between the objects of the builder and the objects of the state should be kept.
+     * If disabled, the getPreviewFor and getPageFor methods will not find any objects from the builder. The state itself is still created.
+     * This takes effect the next time the state is updated.
+     * @param previewEnabled true to keep the links, false otherwise.
+     */
+    public void setPreviewEnabled(boolean previewEnabled) {
+        this.previewEnabled = previewEnabled;
+    }
+
+    /**
+     * Returns the page the given part is located on. The first call after the state has changed indexes the content of all pages,
+     * after which each part is found without searching through the pages.
      * @param part Part to find.
      * @return instance of Page or null if the given part couldn't be found.
      */
@@ -432,14 +714,20 @@ public class DocumentState {
             }
         }
         //if this is an object from the developer state
-        if (objectToFind != null) {
+        return getPageIndex().get(objectToFind);
+    }
+
+    private Map<DocumentPart, Page> getPageIndex() {
+        if (pageIndex == null) {
+            Map<DocumentPart, Page> index = new IdentityHashMap<DocumentPart, Page>();
             for (Page page : this.state) {
-                if (page.getContent().contains(part)) {
-                    return page;
+                for (DocumentPart content : page.getContent()) {
+                    index.putIfAbsent(content, page);
                 }
             }
+            pageIndex = index;
         }
-        return null;
+        return pageIndex;
     }
 
     private boolean checkContentSize(PlaceableFixedSizeDocumentPart part, Page page) {
@@ -512,4 +800,144 @@ public class DocumentState {
         }
         return partList;
     }
+
+    /**
+     * Page holding the content that did not fit on the page it originates from. The content is only offered as positionless content,
+     * since the remaining content of a page never has a custom position.
+     */
+    private static class OverflowPage extends BaseStatePage {
+        private final RemainingContent remainingContent;
+
+        OverflowPage(Page page, RemainingContent remainingContent) {
+            super(page);
+            this.remainingContent = remainingContent;
+        }
+
+        @Override
+        public List<DocumentPart> getFixedPositionContent() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<DocumentPart> getPositionlessContent() {
+            return remainingContent;
+        }
+    }
+
+    /**
+     * Read-only view on the content of a page from a given index onwards, optionally preceded by the overflow of the part before that index.
+     * Views on a view refer to the original content directly, so the content of a page that overflows onto many pages is never copied.
+     */
+    private static final class RemainingContent extends AbstractList<DocumentPart> {
+        private final List<DocumentPart> content;
+        private final int start;
+        private final DocumentPart head;
+
+        private RemainingContent(List<DocumentPart> content, int start, DocumentPart head) {
+            this.content = content;
+            this.start = start;
+            this.head = head;
+        }
+
+        static RemainingContent of(List<DocumentPart> content) {
+            if (content instanceof RemainingContent) {
+                return (RemainingContent) content;
+            }
+            return new RemainingContent(content, 0, null);
+        }
+
+        /**
+         * @param index Index of the first part of this view to include.
+         * @param overflow Overflow of the part before the given index, can be null.
+         * @return view on the content of this view from the given index onwards, preceded by the given overflow.
+         */
+        RemainingContent from(int index, DocumentPart overflow) {
+            if (head != null && index == 0) {
+                //nothing of this view has been processed, which means there is no overflow either
+                return this;
+            }
+            return new RemainingContent(content, start + index - (head != null ? 1 : 0), overflow);
+        }
+
+        @Override
+        public DocumentPart get(int index) {
+            if (head != null) {
+                return index == 0 ? head : content.get(start + index - 1);
+            }
+            return content.get(start + index);
+        }
+
+        @Override
+        public int size() {
+            return content.size() - start + (head != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * The content of a page area, compiled for pages with the same size and margins. Content that does not refer to the page number
+     * is copied and laid out once, after which the same state objects are added to each page. Only the content that refers to the page number
+     * is copied and laid out for every page.
+     */
+    private class PageAreaTemplate {
+        private final PageArea area;
+        private final int[] pageDimensions;
+        private final DocumentPart[] variableContent;
+        private final StateDocumentPart[] staticContent;
+
+        /**
+         * Creates a new template for the given page area.
+         * @param area The page area.
+         * @param page Page the template will be used for. The template can be used for any page with the same dimensions.
+         */
+        PageAreaTemplate(PageArea area, StatePage page) {
+            this.area = area;
+            this.pageDimensions = getPageDimensions(page);
+            List<DocumentPart> content = area.getContent();
+            this.variableContent = new DocumentPart[content.size()];
+            this.staticContent = new StateDocumentPart[content.size()];
+            for (int i = 0; i < content.size(); ++i) {
+                DocumentPart part = content.get(i);
+                if (refersToPageNumber(part)) {
+                    variableContent[i] = part;
+                } else {
+                    DocumentPart copy = createPageAreaCopyOf(part, area.getAttributes());
+                    staticContent[i] = createPageAreaPart(copy, page);
+                    if (staticContent[i] != null) {
+                        addToStateLink(copy, staticContent[i]);
+                    }
+                }
+            }
+        }
+
+        private int[] getPageDimensions(StatePage page) {
+            return new int[] { page.getWidth(), page.getHeight(), page.getMarginLeft(), page.getMarginRight(), page.getMarginTop(),
+                    page.getMarginBottom(), page.getLeading() };
+        }
+
+        /**
+         * @param page Page to check.
+         * @return true if the template can be used for the given page, false otherwise.
+         */
+        boolean isValidFor(StatePage page) {
+            return Arrays.equals(pageDimensions, getPageDimensions(page));
+        }
+
+        /**
+         * Adds the content of the page area to the given page, using the current attributes of the page area for the content that refers to the page number.
+         * @param page Page to add the content to.
+         */
+        void addTo(StatePage page) {
+            for (int i = 0; i < staticContent.length; ++i) {
+                if (variableContent[i] != null) {
+                    DocumentPart copy = createPageAreaCopyOf(variableContent[i], area.getAttributes());
+                    StateDocumentPart statePart = createPageAreaPart(copy, page);
+                    if (statePart != null) {
+                        AddPartToStatePage(page, copy, statePart);
+                    }
+                } else if (staticContent[i] != null) {
+                    page.add(staticContent[i]);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package nl.mad.toucanpdf.font;
+
+/**
+ * Stores the kerning pairs of a font. The pairs are keyed by the glyph indices of both characters, which are packed into a single int.
+ * Pairs are stored in an open addressing table using linear probing, so looking up a pair does not require any allocations.
+ * @author Dylan de Wolff
+ */
+public class KerningTable {
+    private static final int EMPTY_KEY = -1;
+    private static final int INDEX_BITS = 16;
+    private static final int MAX_GLYPH_INDEX = (1 << (INDEX_BITS - 1)) - 1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private int[] keys;
+    private short[] values;
+    private int size;
+
+    /**
+     * Creates a new, empty, instance of KerningTable.
+     */
+    public KerningTable() {
+        keys = createKeys(DEFAULT_CAPACITY);
+        values = new short[DEFAULT_CAPACITY];
+    }
+
+    private static int[] createKeys(int capacity) {
+        int[] newKeys = new int[capacity];
+        for (int i = 0; i < capacity; ++i) {
+            newKeys[i] = EMPTY_KEY;
+        }
+        return newKeys;
+    }
+
+    /**
+     * Stores the kerning value for the given pair of glyphs. Existing values are overwritten.
+     * @param glyphIndex Index of the first glyph.
+     * @param secondGlyphIndex Index of the second glyph.
+     * @param offset Width offset between the two glyphs.
+     */
+    public void put(int glyphIndex, int secondGlyphIndex, int offset) {
+        if (!isValidIndex(glyphIndex) || !isValidIndex(secondGlyphIndex)) {
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        insert(pack(glyphIndex, secondGlyphIndex), (short) offset);
+    }
+
+    /**
+     * Returns the kerning value for the given pair of glyphs.
+     * @param glyphIndex Index of the first glyph.
+     * @param secondGlyphIndex Index of the second glyph.
+     * @return int containing the width offset between the two glyphs, 0 if the pair has no kerning.
+     */
+    public int get(int glyphIndex, int secondGlyphIndex) {
+        if (!isValidIndex(glyphIndex) || !isValidIndex(secondGlyphIndex)) {
+            return 0;
+        }
+        int key = pack(glyphIndex, secondGlyphIndex);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the amount of kerning pairs stored.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void insert(int key, short value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY_KEY) {
+            ++size;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        short[] oldValues = values;
+        keys = createKeys(capacity);
+        values = new short[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static boolean isValidIndex(int glyphIndex) {
+        return glyphIndex >= 0 && glyphIndex <= MAX_GLYPH_INDEX;
+    }
+
+    private static int pack(int glyphIndex, int secondGlyphIndex) {
+        return (glyphIndex << INDEX_BITS) | secondGlyphIndex;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> INDEX_BITS);
+    }
+}
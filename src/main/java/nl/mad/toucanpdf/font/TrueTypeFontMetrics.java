@@ -0,0 +1,435 @@
+package nl.mad.toucanpdf.font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import nl.mad.toucanpdf.font.parser.TrueTypeParser;
+import nl.mad.toucanpdf.model.FontMetrics;
+import nl.mad.toucanpdf.model.FontMetricsFlagValues;
+import nl.mad.toucanpdf.utility.Constants;
+import nl.mad.toucanpdf.utility.UnicodeConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics of a TrueType or OpenType font. Font files on disk are memory mapped, the tables are only read when a value is requested.
+ * All values are converted from font units to the 1000 unit glyph space used by PDF. Glyph ids are the glyph indices of the font file.
+ * @author Dylan de Wolff
+ * @see TrueTypeParser
+ */
+public class TrueTypeFontMetrics implements FontMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrueTypeFontMetrics.class);
+    private static final double CONVERSION_TO_POINTS = 0.001;
+    private static final double GLYPH_SPACE_UNITS = 1000.0;
+    private static final int DENSE_TABLE_SIZE = 256;
+    private static final int FIRST_CHAR = 32;
+    private static final int LAST_CHAR = 255;
+    private static final int BUFFER_SIZE = 0xffff;
+    private static final String ENCODING_SCHEME = "Identity-H";
+    //estimation of the vertical stem width based on the weight class, no stem information is stored in TrueType fonts
+    private static final int STEM_V_BASE = 10;
+    private static final int STEM_V_WEIGHT_FACTOR = 220;
+    private static final int STEM_V_WEIGHT_OFFSET = 50;
+    private static final int STEM_V_WEIGHT_RANGE = 900;
+    private TrueTypeParser parser;
+    private String filename;
+    private double scale;
+    /**
+     * Glyph ids of the characters with a code point below {@link #DENSE_TABLE_SIZE}, indexed by code point.
+     */
+    private int[] denseGlyphIds;
+
+    /**
+     * Creates a new instance of TrueTypeFontMetrics for the given font file. The filename can either be a path or the name of a resource.
+     * @param filename Font file to be parsed.
+     * @throws FileNotFoundException if the file could not be found.
+     * @throws IOException if the file could not be read or is not a TrueType or OpenType font.
+     */
+    public TrueTypeFontMetrics(String filename) throws IOException {
+        this.filename = filename;
+        this.parser = new TrueTypeParser(readFile());
+        this.scale = GLYPH_SPACE_UNITS / parser.getUnitsPerEm();
+        denseGlyphIds = new int[DENSE_TABLE_SIZE];
+        for (int i = 0; i < DENSE_TABLE_SIZE; ++i) {
+            denseGlyphIds[i] = parser.getGlyphId(i);
+        }
+    }
+
+    /**
+     * Memory maps the font file, or reads it into memory if the font is a resource.
+     * @return ByteBuffer containing the font file.
+     * @throws IOException
+     */
+    private ByteBuffer readFile() throws IOException {
+        File file = new File(filename);
+        if (file.isFile()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        InputStream in = getClass().getResourceAsStream(Constants.RESOURCES + filename);
+        if (in == null) {
+            in = this.getClass().getClassLoader().getResourceAsStream(filename);
+            if (in == null) {
+                LOGGER.error("Could not find font file corresponding to the given filename: " + filename + ". You should not use this font any further.");
+                throw new FileNotFoundException("Could not find font file corresponding to the given filename: " + filename);
+            }
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int amountRead = input.read(buffer);
+            while (amountRead != -1) {
+                out.write(buffer, 0, amountRead);
+                amountRead = input.read(buffer);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    private int toGlyphSpace(int fontUnits) {
+        return (int) Math.round(fontUnits * scale);
+    }
+
+    @Override
+    public int getGlyphId(int characterCode) {
+        if (characterCode >= 0 && characterCode < DENSE_TABLE_SIZE) {
+            return denseGlyphIds[characterCode];
+        }
+        return parser.getGlyphId(characterCode);
+    }
+
+    @Override
+    public int getWidth(int characterCode) {
+        return this.getGlyphWidth(this.getGlyphId(characterCode));
+    }
+
+    @Override
+    public int getWidth(String name) {
+        int characterCode = UnicodeConverter.getCodePoint(UnicodeConverter.getGlyphId(name));
+        if (characterCode != UnicodeConverter.NO_GLYPH) {
+            return this.getWidth(characterCode);
+        }
+        return 0;
+    }
+
+    @Override
+    public int getGlyphWidth(int glyphId) {
+        return toGlyphSpace(parser.getAdvanceWidth(glyphId));
+    }
+
+    @Override
+    public int getKerning(int characterCode, int secondCharacterCode) {
+        return this.getGlyphKerning(this.getGlyphId(characterCode), this.getGlyphId(secondCharacterCode));
+    }
+
+    @Override
+    public int getKerning(String characterName, String secondCharacterName) {
+        int characterCode = UnicodeConverter.getCodePoint(UnicodeConverter.getGlyphId(characterName));
+        int secondCharacterCode = UnicodeConverter.getCodePoint(UnicodeConverter.getGlyphId(secondCharacterName));
+        if (characterCode != UnicodeConverter.NO_GLYPH && secondCharacterCode != UnicodeConverter.NO_GLYPH) {
+            return this.getKerning(characterCode, secondCharacterCode);
+        }
+        return 0;
+    }
+
+    @Override
+    public int getGlyphKerning(int glyphId, int secondGlyphId) {
+        //kerning is stored as the amount the second glyph moves to the left, like the kerning of Type 1 fonts
+        return -toGlyphSpace(parser.getKerning(glyphId, secondGlyphId));
+    }
+
+    @Override
+    public String getFontName() {
+        String name = parser.getPostscriptName();
+        if (name == null) {
+            name = new File(filename).getName().replaceFirst("\\.[^.]*$", "");
+        }
+        return name.replaceAll("\\s", "");
+    }
+
+    @Override
+    public String getFontFamily() {
+        String family = parser.getFamilyName();
+        return family != null ? family : getFontName();
+    }
+
+    @Override
+    public int getFlags() {
+        //the glyphs are accessed through their glyph ids, so the font is always symbolic
+        int flags = FontMetricsFlagValues.SYMBOLIC.getBitValue();
+        if (parser.isFixedPitch()) {
+            flags |= FontMetricsFlagValues.FIXED_PITCH.getBitValue();
+        }
+        if (parser.isItalic()) {
+            flags |= FontMetricsFlagValues.ITALIC.getBitValue();
+        }
+        return flags;
+    }
+
+    @Override
+    public double[] getFontBoundingBox() {
+        int[] box = parser.getFontBoundingBox();
+        double[] boundingBox = new double[box.length];
+        for (int i = 0; i < box.length; ++i) {
+            boundingBox[i] = toGlyphSpace(box[i]);
+        }
+        return boundingBox;
+    }
+
+    @Override
+    public double getItalicAngle() {
+        return parser.getItalicAngle();
+    }
+
+    @Override
+    public int getAscent() {
+        return toGlyphSpace(parser.getAscender());
+    }
+
+    @Override
+    public int getAscentForString(String text) {
+        if (parser.isCFF()) {
+            return getAscent();
+        }
+        return getBoundingBoxValueForText(text, 3, true);
+    }
+
+    @Override
+    public double getAscentForStringPoint(String text) {
+        return getAscentForString(text) * CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public int getDescent() {
+        return toGlyphSpace(parser.getDescender());
+    }
+
+    @Override
+    public int getDescentForString(String text) {
+        if (parser.isCFF()) {
+            return getDescent();
+        }
+        return getBoundingBoxValueForText(text, 1, false);
+    }
+
+    @Override
+    public double getDescentForStringPoint(String text) {
+        return getDescentForString(text) * CONVERSION_TO_POINTS;
+    }
+
+    private int getBoundingBoxValueForText(String text, int index, boolean highest) {
+        int value = 0;
+        for (int i = 0; i < text.length(); i = text.offsetByCodePoints(i, 1)) {
+            int[] box = parser.getGlyphBoundingBox(this.getGlyphId(text.codePointAt(i)));
+            if (box != null) {
+                int boxValue = toGlyphSpace(box[index]);
+                value = highest ? Math.max(value, boxValue) : Math.min(value, boxValue);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public double getDescentPoint() {
+        return getDescent() * CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public double getAscentPoint() {
+        return getAscent() * CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public int getLeading() {
+        return toGlyphSpace(parser.getLineGap());
+    }
+
+    @Override
+    public int getCapHeight() {
+        if (parser.getCapHeight() != 0) {
+            return toGlyphSpace(parser.getCapHeight());
+        }
+        return getAscent();
+    }
+
+    @Override
+    public int getXHeight() {
+        return toGlyphSpace(parser.getxHeight());
+    }
+
+    @Override
+    public int getStemV() {
+        int weight = Math.max(parser.getWeightClass(), STEM_V_WEIGHT_OFFSET);
+        return STEM_V_BASE + STEM_V_WEIGHT_FACTOR * (weight - STEM_V_WEIGHT_OFFSET) / STEM_V_WEIGHT_RANGE;
+    }
+
+    @Override
+    public int getStemH() {
+        return 0;
+    }
+
+    @Override
+    public int getAvgWidth() {
+        return toGlyphSpace(parser.getAverageWidth());
+    }
+
+    @Override
+    public int getMaxWidth() {
+        return toGlyphSpace(parser.getAdvanceWidthMax());
+    }
+
+    @Override
+    public int getMissingWidth() {
+        return getGlyphWidth(0);
+    }
+
+    @Override
+    public int getFirstCharCode() {
+        return FIRST_CHAR;
+    }
+
+    @Override
+    public int getLastCharCode() {
+        return LAST_CHAR;
+    }
+
+    @Override
+    public List<Integer> getWidths() {
+        return getWidths(FIRST_CHAR, LAST_CHAR);
+    }
+
+    @Override
+    public List<Integer> getWidths(int firstCharCode, int lastCharCode) {
+        List<Integer> widths = new ArrayList<Integer>();
+        for (int i = firstCharCode; i < lastCharCode + 1; ++i) {
+            widths.add(this.getWidth(i));
+        }
+        return widths;
+    }
+
+    @Override
+    public int getWidthOfString(CharSequence string, int fontSize, boolean kerning) {
+        int width = 0;
+        int length = string.length();
+        int previousGlyph = -1;
+        for (int i = 0; i < length; ++i) {
+            int codePoint = Character.codePointAt(string, i);
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                ++i;
+            }
+            int glyphId = this.getGlyphId(codePoint);
+            width += this.getGlyphWidth(glyphId);
+            if (kerning && previousGlyph != -1) {
+                width -= this.getGlyphKerning(previousGlyph, glyphId);
+            }
+            previousGlyph = glyphId;
+        }
+        return width * fontSize;
+    }
+
+    @Override
+    public double getWidthPointOfString(CharSequence string, int fontSize, boolean kerning) {
+        return this.getWidthOfString(string, fontSize, kerning) * CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public double getWidthPoint(int characterCode) {
+        return this.getWidth(characterCode) * CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public double getWidthPoint(String characterName) {
+        return this.getWidth(characterName) * CONVERSION_TO_POINTS;
+    }
+
+    /**
+     * Returns the complete font file.
+     * @return byte array containing the font file.
+     */
+    @Override
+    public byte[] getFontFile() {
+        ByteBuffer data = parser.getData();
+        byte[] file = new byte[data.remaining()];
+        data.get(file);
+        return file;
+    }
+
+    /**
+     * Returns a font file containing only the given glyphs. The glyph ids stay the same.
+     * Fonts with CFF outlines can not be reduced and are returned completely.
+     * @param glyphIds Ids of the glyphs to keep.
+     * @return byte array containing the font file.
+     * @see TrueTypeFontSubsetter
+     */
+    public byte[] getFontFileSubset(Collection<Integer> glyphIds) {
+        if (parser.isCFF()) {
+            return getFontFile();
+        }
+        return createSubsetter().subset(glyphIds);
+    }
+
+    /**
+     * Creates a subsetter for this font. The subsetter can be kept to create the subsets of several documents.
+     * @return the subsetter, null if the font has CFF outlines since these can not be reduced.
+     */
+    public TrueTypeFontSubsetter createSubsetter() {
+        if (parser.isCFF()) {
+            return null;
+        }
+        return new TrueTypeFontSubsetter(parser);
+    }
+
+    /**
+     * @return true if the glyph outlines are stored in a CFF table, false if they are stored in a glyf table.
+     */
+    public boolean isCFF() {
+        return parser.isCFF();
+    }
+
+    @Override
+    public int[] getFontProgramLengths() {
+        return new int[] { parser.getData().remaining(), 0, 0 };
+    }
+
+    @Override
+    public double getConversionToPointsValue() {
+        return CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public double getLineHeightForSize(int textSize) {
+        return (this.getAscent() + Math.abs(this.getDescent())) * textSize * CONVERSION_TO_POINTS;
+    }
+
+    @Override
+    public String getEncodingScheme() {
+        return ENCODING_SCHEME;
+    }
+
+    public String getFullName() {
+        return parser.getFullName();
+    }
+
+    public int getUnderlinePosition() {
+        return toGlyphSpace(parser.getUnderlinePosition());
+    }
+
+    public int getUnderlineThickness() {
+        return toGlyphSpace(parser.getUnderlineThickness());
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+}
@@ -0,0 +1,255 @@
+package nl.mad.toucanpdf.font;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+import nl.mad.toucanpdf.font.parser.TrueTypeParser;
+
+/**
+ * Creates subsets of TrueType fonts with glyf outlines. The outlines of glyphs that are not used are removed, the glyph ids of the remaining glyphs
+ * stay the same so text can refer to glyphs by their original id. Glyphs after the highest used glyph are removed completely.
+ * Only the tables needed to embed the font in a PDF document (head, hhea, maxp, hmtx, loca, glyf, cvt, fpgm and prep) are kept.
+ * The tables that do not depend on the glyphs are copied once, a single subsetter can be used to create several subsets, also from different threads.
+ * @author Dylan de Wolff
+ */
+public class TrueTypeFontSubsetter {
+    private static final String[] COPIED_TABLES = { "cvt ", "fpgm", "prep" };
+    private static final int TRUETYPE_VERSION = 0x00010000;
+    private static final int HEADER_SIZE = 12;
+    private static final int TABLE_RECORD_SIZE = 16;
+    private static final int CHECKSUM_MAGIC = 0xB1B0AFBA;
+    private static final int HEAD_CHECKSUM_ADJUSTMENT = 8;
+    private static final int HEAD_INDEX_TO_LOC_FORMAT = 50;
+    private static final int HHEA_NUMBER_OF_HMETRICS = 34;
+    private static final int MAXP_NUM_GLYPHS = 4;
+    private static final int LONG_LOCA_FORMAT = 1;
+    private static final int USHORT_MASK = 0xffff;
+    //flags used by composite glyphs
+    private static final int ARG_1_AND_2_ARE_WORDS = 0x0001;
+    private static final int WE_HAVE_A_SCALE = 0x0008;
+    private static final int MORE_COMPONENTS = 0x0020;
+    private static final int WE_HAVE_AN_X_AND_Y_SCALE = 0x0040;
+    private static final int WE_HAVE_A_TWO_BY_TWO = 0x0080;
+    private static final int GLYPH_HEADER_SIZE = 10;
+    private final TrueTypeParser parser;
+    private final ByteBuffer data;
+    private final Map<String, byte[]> copiedTables = new TreeMap<>();
+
+    /**
+     * Creates a new instance of TrueTypeFontSubsetter.
+     * @param parser Parser of the font to create subsets of.
+     */
+    public TrueTypeFontSubsetter(TrueTypeParser parser) {
+        this.parser = parser;
+        this.data = parser.getData();
+        copiedTables.put("head", copyTable("head"));
+        copiedTables.put("hhea", copyTable("hhea"));
+        copiedTables.put("maxp", copyTable("maxp"));
+        for (String tag : COPIED_TABLES) {
+            if (parser.getTableOffset(tag) != -1) {
+                copiedTables.put(tag, copyTable(tag));
+            }
+        }
+    }
+
+    /**
+     * Creates a font file containing only the given glyphs. The missing glyph (0) and the glyphs used by composite glyphs are always kept.
+     * @param glyphIds Ids of the glyphs to keep.
+     * @return byte array containing the new font file.
+     */
+    public byte[] subset(Collection<Integer> glyphIds) {
+        boolean[] used = findUsedGlyphs(glyphIds);
+        int glyphAmount = 1;
+        for (int i = used.length - 1; i > 0; --i) {
+            if (used[i]) {
+                glyphAmount = i + 1;
+                break;
+            }
+        }
+        int hMetricsAmount = Math.min(parser.getNumberOfHMetrics(), glyphAmount);
+
+        Map<String, byte[]> tables = new TreeMap<>();
+        byte[][] glyfAndLoca = createGlyfAndLoca(used, glyphAmount);
+        tables.put("glyf", glyfAndLoca[0]);
+        tables.put("loca", glyfAndLoca[1]);
+        tables.put("hmtx", createHmtx(glyphAmount, hMetricsAmount));
+        for (Map.Entry<String, byte[]> table : copiedTables.entrySet()) {
+            tables.put(table.getKey(), table.getValue().clone());
+        }
+        byte[] head = tables.get("head");
+        ByteBuffer.wrap(head).putInt(HEAD_CHECKSUM_ADJUSTMENT, 0).putShort(HEAD_INDEX_TO_LOC_FORMAT, (short) LONG_LOCA_FORMAT);
+        ByteBuffer.wrap(tables.get("hhea")).putShort(HHEA_NUMBER_OF_HMETRICS, (short) hMetricsAmount);
+        ByteBuffer.wrap(tables.get("maxp")).putShort(MAXP_NUM_GLYPHS, (short) glyphAmount);
+        return writeFont(tables);
+    }
+
+    /**
+     * @return the amount of bytes of the tables copied by this subsetter.
+     */
+    public int getSize() {
+        int size = 0;
+        for (byte[] table : copiedTables.values()) {
+            size += table.length;
+        }
+        return size;
+    }
+
+    /**
+     * Marks the given glyphs and all glyphs they use as components.
+     */
+    private boolean[] findUsedGlyphs(Collection<Integer> glyphIds) {
+        boolean[] used = new boolean[parser.getNumGlyphs()];
+        Deque<Integer> toScan = new ArrayDeque<>();
+        toScan.push(0);
+        toScan.addAll(glyphIds);
+        int glyf = parser.getTableOffset("glyf");
+        while (!toScan.isEmpty()) {
+            int glyphId = toScan.pop();
+            if (glyphId < 0 || glyphId >= used.length || used[glyphId]) {
+                continue;
+            }
+            used[glyphId] = true;
+            if (parser.getGlyphLength(glyphId) > GLYPH_HEADER_SIZE) {
+                int glyph = glyf + parser.getGlyphOffset(glyphId);
+                if (data.getShort(glyph) < 0) {
+                    addComponents(glyph + GLYPH_HEADER_SIZE, toScan);
+                }
+            }
+        }
+        return used;
+    }
+
+    private void addComponents(int start, Deque<Integer> toScan) {
+        int position = start;
+        int flags;
+        do {
+            flags = data.getShort(position) & USHORT_MASK;
+            toScan.push(data.getShort(position + 2) & USHORT_MASK);
+            position += 4;
+            position += (flags & ARG_1_AND_2_ARE_WORDS) != 0 ? 4 : 2;
+            if ((flags & WE_HAVE_A_SCALE) != 0) {
+                position += 2;
+            } else if ((flags & WE_HAVE_AN_X_AND_Y_SCALE) != 0) {
+                position += 4;
+            } else if ((flags & WE_HAVE_A_TWO_BY_TWO) != 0) {
+                position += 8;
+            }
+        } while ((flags & MORE_COMPONENTS) != 0);
+    }
+
+    private byte[][] createGlyfAndLoca(boolean[] used, int glyphAmount) {
+        int glyf = parser.getTableOffset("glyf");
+        int size = 0;
+        for (int i = 0; i < glyphAmount; ++i) {
+            if (used[i]) {
+                size += pad(parser.getGlyphLength(i));
+            }
+        }
+        ByteBuffer newGlyf = ByteBuffer.allocate(size);
+        ByteBuffer newLoca = ByteBuffer.allocate((glyphAmount + 1) * 4);
+        for (int i = 0; i < glyphAmount; ++i) {
+            newLoca.putInt(newGlyf.position());
+            if (used[i]) {
+                int length = parser.getGlyphLength(i);
+                copy(glyf + parser.getGlyphOffset(i), length, newGlyf);
+                newGlyf.position(newGlyf.position() + pad(length) - length);
+            }
+        }
+        newLoca.putInt(newGlyf.position());
+        return new byte[][] { newGlyf.array(), newLoca.array() };
+    }
+
+    private byte[] createHmtx(int glyphAmount, int hMetricsAmount) {
+        int hmtx = parser.getTableOffset("hmtx");
+        int originalHMetricsAmount = parser.getNumberOfHMetrics();
+        ByteBuffer newHmtx = ByteBuffer.allocate(hMetricsAmount * 4 + (glyphAmount - hMetricsAmount) * 2);
+        copy(hmtx, hMetricsAmount * 4, newHmtx);
+        for (int i = hMetricsAmount; i < glyphAmount; ++i) {
+            int leftSideBearing;
+            if (i < originalHMetricsAmount) {
+                leftSideBearing = hmtx + i * 4 + 2;
+            } else {
+                leftSideBearing = hmtx + originalHMetricsAmount * 4 + (i - originalHMetricsAmount) * 2;
+            }
+            copy(leftSideBearing, 2, newHmtx);
+        }
+        return newHmtx.array();
+    }
+
+    private byte[] copyTable(String tag) {
+        ByteBuffer table = ByteBuffer.allocate(parser.getTableLength(tag));
+        copy(parser.getTableOffset(tag), table.capacity(), table);
+        return table.array();
+    }
+
+    private void copy(int offset, int length, ByteBuffer target) {
+        ByteBuffer source = data.duplicate();
+        source.position(offset);
+        source.limit(offset + length);
+        target.put(source);
+    }
+
+    /**
+     * Writes the table directory and the given tables. The tables are sorted by tag, as required by the font format.
+     */
+    private static byte[] writeFont(Map<String, byte[]> tables) {
+        int tableAmount = tables.size();
+        int size = HEADER_SIZE + tableAmount * TABLE_RECORD_SIZE;
+        for (byte[] table : tables.values()) {
+            size += pad(table.length);
+        }
+        ByteBuffer font = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        int entrySelector = 31 - Integer.numberOfLeadingZeros(tableAmount);
+        int searchRange = (1 << entrySelector) * TABLE_RECORD_SIZE;
+        font.putInt(TRUETYPE_VERSION);
+        font.putShort((short) tableAmount);
+        font.putShort((short) searchRange);
+        font.putShort((short) entrySelector);
+        font.putShort((short) (tableAmount * TABLE_RECORD_SIZE - searchRange));
+        int offset = HEADER_SIZE + tableAmount * TABLE_RECORD_SIZE;
+        int headOffset = 0;
+        for (Map.Entry<String, byte[]> table : tables.entrySet()) {
+            if ("head".equals(table.getKey())) {
+                headOffset = offset;
+            }
+            for (char c : table.getKey().toCharArray()) {
+                font.put((byte) c);
+            }
+            font.putInt(checksum(table.getValue()));
+            font.putInt(offset);
+            font.putInt(table.getValue().length);
+            offset += pad(table.getValue().length);
+        }
+        for (byte[] table : tables.values()) {
+            font.put(table);
+            font.position(font.position() + pad(table.length) - table.length);
+        }
+        byte[] result = font.array();
+        ByteBuffer.wrap(result).putInt(headOffset + HEAD_CHECKSUM_ADJUSTMENT, CHECKSUM_MAGIC - checksum(result));
+        return result;
+    }
+
+    private static int checksum(byte[] table) {
+        int sum = 0;
+        for (int i = 0; i < table.length; i += 4) {
+            int value = 0;
+            for (int b = 0; b < 4; ++b) {
+                value <<= 8;
+                if (i + b < table.length) {
+                    value |= table[i + b] & 0xff;
+                }
+            }
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+}
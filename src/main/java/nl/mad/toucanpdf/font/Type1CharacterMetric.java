@@ -48,4 +48,13 @@ public class Type1CharacterMetric {
     public int[] getBoundingBox() {
         return boundingBox.clone();
     }
+
+    /**
+     * Returns a single value of the bounding box without copying the bounding box.
+     * @param index Index of the value (0 to 3).
+     * @return int containing the bounding box value.
+     */
+    public int getBoundingBoxValue(int index) {
+        return boundingBox[index];
+    }
 }
@@ -25,11 +25,24 @@ public class Type1FontMetrics implements FontMetrics {
     private AfmParser afm;
     private PfbParser pfb;
     private String filename;
+    /**
+     * Widths of the characters with a code point below {@link #DENSE_TABLE_SIZE}, indexed by code point.
+     */
+    private int[] denseWidths;
+    /**
+     * Character metrics indexed by glyph id, null for glyphs this font does not contain.
+     * @see UnicodeConverter#getGlyphId(int)
+     */
+    private Type1CharacterMetric[] glyphMetrics;
 
     /**
      * Value used to convert from the unit used in afm to the unit used by PDF.
      */
     private static final double CONVERSION_TO_POINTS = 0.001;
+    /**
+     * Amount of code points (Latin-1) stored in the dense width table.
+     */
+    private static final int DENSE_TABLE_SIZE = 256;
 
     /**
      * Creates a new instance of Type1FontMetrics and immediately parses the file corresponding to the given filename.
@@ -39,6 +52,7 @@ public class Type1FontMetrics implements FontMetrics {
     public Type1FontMetrics(String filename) throws FileNotFoundException {
         this.filename = filename;
         this.parseAfm();
+        this.buildWidthTables();
     }
 
     /**
@@ -51,6 +65,20 @@ public class Type1FontMetrics implements FontMetrics {
         afm = new AfmParser(file);
     }
 
+    /**
+     * Builds the glyph id indexed metrics table and the code point indexed width table for code points below {@link #DENSE_TABLE_SIZE}.
+     */
+    private void buildWidthTables() {
+        glyphMetrics = new Type1CharacterMetric[UnicodeConverter.getGlyphCount()];
+        for (int glyphId = 0; glyphId < glyphMetrics.length; ++glyphId) {
+            glyphMetrics[glyphId] = afm.getCharacterMetric(UnicodeConverter.getGlyphName(glyphId));
+        }
+        denseWidths = new int[DENSE_TABLE_SIZE];
+        for (int i = 0; i < DENSE_TABLE_SIZE; ++i) {
+            denseWidths[i] = this.getGlyphWidth(UnicodeConverter.getGlyphId(i));
+        }
+    }
+
     /**
      * Finds the file by the given file name and returns it.
      * @param extension File extension to look for.
@@ -101,7 +129,31 @@ public class Type1FontMetrics implements FontMetrics {
 
     @Override
     public int getWidth(int characterCode) {
-        return this.getWidth(UnicodeConverter.getPostscriptForUnicode(characterCode));
+        if (characterCode >= 0 && characterCode < DENSE_TABLE_SIZE) {
+            return denseWidths[characterCode];
+        }
+        return this.getGlyphWidth(UnicodeConverter.getGlyphId(characterCode));
+    }
+
+    @Override
+    public int getGlyphId(int characterCode) {
+        return UnicodeConverter.getGlyphId(characterCode);
+    }
+
+    @Override
+    public int getGlyphWidth(int glyphId) {
+        Type1CharacterMetric metric = this.getGlyphMetric(glyphId);
+        if (metric != null) {
+            return metric.getWx();
+        }
+        return 0;
+    }
+
+    private Type1CharacterMetric getGlyphMetric(int glyphId) {
+        if (glyphId >= 0 && glyphId < glyphMetrics.length) {
+            return glyphMetrics[glyphId];
+        }
+        return null;
     }
 
     @Override
@@ -130,7 +182,12 @@ public class Type1FontMetrics implements FontMetrics {
 
     @Override
     public int getKerning(int characterCode, int secondCharacterCode) {
-        return this.getKerning(UnicodeConverter.getPostscriptForUnicode(characterCode), UnicodeConverter.getPostscriptForUnicode(secondCharacterCode));
+        return afm.getKerning(UnicodeConverter.getGlyphId(characterCode), UnicodeConverter.getGlyphId(secondCharacterCode));
+    }
+
+    @Override
+    public int getGlyphKerning(int glyphId, int secondGlyphId) {
+        return afm.getKerning(glyphId, secondGlyphId);
     }
 
     @Override
@@ -178,14 +235,6 @@ public class Type1FontMetrics implements FontMetrics {
         return getDescentForString(text) * CONVERSION_TO_POINTS;
     }
 
-    private int[] getBoundingBoxForCharacter(String charName) {
-        Type1CharacterMetric metric = afm.getCharacterMetric(charName);
-        if (metric != null) {
-            return metric.getBoundingBox();
-        }
-        return null;
-    }
-
     /**
      * Returns either the lowest or highset bounding box value found within the text on the given bounding box index (e.g. the first bbox value is for descent so that means passing 1)
      * @param text Text to check the highest value for
@@ -195,11 +244,10 @@ public class Type1FontMetrics implements FontMetrics {
      */
     private int getBoundingBoxValueForTextOnIndex(String text, int bbIndex, boolean highest) {
         int value = 0;
-        char[] chars = text.toCharArray();
-        for (char aChar : chars) {
-            int[] boundingBox = this.getBoundingBoxForCharacter(UnicodeConverter.getPostscriptForUnicode((int) aChar));
-            if (boundingBox != null) {
-                int bBoxValue = boundingBox[bbIndex];
+        for (int i = 0; i < text.length(); ++i) {
+            Type1CharacterMetric metric = this.getGlyphMetric(UnicodeConverter.getGlyphId((int) text.charAt(i)));
+            if (metric != null) {
+                int bBoxValue = metric.getBoundingBoxValue(bbIndex);
                 value = highest ? Math.max(value, bBoxValue) : Math.min(value, bBoxValue);
             }
         }
@@ -260,24 +308,20 @@ public class Type1FontMetrics implements FontMetrics {
     public List<Integer> getWidths(int firstCharCode, int lastCharCode) {
         List<Integer> widths = new ArrayList<Integer>();
         for (int i = firstCharCode; i < lastCharCode + 1; ++i) {
-            Type1CharacterMetric cm = afm.getCharacterMetric(UnicodeConverter.getPostscriptForUnicode(i));
-            if (cm != null) {
-                widths.add(cm.getWx());
-            } else {
-                widths.add(0);
-            }
+            widths.add(this.getWidth(i));
         }
         return widths;
     }
 
     @Override
-    public int getWidthOfString(String string, int fontSize, boolean kerning) {
+    public int getWidthOfString(CharSequence string, int fontSize, boolean kerning) {
         int width = 0;
-        char[] chars = string.toCharArray();
-        for (int i = 0; i < chars.length; ++i) {
-            width += this.getWidth(UnicodeConverter.getPostscriptForUnicode((int) chars[i]));
-            if (kerning && (i + 1 != chars.length)) {
-                width -= this.getKerning((int) chars[i], (int) chars[i + 1]);
+        int length = string.length();
+        for (int i = 0; i < length; ++i) {
+            char c = string.charAt(i);
+            width += this.getWidth((int) c);
+            if (kerning && (i + 1 != length)) {
+                width -= this.getKerning((int) c, (int) string.charAt(i + 1));
             }
         }
         return width * fontSize;
@@ -285,7 +329,7 @@ public class Type1FontMetrics implements FontMetrics {
 
     @Override
     public double getWidthPoint(int charCode) {
-        return this.getWidthPoint(UnicodeConverter.getPostscriptForUnicode(charCode));
+        return this.getWidth(charCode) * CONVERSION_TO_POINTS;
     }
 
     @Override
@@ -294,7 +338,7 @@ public class Type1FontMetrics implements FontMetrics {
     }
 
     @Override
-    public double getWidthPointOfString(String string, int fontSize, boolean kerning) {
+    public double getWidthPointOfString(CharSequence string, int fontSize, boolean kerning) {
         return (this.getWidthOfString(string, fontSize, kerning) * CONVERSION_TO_POINTS);
     }
 
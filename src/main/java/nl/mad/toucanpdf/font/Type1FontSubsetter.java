@@ -0,0 +1,552 @@
+package nl.mad.toucanpdf.font;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates subsets of Type 1 font programs. The encrypted (eexec) part of the font program is decrypted, all CharStrings that are not used are removed
+ * and all Subrs that are not called by the remaining CharStrings are replaced by an empty subroutine. The Subrs are replaced instead of removed
+ * so the subroutine numbers used by the remaining CharStrings stay valid. Afterwards the private part is encrypted again and the lengths of the font
+ * program are recalculated.
+ * The font program is expected to be in the format given by {@link nl.mad.toucanpdf.font.parser.PfbParser}, meaning the three parts of the font
+ * program without the segment headers.
+ * @author Dylan de Wolff
+ */
+public class Type1FontSubsetter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Type1FontSubsetter.class);
+    private static final int EEXEC_KEY = 55665;
+    private static final int CHARSTRING_KEY = 4330;
+    private static final int ENCRYPTION_C1 = 52845;
+    private static final int ENCRYPTION_C2 = 22719;
+    private static final int KEY_MASK = 0xffff;
+    private static final int BYTE_MASK = 0xff;
+    private static final int BYTE_SHIFT = 8;
+    private static final int DEFAULT_LEN_IV = 4;
+    /**
+     * Subrs 0 to 3 are reserved for flex and hint replacement and are always kept.
+     */
+    private static final int RESERVED_SUBR_AMOUNT = 4;
+    private static final int PART_AMOUNT = 3;
+    /**
+     * The private part mixes text and binary data, this charset maps every byte to a single character.
+     */
+    private static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+    private static final String NOTDEF = ".notdef";
+    private static final String SUBRS = "/Subrs";
+    private static final String CHARSTRINGS = "/CharStrings";
+    private static final String LEN_IV = "/lenIV";
+    private static final Set<String> ENTRY_END_TOKENS = new HashSet<>();
+    private static final String[] STANDARD_ENCODING = new String[256];
+    private static final String STANDARD_ENCODING_ASCII = "space exclam quotedbl numbersign dollar percent ampersand quoteright parenleft parenright "
+            + "asterisk plus comma hyphen period slash zero one two three four five six seven eight nine colon semicolon less equal greater question at "
+            + "A B C D E F G H I J K L M N O P Q R S T U V W X Y Z bracketleft backslash bracketright asciicircum underscore quoteleft "
+            + "a b c d e f g h i j k l m n o p q r s t u v w x y z braceleft bar braceright asciitilde";
+    private static final String STANDARD_ENCODING_HIGH = "161 exclamdown 162 cent 163 sterling 164 fraction 165 yen 166 florin 167 section "
+            + "168 currency 169 quotesingle 170 quotedblleft 171 guillemotleft 172 guilsinglleft 173 guilsinglright 174 fi 175 fl 177 endash "
+            + "178 dagger 179 daggerdbl 180 periodcentered 182 paragraph 183 bullet 184 quotesinglbase 185 quotedblbase 186 quotedblright "
+            + "187 guillemotright 188 ellipsis 189 perthousand 191 questiondown 193 grave 194 acute 195 circumflex 196 tilde 197 macron 198 breve "
+            + "199 dotaccent 200 dieresis 202 ring 203 cedilla 205 hungarumlaut 206 ogonek 207 caron 208 emdash 225 AE 227 ordfeminine 232 Lslash "
+            + "233 Oslash 234 OE 235 ordmasculine 241 ae 245 dotlessi 248 lslash 249 oslash 250 oe 251 germandbls";
+    private static final int FIRST_ASCII_CODE = 32;
+
+    //charstring commands used while searching for subroutine calls and accented characters
+    private static final int FIRST_NUMBER = 32;
+    private static final int LAST_SINGLE_BYTE_NUMBER = 246;
+    private static final int LAST_POSITIVE_NUMBER = 250;
+    private static final int LAST_NEGATIVE_NUMBER = 254;
+    private static final int SINGLE_BYTE_NUMBER_OFFSET = 139;
+    private static final int TWO_BYTE_NUMBER_OFFSET = 108;
+    private static final int CALL_SUBR = 10;
+    private static final int RETURN = 11;
+    private static final int ESCAPE = 12;
+    private static final int END_CHAR = 14;
+    private static final int SEAC = 6;
+    private static final int DIV = 12;
+    private static final int CALL_OTHER_SUBR = 16;
+    private static final int POP = 17;
+    private static final int SEAC_ARGUMENT_AMOUNT = 5;
+    private static final int STACK_SIZE = 64;
+
+    private byte[] fontProgram;
+    private int[] lengths;
+    private ParsedProgram parsedProgram;
+    private boolean parsed = false;
+
+    static {
+        String[] ascii = STANDARD_ENCODING_ASCII.split(" ");
+        for (int i = 0; i < ascii.length; ++i) {
+            STANDARD_ENCODING[FIRST_ASCII_CODE + i] = ascii[i];
+        }
+        String[] high = STANDARD_ENCODING_HIGH.split(" ");
+        for (int i = 0; i < high.length; i += 2) {
+            STANDARD_ENCODING[Integer.parseInt(high[i])] = high[i + 1];
+        }
+        ENTRY_END_TOKENS.add("NP");
+        ENTRY_END_TOKENS.add("|");
+        ENTRY_END_TOKENS.add("ND");
+        ENTRY_END_TOKENS.add("|-");
+        ENTRY_END_TOKENS.add("noaccess");
+        ENTRY_END_TOKENS.add("put");
+        ENTRY_END_TOKENS.add("def");
+    }
+
+    /**
+     * Creates a new instance of Type1FontSubsetter.
+     * @param fontProgram The font program to create a subset of.
+     * @param lengths The lengths of the clear text, encrypted and trailing part of the font program.
+     */
+    public Type1FontSubsetter(byte[] fontProgram, int[] lengths) {
+        this(fontProgram, lengths, true);
+    }
+
+    private Type1FontSubsetter(byte[] fontProgram, int[] lengths, boolean copy) {
+        this.fontProgram = copy ? fontProgram.clone() : fontProgram;
+        this.lengths = copy ? lengths.clone() : lengths;
+    }
+
+    /**
+     * Reduces the font program to the given glyphs. Glyphs used by accented characters of the given glyphs and the .notdef glyph are kept as well.
+     * If the font program could not be processed the original font program is kept.
+     * @param glyphNames Postscript names of the glyphs to keep.
+     * @return true if the subset was created, false otherwise.
+     */
+    public boolean subset(Collection<String> glyphNames) {
+        Type1FontSubsetter subset = createSubset(glyphNames);
+        if (subset == null) {
+            return false;
+        }
+        synchronized (this) {
+            fontProgram = subset.fontProgram;
+            lengths = subset.lengths;
+            parsedProgram = null;
+            parsed = false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a subset containing the given glyphs without changing this subsetter. The font program is only parsed once,
+     * so a single subsetter can be used to create the subsets of several documents, also from different threads.
+     * Glyphs used by accented characters of the given glyphs and the .notdef glyph are kept as well.
+     * @param glyphNames Postscript names of the glyphs to keep.
+     * @return Subsetter containing the subset, null if the font program could not be processed.
+     */
+    public Type1FontSubsetter createSubset(Collection<String> glyphNames) {
+        ParsedProgram program;
+        byte[] original;
+        int[] originalLengths;
+        synchronized (this) {
+            program = getParsedProgram();
+            original = fontProgram;
+            originalLengths = lengths;
+        }
+        if (program == null) {
+            return null;
+        }
+        try {
+            byte[] newPrivatePart = subsetPrivatePart(program, glyphNames);
+            byte[] encryptedPart = encrypt(newPrivatePart, EEXEC_KEY);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(originalLengths[0] + encryptedPart.length + originalLengths[2]);
+            out.write(original, 0, originalLengths[0]);
+            out.write(encryptedPart, 0, encryptedPart.length);
+            out.write(original, originalLengths[0] + originalLengths[1], originalLengths[2]);
+            int[] subsetLengths = new int[] { originalLengths[0], encryptedPart.length, originalLengths[2] };
+            return new Type1FontSubsetter(out.toByteArray(), subsetLengths, false);
+        } catch (IndexOutOfBoundsException e) {
+            LOGGER.warn("The CharStrings of the font program could not be parsed, the full font program will be embedded.");
+            return null;
+        }
+    }
+
+    /**
+     * @return the font program, this is the subset if {@link #subset(Collection)} was successful.
+     */
+    public synchronized byte[] getFontProgram() {
+        return fontProgram.clone();
+    }
+
+    /**
+     * @return the lengths of the clear text, encrypted and trailing part of the font program.
+     */
+    public synchronized int[] getLengths() {
+        return lengths.clone();
+    }
+
+    /**
+     * Returns the amount of bytes held by this subsetter, this is the font program and the decrypted private part.
+     * @return the size in bytes.
+     */
+    public synchronized int getSize() {
+        return fontProgram.length + (lengths.length == PART_AMOUNT ? lengths[1] : 0);
+    }
+
+    /**
+     * Decrypts and parses the private part of the font program the first time it is needed.
+     * @return the parsed private part, null if the font program could not be parsed.
+     */
+    private synchronized ParsedProgram getParsedProgram() {
+        if (!parsed) {
+            parsed = true;
+            parsedProgram = parse();
+        }
+        return parsedProgram;
+    }
+
+    private ParsedProgram parse() {
+        if (lengths.length != PART_AMOUNT || lengths[0] + lengths[1] + lengths[2] > fontProgram.length) {
+            LOGGER.warn("Font program lengths do not match the font program, the full font program will be embedded.");
+            return null;
+        }
+        try {
+            ParsedProgram program = new ParsedProgram(decrypt(fontProgram, lengths[0], lengths[1], EEXEC_KEY, 0));
+            program.lenIV = parseLenIV(program.data);
+            int subrsStart = indexOf(program.data, SUBRS, 0);
+            int position = 0;
+            if (subrsStart != -1) {
+                position = parseSubrs(program.data, subrsStart, program.subrs);
+            }
+            int charStringsStart = indexOf(program.data, CHARSTRINGS, position);
+            if (charStringsStart == -1) {
+                LOGGER.warn("The font program does not contain CharStrings, the full font program will be embedded.");
+                return null;
+            }
+            parseCharStrings(program.data, charStringsStart, program.charStrings, program.charStringOrder);
+            program.subrsByIndex = new Entry[program.subrs.size()];
+            for (Entry subr : program.subrs) {
+                if (subr.index >= 0 && subr.index < program.subrsByIndex.length) {
+                    program.subrsByIndex[subr.index] = subr;
+                }
+            }
+            return program;
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            LOGGER.warn("The private part of the font program could not be parsed, the full font program will be embedded.");
+            return null;
+        }
+    }
+
+    private static byte[] subsetPrivatePart(ParsedProgram program, Collection<String> glyphNames) {
+        Set<Entry> used = new HashSet<>();
+        Deque<Entry> toScan = new ArrayDeque<>();
+        keep(program.charStrings.get(NOTDEF), used, toScan);
+        for (String name : glyphNames) {
+            keep(program.charStrings.get(name), used, toScan);
+        }
+        for (int i = 0; i < RESERVED_SUBR_AMOUNT && i < program.subrsByIndex.length; ++i) {
+            keep(program.subrsByIndex[i], used, toScan);
+        }
+        while (!toScan.isEmpty()) {
+            Entry entry = toScan.pop();
+            byte[] charString = decrypt(program.data, entry.dataStart, entry.dataEnd - entry.dataStart, CHARSTRING_KEY, program.lenIV);
+            scanCharString(charString, program, used, toScan);
+        }
+        return writePrivatePart(program, used);
+    }
+
+    private static void keep(Entry entry, Set<Entry> used, Deque<Entry> toScan) {
+        if (entry != null && used.add(entry)) {
+            toScan.push(entry);
+        }
+    }
+
+    /**
+     * Writes the private part again, replacing the unused Subrs and leaving out the unused CharStrings.
+     */
+    private static byte[] writePrivatePart(ParsedProgram program, Set<Entry> used) {
+        byte[] data = program.data;
+        byte[] emptySubr = createEmptySubr(program.lenIV);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        int copied = 0;
+        for (Entry subr : program.subrs) {
+            if (!used.contains(subr)) {
+                out.write(data, copied, subr.start - copied);
+                byte[] header = (emptySubr.length + " " + subr.readToken + " ").getBytes(CHARSET);
+                out.write(header, 0, header.length);
+                out.write(emptySubr, 0, emptySubr.length);
+                copied = subr.dataEnd;
+            }
+        }
+        for (Entry charString : program.charStringOrder) {
+            if (!used.contains(charString)) {
+                out.write(data, copied, charString.start - copied);
+                copied = charString.end;
+            }
+        }
+        out.write(data, copied, data.length - copied);
+        return out.toByteArray();
+    }
+
+    private static byte[] createEmptySubr(int lenIV) {
+        byte[] subr = new byte[Math.max(0, lenIV) + 1];
+        subr[subr.length - 1] = RETURN;
+        if (lenIV < 0) {
+            return subr;
+        }
+        return encrypt(subr, CHARSTRING_KEY);
+    }
+
+    /**
+     * Parses the Subrs array. Each entry has the form: dup index length RD binary NP.
+     * @return position after the last entry.
+     */
+    private static int parseSubrs(byte[] data, int start, List<Entry> subrs) {
+        int position = skipTokens(data, start, 3);
+        while (true) {
+            int tokenStart = skipWhitespace(data, position);
+            if (!"dup".equals(readToken(data, tokenStart))) {
+                return tokenStart;
+            }
+            int indexStart = skipWhitespace(data, tokenStart + "dup".length());
+            String index = readToken(data, indexStart);
+            Entry subr = parseEntry(data, skipWhitespace(data, indexStart + index.length()));
+            subr.index = Integer.parseInt(index);
+            subrs.add(subr);
+            position = skipEntryEnd(data, subr.dataEnd);
+            subr.end = position;
+        }
+    }
+
+    /**
+     * Parses the CharStrings dictionary. Each entry has the form: /name length RD binary ND.
+     */
+    private static void parseCharStrings(byte[] data, int start, Map<String, Entry> charStrings, List<Entry> order) {
+        int position = start;
+        String token;
+        do {
+            position = skipWhitespace(data, position);
+            token = readToken(data, position);
+            position += token.length();
+        } while (!"begin".equals(token));
+        position = skipWhitespace(data, position);
+        while (data[position] == '/') {
+            String name = readToken(data, position).substring(1);
+            Entry charString = parseEntry(data, skipWhitespace(data, position + name.length() + 1));
+            charString.start = position;
+            position = skipEntryEnd(data, charString.dataEnd);
+            charString.end = position;
+            charStrings.put(name, charString);
+            order.add(charString);
+        }
+    }
+
+    /**
+     * Parses the length and binary data of an entry, starting at the length token.
+     */
+    private static Entry parseEntry(byte[] data, int start) {
+        Entry entry = new Entry();
+        entry.start = start;
+        String length = readToken(data, start);
+        int readTokenStart = skipWhitespace(data, start + length.length());
+        entry.readToken = readToken(data, readTokenStart);
+        //the binary data starts after the single space following the RD token
+        entry.dataStart = readTokenStart + entry.readToken.length() + 1;
+        entry.dataEnd = entry.dataStart + Integer.parseInt(length);
+        if (entry.dataEnd > data.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return entry;
+    }
+
+    /**
+     * Skips the tokens that end an entry (such as NP and ND).
+     * @return position of the first token after the end of the entry.
+     */
+    private static int skipEntryEnd(byte[] data, int start) {
+        int position = skipWhitespace(data, start);
+        String token = readToken(data, position);
+        while (ENTRY_END_TOKENS.contains(token)) {
+            position = skipWhitespace(data, position + token.length());
+            token = readToken(data, position);
+        }
+        return position;
+    }
+
+    private static int skipTokens(byte[] data, int start, int amount) {
+        int position = start;
+        for (int i = 0; i < amount; ++i) {
+            position = skipWhitespace(data, position);
+            position += readToken(data, position).length();
+        }
+        return position;
+    }
+
+    private static int parseLenIV(byte[] data) {
+        int lenIVStart = indexOf(data, LEN_IV, 0);
+        if (lenIVStart == -1) {
+            return DEFAULT_LEN_IV;
+        }
+        return Integer.parseInt(readToken(data, skipWhitespace(data, lenIVStart + LEN_IV.length())));
+    }
+
+    /**
+     * Interprets the given charstring far enough to find the subroutines it calls and the characters it uses for accented characters (seac).
+     * Subroutine numbers that are returned by hint replacement (callothersubr followed by pop) are followed as well.
+     */
+    private static void scanCharString(byte[] charString, ParsedProgram program, Set<Entry> used, Deque<Entry> toScan) {
+        Entry[] subrs = program.subrsByIndex;
+        int[] stack = new int[STACK_SIZE];
+        int size = 0;
+        Deque<Integer> postscriptStack = new ArrayDeque<>();
+        int i = 0;
+        while (i < charString.length) {
+            int value = charString[i++] & BYTE_MASK;
+            if (value >= FIRST_NUMBER) {
+                int number;
+                if (value <= LAST_SINGLE_BYTE_NUMBER) {
+                    number = value - SINGLE_BYTE_NUMBER_OFFSET;
+                } else if (value <= LAST_POSITIVE_NUMBER) {
+                    number = ((value - LAST_SINGLE_BYTE_NUMBER - 1) << BYTE_SHIFT) + (charString[i++] & BYTE_MASK) + TWO_BYTE_NUMBER_OFFSET;
+                } else if (value <= LAST_NEGATIVE_NUMBER) {
+                    number = -((value - LAST_POSITIVE_NUMBER - 1) << BYTE_SHIFT) - (charString[i++] & BYTE_MASK) - TWO_BYTE_NUMBER_OFFSET;
+                } else {
+                    number = ((charString[i] & BYTE_MASK) << 24) | ((charString[i + 1] & BYTE_MASK) << 16) | ((charString[i + 2] & BYTE_MASK) << BYTE_SHIFT)
+                            | (charString[i + 3] & BYTE_MASK);
+                    i += 4;
+                }
+                if (size < STACK_SIZE) {
+                    stack[size++] = number;
+                }
+            } else if (value == CALL_SUBR) {
+                if (size > 0) {
+                    int subr = stack[--size];
+                    if (subr >= 0 && subr < subrs.length) {
+                        keep(subrs[subr], used, toScan);
+                    }
+                }
+            } else if (value == RETURN || value == END_CHAR) {
+                return;
+            } else if (value == ESCAPE && i < charString.length) {
+                int command = charString[i++] & BYTE_MASK;
+                if (command == SEAC && size >= SEAC_ARGUMENT_AMOUNT) {
+                    keep(program.charStrings.get(getStandardEncodingName(stack[size - 2])), used, toScan);
+                    keep(program.charStrings.get(getStandardEncodingName(stack[size - 1])), used, toScan);
+                    size = 0;
+                } else if (command == CALL_OTHER_SUBR && size >= 2) {
+                    size -= 1;
+                    int argumentAmount = stack[--size];
+                    for (int a = 0; a < argumentAmount && size > 0; ++a) {
+                        postscriptStack.push(stack[--size]);
+                    }
+                } else if (command == POP) {
+                    if (size < STACK_SIZE) {
+                        stack[size++] = postscriptStack.isEmpty() ? 0 : postscriptStack.pop();
+                    }
+                } else if (command == DIV && size >= 2) {
+                    int divisor = stack[--size];
+                    stack[size - 1] = divisor == 0 ? 0 : stack[size - 1] / divisor;
+                } else {
+                    size = 0;
+                }
+            } else {
+                size = 0;
+            }
+        }
+    }
+
+    private static String getStandardEncodingName(int code) {
+        if (code >= 0 && code < STANDARD_ENCODING.length) {
+            return STANDARD_ENCODING[code];
+        }
+        return null;
+    }
+
+    private static byte[] decrypt(byte[] data, int offset, int length, int key, int skip) {
+        int r = key;
+        byte[] result = new byte[Math.max(0, length - skip)];
+        for (int i = 0; i < length; ++i) {
+            int cipher = data[offset + i] & BYTE_MASK;
+            if (i >= skip) {
+                result[i - skip] = (byte) (cipher ^ (r >> BYTE_SHIFT));
+            }
+            r = ((cipher + r) * ENCRYPTION_C1 + ENCRYPTION_C2) & KEY_MASK;
+        }
+        return result;
+    }
+
+    private static byte[] encrypt(byte[] data, int key) {
+        int r = key;
+        byte[] result = new byte[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            int cipher = ((data[i] & BYTE_MASK) ^ (r >> BYTE_SHIFT)) & BYTE_MASK;
+            result[i] = (byte) cipher;
+            r = ((cipher + r) * ENCRYPTION_C1 + ENCRYPTION_C2) & KEY_MASK;
+        }
+        return result;
+    }
+
+    private static int indexOf(byte[] data, String value, int from) {
+        byte[] bytes = value.getBytes(CHARSET);
+        for (int i = from; i <= data.length - bytes.length; ++i) {
+            int j = 0;
+            while (j < bytes.length && data[i + j] == bytes[j]) {
+                ++j;
+            }
+            if (j == bytes.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int skipWhitespace(byte[] data, int start) {
+        int position = start;
+        while (position < data.length && isWhitespace(data[position])) {
+            ++position;
+        }
+        return position;
+    }
+
+    private static String readToken(byte[] data, int start) {
+        int end = start;
+        while (end < data.length && !isWhitespace(data[end])) {
+            ++end;
+        }
+        return new String(data, start, end - start, CHARSET);
+    }
+
+    /**
+     * Subroutine or CharString in the private part of the font program.
+     * @author Dylan de Wolff
+     */
+    private static class Entry {
+        private int index;
+        private int start;
+        private int end;
+        private int dataStart;
+        private int dataEnd;
+        private String readToken;
+    }
+
+    /**
+     * Decrypted private part of the font program together with the parsed Subrs and CharStrings. Not changed after parsing.
+     * @author Dylan de Wolff
+     */
+    private static class ParsedProgram {
+        private final byte[] data;
+        private int lenIV;
+        private final List<Entry> subrs = new ArrayList<>();
+        private Entry[] subrsByIndex;
+        private final Map<String, Entry> charStrings = new HashMap<>();
+        private final List<Entry> charStringOrder = new ArrayList<>();
+
+        ParsedProgram(byte[] data) {
+            this.data = data;
+        }
+    }
+}
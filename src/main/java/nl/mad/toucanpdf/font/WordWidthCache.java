@@ -0,0 +1,187 @@
+package nl.mad.toucanpdf.font;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import nl.mad.toucanpdf.model.FontMetrics;
+
+/**
+ * Bounded cache for the measured width of words and lines. Widths are stored in font units for a font size of one,
+ * so a single entry can be used for every text size. The cache is split into segments that each hold a least recently used map,
+ * which allows the cache to be used by several threads at once. A shared instance is available that is used by the layout code of all documents.
+ * @author Dylan de Wolff
+ */
+public final class WordWidthCache {
+    /**
+     * Default maximum amount of entries in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 8192;
+    private static final int SEGMENT_AMOUNT = 16;
+    private static final WordWidthCache SHARED_CACHE = new WordWidthCache(DEFAULT_MAXIMUM_SIZE);
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new instance of WordWidthCache.
+     * @param maximumSize Maximum amount of entries the cache can hold.
+     */
+    public WordWidthCache(int maximumSize) {
+        int segmentSize = Math.max(1, maximumSize / SEGMENT_AMOUNT);
+        segments = new Segment[SEGMENT_AMOUNT];
+        for (int i = 0; i < SEGMENT_AMOUNT; ++i) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Returns the cache that is shared by all documents.
+     * @return the shared cache.
+     */
+    public static WordWidthCache getSharedCache() {
+        return SHARED_CACHE;
+    }
+
+    /**
+     * Returns the width of the given string in font units for a font size of one. The width is measured and stored if it is not in the cache yet.
+     * @param metrics Metrics of the font to measure with.
+     * @param string The string to measure.
+     * @param kerning Whether or not kerning should be applied.
+     * @return Width of the string.
+     */
+    public int getWidth(FontMetrics metrics, String string, boolean kerning) {
+        WidthKey key = new WidthKey(metrics, string, kerning);
+        Segment segment = segments[(key.hashCode() & Integer.MAX_VALUE) % SEGMENT_AMOUNT];
+        Integer width;
+        synchronized (segment) {
+            width = segment.get(key);
+        }
+        if (width != null) {
+            hits.increment();
+            return width;
+        }
+        misses.increment();
+        int measuredWidth = metrics.getWidthOfString(string, 1, kerning);
+        synchronized (segment) {
+            segment.put(key, measuredWidth);
+        }
+        return measuredWidth;
+    }
+
+    /**
+     * Returns the width of the given string in points.
+     * @param metrics Metrics of the font to measure with.
+     * @param string The string to measure.
+     * @param fontSize The size of the font.
+     * @param kerning Whether or not kerning should be applied.
+     * @return Width of the string in points.
+     * @see FontMetrics#getWidthPointOfString(CharSequence, int, boolean)
+     */
+    public double getWidthPoint(FontMetrics metrics, String string, int fontSize, boolean kerning) {
+        return (this.getWidth(metrics, string, kerning) * fontSize) * metrics.getConversionToPointsValue();
+    }
+
+    /**
+     * @return the amount of lookups that were answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the amount of lookups that required the string to be measured.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups that were answered from the cache.
+     * @return double between 0 and 1, 0 if no lookups have been done yet.
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hitCount / total;
+    }
+
+    /**
+     * @return the amount of entries currently in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all entries from the cache and resets the hit and miss counters.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Least recently used map holding part of the cache entries.
+     * @author Dylan de Wolff
+     */
+    private static class Segment extends LinkedHashMap<WidthKey, Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int maximumSize;
+
+        Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<WidthKey, Integer> eldest) {
+            return size() > maximumSize;
+        }
+    }
+
+    /**
+     * Used as key for the cache. Contains the font metrics, the measured string and whether kerning was applied.
+     * @author Dylan de Wolff
+     */
+    private static class WidthKey {
+        private final FontMetrics metrics;
+        private final String string;
+        private final boolean kerning;
+
+        WidthKey(FontMetrics metrics, String string, boolean kerning) {
+            this.metrics = metrics;
+            this.string = string;
+            this.kerning = kerning;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof WidthKey) {
+                WidthKey other = (WidthKey) o;
+                return metrics == other.metrics && kerning == other.kerning && string.equals(other.string);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(metrics) * 31 + string.hashCode();
+            return kerning ? hash : ~hash;
+        }
+    }
+}
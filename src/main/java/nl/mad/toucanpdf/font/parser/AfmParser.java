@@ -9,8 +9,10 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
 
+import nl.mad.toucanpdf.font.KerningTable;
 import nl.mad.toucanpdf.font.Type1CharacterMetric;
 import nl.mad.toucanpdf.model.FontMetricsFlagValues;
+import nl.mad.toucanpdf.utility.UnicodeConverter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +42,9 @@ public class AfmParser {
     private int stdHW;
     private int stdVW;
     private Map<String, Type1CharacterMetric> characterMetrics;
-    private Map<KerningKey, Integer> kerningPairs;
+    private Map<String, Integer> glyphIndices;
+    private int unlistedGlyphAmount;
+    private KerningTable kerningPairs;
     private int flags;
     private int averageWidth;
     private int maxWidth;
@@ -99,6 +103,7 @@ public class AfmParser {
             }
             Type1CharacterMetric cm = new Type1CharacterMetric(c, wx, name, boundingBox);
             parser.characterMetrics.put(name, cm);
+            parser.addGlyphIndex(name);
         });
         ACTION_MAP.put("KPX", (parser, st) -> {
             String firstCharacter = st.nextToken();
@@ -123,7 +128,8 @@ public class AfmParser {
      */
     public AfmParser() {
         characterMetrics = new LinkedHashMap<>();
-        kerningPairs = new LinkedHashMap<>();
+        glyphIndices = new HashMap<>();
+        kerningPairs = new KerningTable();
     }
 
     /**
@@ -206,8 +212,14 @@ public class AfmParser {
         }
     }
 
+    /**
+     * Stores the kerning for the given pair of characters. Pairs containing a character that has no metrics are ignored.
+     * @param firstCharacter Name of the first character.
+     * @param secondCharacter Name of the second character.
+     * @param widthOffset The offset between the two characters.
+     */
     protected void createKerningEntry(String firstCharacter, String secondCharacter, int widthOffset) {
-        kerningPairs.put(new KerningKey(firstCharacter, secondCharacter), widthOffset);
+        kerningPairs.put(getGlyphIndex(firstCharacter), getGlyphIndex(secondCharacter), widthOffset);
     }
 
     private void setFontName(String fontName) {
@@ -413,10 +425,40 @@ public class AfmParser {
         return characterMetrics.get(name);
     }
 
+    /**
+     * Assigns a glyph index to the given character name. Characters that are in the glyph list use their glyph id as index, 
+     * other characters are numbered after the last glyph id.
+     * @param name Name of the character.
+     * @see UnicodeConverter#getGlyphId(String)
+     */
+    private void addGlyphIndex(String name) {
+        if (!glyphIndices.containsKey(name)) {
+            int index = UnicodeConverter.getGlyphId(name);
+            if (index == UnicodeConverter.NO_GLYPH) {
+                index = UnicodeConverter.getGlyphCount() + unlistedGlyphAmount;
+                ++unlistedGlyphAmount;
+            }
+            glyphIndices.put(name, index);
+        }
+    }
+
+    /**
+     * Returns the index of the glyph with the given name. For characters in the glyph list this is equal to the glyph id of the character.
+     * @param name Name of the character.
+     * @return int containing the index, -1 if the character could not be found.
+     */
+    public int getGlyphIndex(String name) {
+        Integer index = glyphIndices.get(name);
+        if (index != null) {
+            return index;
+        }
+        return -1;
+    }
+
     /**
      * @return the kerningPairs
      */
-    public Map<KerningKey, Integer> getKerningPairs() {
+    public KerningTable getKerningPairs() {
         return kerningPairs;
     }
 
@@ -427,11 +469,18 @@ public class AfmParser {
      * @return Integer containing the offset between these two characters.
      */
     public Integer getKerning(String characterName, String secondCharacterName) {
-        Integer offset = kerningPairs.get(new KerningKey(characterName, secondCharacterName));
-        if (offset != null) {
-            return offset;
-        }
-        return 0;
+        return kerningPairs.get(getGlyphIndex(characterName), getGlyphIndex(secondCharacterName));
+    }
+
+    /**
+     * Returns the kerning value for the given glyph indices.
+     * @param glyphIndex Index of the first glyph.
+     * @param secondGlyphIndex Index of the second glyph.
+     * @return int containing the offset between these two glyphs.
+     * @see #getGlyphIndex(String)
+     */
+    public int getKerning(int glyphIndex, int secondGlyphIndex) {
+        return kerningPairs.get(glyphIndex, secondGlyphIndex);
     }
 
     /**
@@ -476,39 +525,4 @@ public class AfmParser {
     private interface ParsingAction {
         void execute(AfmParser parser, StringTokenizer st);
     }
-
-    /**
-     * Used as key for the kerning map in AFMParser. Contains two character names.
-     * @author Dylan de Wolff
-     */
-    private static class KerningKey {
-        private final String characterName;
-        private final String secondCharacterName;
-
-        /**
-         * Creates new instance of KerningKey with the given character names.
-         * @param characterName First character name.
-         * @param secondCharacterName Second character name.
-         */
-        public KerningKey(String characterName, String secondCharacterName) {
-            this.characterName = characterName;
-            this.secondCharacterName = secondCharacterName;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (o instanceof KerningKey) {
-                KerningKey other = (KerningKey) o;
-                if (characterName.equals(other.characterName) && secondCharacterName.equals(other.secondCharacterName)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        @Override
-        public int hashCode() {
-            return characterName.hashCode() + secondCharacterName.hashCode();
-        }
-    }
 }
@@ -0,0 +1,535 @@
+package nl.mad.toucanpdf.font.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is responsible for parsing TrueType and OpenType font files. Both glyf and CFF based fonts are supported.
+ * Only the table directory and the small header tables are parsed when the parser is created. Large tables (cmap, hmtx, kern, loca and glyf)
+ * are read directly from the font data when a value is requested, so the font data can be a memory mapped file that is never fully loaded.
+ * @author Dylan de Wolff
+ */
+public class TrueTypeParser {
+    private static final int TRUETYPE_VERSION = 0x00010000;
+    private static final int OPENTYPE_CFF_VERSION = 0x4F54544F;
+    private static final int APPLE_TRUETYPE_VERSION = 0x74727565;
+    private static final int TABLE_DIRECTORY_OFFSET = 12;
+    private static final int TABLE_RECORD_SIZE = 16;
+    private static final int USHORT_MASK = 0xffff;
+    private static final double FIXED_POINT_DIVISOR = 65536.0;
+    private static final int NO_OFFSET = -1;
+
+    //name ids and platforms used by the name table
+    private static final int FAMILY_NAME_ID = 1;
+    private static final int FULL_NAME_ID = 4;
+    private static final int POSTSCRIPT_NAME_ID = 6;
+    private static final int UNICODE_PLATFORM = 0;
+    private static final int MACINTOSH_PLATFORM = 1;
+    private static final int WINDOWS_PLATFORM = 3;
+    private static final int WINDOWS_SYMBOL_ENCODING = 0;
+    private static final int WINDOWS_BMP_ENCODING = 1;
+    private static final int WINDOWS_FULL_ENCODING = 10;
+    private static final int SYMBOL_CODE_OFFSET = 0xF000;
+    private static final int MAX_SYMBOL_CODE = 0xFF;
+    private static final int SEGMENT_MAPPING_FORMAT = 4;
+    private static final int SEGMENTED_COVERAGE_FORMAT = 12;
+    private static final int CMAP_GROUP_SIZE = 12;
+    private static final int KERNING_PAIR_SIZE = 6;
+    private static final int HORIZONTAL_KERNING_COVERAGE = 0x0001;
+    private static final int MINIMUM_KERNING_COVERAGE = 0x0006;
+    private static final int MAC_STYLE_ITALIC = 0x0002;
+    private static final int OS2_CAP_HEIGHT_VERSION = 2;
+    private static final int GLYPH_HEADER_SIZE = 10;
+
+    private final ByteBuffer data;
+    private final Map<String, int[]> tables = new HashMap<>();
+    private boolean cff;
+    private int unitsPerEm;
+    private int[] fontBoundingBox;
+    private int macStyle;
+    private int indexToLocFormat;
+    private int ascender;
+    private int descender;
+    private int lineGap;
+    private int advanceWidthMax;
+    private int numberOfHMetrics;
+    private int numGlyphs;
+    private int averageWidth;
+    private int weightClass;
+    private int capHeight;
+    private int xHeight;
+    private double italicAngle;
+    private int underlinePosition;
+    private int underlineThickness;
+    private boolean fixedPitch;
+    private String postscriptName;
+    private String familyName;
+    private String fullName;
+    private int cmapOffset = NO_OFFSET;
+    private int cmapFormat;
+    private boolean symbolCmap;
+    private int kerningPairsOffset = NO_OFFSET;
+    private int kerningPairAmount;
+
+    /**
+     * Creates a new instance of TrueTypeParser and parses the table directory and header tables of the given font data.
+     * @param fontData The font file. Will not be copied, so this can be a memory mapped file.
+     * @throws IOException if the data is not a TrueType or OpenType font.
+     */
+    public TrueTypeParser(ByteBuffer fontData) throws IOException {
+        this.data = fontData.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            parseTableDirectory();
+            parseHead();
+            parseHhea();
+            parseMaxp();
+            parseOS2();
+            parsePost();
+            parseName();
+            findCmap();
+            findKerning();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("The font file is incomplete or damaged.", e);
+        }
+    }
+
+    private void parseTableDirectory() throws IOException {
+        int version = data.getInt(0);
+        if (version != TRUETYPE_VERSION && version != OPENTYPE_CFF_VERSION && version != APPLE_TRUETYPE_VERSION) {
+            throw new IOException("The given file is not a TrueType or OpenType font.");
+        }
+        cff = version == OPENTYPE_CFF_VERSION;
+        int tableAmount = getUShort(4);
+        for (int i = 0; i < tableAmount; ++i) {
+            int record = TABLE_DIRECTORY_OFFSET + i * TABLE_RECORD_SIZE;
+            byte[] tag = new byte[4];
+            for (int b = 0; b < tag.length; ++b) {
+                tag[b] = data.get(record + b);
+            }
+            tables.put(new String(tag, StandardCharsets.ISO_8859_1), new int[] { data.getInt(record + 8), data.getInt(record + 12) });
+        }
+        for (String required : new String[] { "head", "hhea", "hmtx", "maxp" }) {
+            if (!tables.containsKey(required)) {
+                throw new IOException("The font file does not contain the required " + required + " table.");
+            }
+        }
+    }
+
+    private void parseHead() {
+        int head = getTableOffset("head");
+        unitsPerEm = getUShort(head + 18);
+        fontBoundingBox = new int[] { data.getShort(head + 36), data.getShort(head + 38), data.getShort(head + 40), data.getShort(head + 42) };
+        macStyle = getUShort(head + 44);
+        indexToLocFormat = data.getShort(head + 50);
+    }
+
+    private void parseHhea() {
+        int hhea = getTableOffset("hhea");
+        ascender = data.getShort(hhea + 4);
+        descender = data.getShort(hhea + 6);
+        lineGap = data.getShort(hhea + 8);
+        advanceWidthMax = getUShort(hhea + 10);
+        numberOfHMetrics = getUShort(hhea + 34);
+    }
+
+    private void parseMaxp() {
+        numGlyphs = getUShort(getTableOffset("maxp") + 4);
+    }
+
+    private void parseOS2() {
+        int os2 = getTableOffset("OS/2");
+        if (os2 != NO_OFFSET) {
+            int version = getUShort(os2);
+            averageWidth = data.getShort(os2 + 2);
+            weightClass = getUShort(os2 + 4);
+            if (version >= OS2_CAP_HEIGHT_VERSION) {
+                xHeight = data.getShort(os2 + 86);
+                capHeight = data.getShort(os2 + 88);
+            }
+        }
+    }
+
+    private void parsePost() {
+        int post = getTableOffset("post");
+        if (post != NO_OFFSET) {
+            italicAngle = data.getInt(post + 4) / FIXED_POINT_DIVISOR;
+            underlinePosition = data.getShort(post + 8);
+            underlineThickness = data.getShort(post + 10);
+            fixedPitch = data.getInt(post + 12) != 0;
+        }
+    }
+
+    private void parseName() {
+        int name = getTableOffset("name");
+        if (name == NO_OFFSET) {
+            return;
+        }
+        int count = getUShort(name + 2);
+        int stringOffset = name + getUShort(name + 4);
+        for (int i = 0; i < count; ++i) {
+            int record = name + 6 + i * 12;
+            int platform = getUShort(record);
+            int nameId = getUShort(record + 6);
+            int length = getUShort(record + 8);
+            int offset = stringOffset + getUShort(record + 10);
+            String value = null;
+            if (platform == WINDOWS_PLATFORM || platform == UNICODE_PLATFORM) {
+                value = readString(offset, length, true);
+            } else if (platform == MACINTOSH_PLATFORM) {
+                value = readString(offset, length, false);
+            }
+            if (value != null) {
+                //windows names take precedence over the other platforms
+                boolean replace = platform == WINDOWS_PLATFORM;
+                if (nameId == POSTSCRIPT_NAME_ID && (postscriptName == null || replace)) {
+                    postscriptName = value;
+                } else if (nameId == FAMILY_NAME_ID && (familyName == null || replace)) {
+                    familyName = value;
+                } else if (nameId == FULL_NAME_ID && (fullName == null || replace)) {
+                    fullName = value;
+                }
+            }
+        }
+    }
+
+    private String readString(int offset, int length, boolean utf16) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = data.get(offset + i);
+        }
+        return new String(bytes, utf16 ? StandardCharsets.UTF_16BE : StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Selects the cmap subtable to use. Full unicode (format 12) subtables are preferred over BMP (format 4) subtables.
+     * Subsets created for embedding do not have a cmap table, all characters are mapped to the missing glyph for these fonts.
+     */
+    private void findCmap() {
+        int cmap = getTableOffset("cmap");
+        if (cmap == NO_OFFSET) {
+            return;
+        }
+        int amount = getUShort(cmap + 2);
+        int bmpOffset = NO_OFFSET;
+        int symbolOffset = NO_OFFSET;
+        for (int i = 0; i < amount; ++i) {
+            int record = cmap + 4 + i * 8;
+            int platform = getUShort(record);
+            int encoding = getUShort(record + 2);
+            int offset = cmap + data.getInt(record + 4);
+            int format = getUShort(offset);
+            boolean unicode = platform == UNICODE_PLATFORM || (platform == WINDOWS_PLATFORM && (encoding == WINDOWS_BMP_ENCODING
+                    || encoding == WINDOWS_FULL_ENCODING));
+            if (unicode && format == SEGMENTED_COVERAGE_FORMAT) {
+                cmapOffset = offset;
+                cmapFormat = format;
+                return;
+            } else if (unicode && format == SEGMENT_MAPPING_FORMAT && bmpOffset == NO_OFFSET) {
+                bmpOffset = offset;
+            } else if (platform == WINDOWS_PLATFORM && encoding == WINDOWS_SYMBOL_ENCODING && format == SEGMENT_MAPPING_FORMAT) {
+                symbolOffset = offset;
+            }
+        }
+        if (bmpOffset != NO_OFFSET) {
+            cmapOffset = bmpOffset;
+        } else if (symbolOffset != NO_OFFSET) {
+            cmapOffset = symbolOffset;
+            symbolCmap = true;
+        }
+        cmapFormat = SEGMENT_MAPPING_FORMAT;
+    }
+
+    /**
+     * Finds the first horizontal format 0 subtable of the kern table.
+     */
+    private void findKerning() {
+        int kern = getTableOffset("kern");
+        if (kern == NO_OFFSET || getUShort(kern) != 0) {
+            return;
+        }
+        int amount = getUShort(kern + 2);
+        int subtable = kern + 4;
+        for (int i = 0; i < amount; ++i) {
+            int length = getUShort(subtable + 2);
+            int coverage = getUShort(subtable + 4);
+            if ((coverage >> 8) == 0 && (coverage & HORIZONTAL_KERNING_COVERAGE) != 0 && (coverage & MINIMUM_KERNING_COVERAGE) == 0) {
+                kerningPairAmount = getUShort(subtable + 6);
+                kerningPairsOffset = subtable + 14;
+                return;
+            }
+            subtable += length;
+        }
+    }
+
+    /**
+     * Returns the glyph id for the given unicode code point.
+     * @param codePoint Code point of the character.
+     * @return int containing the glyph id, 0 (the missing glyph) if the font does not contain the character.
+     */
+    public int getGlyphId(int codePoint) {
+        if (cmapOffset == NO_OFFSET) {
+            return 0;
+        }
+        if (cmapFormat == SEGMENTED_COVERAGE_FORMAT) {
+            return getGlyphIdFromSegmentedCoverage(codePoint);
+        }
+        int glyphId = getGlyphIdFromSegmentMapping(codePoint);
+        if (glyphId == 0 && symbolCmap && codePoint <= MAX_SYMBOL_CODE) {
+            glyphId = getGlyphIdFromSegmentMapping(codePoint + SYMBOL_CODE_OFFSET);
+        }
+        return glyphId;
+    }
+
+    private int getGlyphIdFromSegmentMapping(int codePoint) {
+        if (codePoint > USHORT_MASK) {
+            return 0;
+        }
+        int segCountX2 = getUShort(cmapOffset + 6);
+        int endCodes = cmapOffset + 14;
+        int startCodes = endCodes + segCountX2 + 2;
+        int idDeltas = startCodes + segCountX2;
+        int idRangeOffsets = idDeltas + segCountX2;
+        int low = 0;
+        int high = segCountX2 / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int endCode = getUShort(endCodes + middle * 2);
+            if (endCode < codePoint) {
+                low = middle + 1;
+            } else {
+                int startCode = getUShort(startCodes + middle * 2);
+                if (startCode <= codePoint) {
+                    int idDelta = data.getShort(idDeltas + middle * 2);
+                    int rangeOffsetPosition = idRangeOffsets + middle * 2;
+                    int idRangeOffset = getUShort(rangeOffsetPosition);
+                    if (idRangeOffset == 0) {
+                        return (codePoint + idDelta) & USHORT_MASK;
+                    }
+                    int glyphId = getUShort(rangeOffsetPosition + idRangeOffset + (codePoint - startCode) * 2);
+                    return glyphId == 0 ? 0 : (glyphId + idDelta) & USHORT_MASK;
+                }
+                high = middle - 1;
+            }
+        }
+        return 0;
+    }
+
+    private int getGlyphIdFromSegmentedCoverage(int codePoint) {
+        int low = 0;
+        int high = data.getInt(cmapOffset + 12) - 1;
+        int groups = cmapOffset + 16;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int group = groups + middle * CMAP_GROUP_SIZE;
+            if (data.getInt(group + 4) < codePoint) {
+                low = middle + 1;
+            } else if (data.getInt(group) > codePoint) {
+                high = middle - 1;
+            } else {
+                return data.getInt(group + 8) + codePoint - data.getInt(group);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the advance width of the given glyph in font units.
+     * @param glyphId Id of the glyph.
+     * @return int containing the advance width.
+     */
+    public int getAdvanceWidth(int glyphId) {
+        if (glyphId < 0 || glyphId >= numGlyphs) {
+            return 0;
+        }
+        int index = Math.min(glyphId, numberOfHMetrics - 1);
+        return getUShort(getTableOffset("hmtx") + index * 4);
+    }
+
+    /**
+     * Returns the kerning value of the given pair of glyphs in font units. Negative values move the glyphs closer together.
+     * @param glyphId Id of the first glyph.
+     * @param secondGlyphId Id of the second glyph.
+     * @return int containing the kerning value, 0 if the pair has no kerning.
+     */
+    public int getKerning(int glyphId, int secondGlyphId) {
+        if (kerningPairsOffset == NO_OFFSET) {
+            return 0;
+        }
+        long key = ((long) glyphId << 16) | secondGlyphId;
+        int low = 0;
+        int high = kerningPairAmount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int pair = kerningPairsOffset + middle * KERNING_PAIR_SIZE;
+            long pairKey = ((long) getUShort(pair) << 16) | getUShort(pair + 2);
+            if (pairKey < key) {
+                low = middle + 1;
+            } else if (pairKey > key) {
+                high = middle - 1;
+            } else {
+                return data.getShort(pair + 4);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the position of the given glyph within the glyf table.
+     * @param glyphId Id of the glyph.
+     * @return int containing the offset relative to the start of the glyf table.
+     */
+    public int getGlyphOffset(int glyphId) {
+        int loca = getTableOffset("loca");
+        if (indexToLocFormat == 0) {
+            return getUShort(loca + glyphId * 2) * 2;
+        }
+        return data.getInt(loca + glyphId * 4);
+    }
+
+    /**
+     * Returns the length of the outline data of the given glyph.
+     * @param glyphId Id of the glyph.
+     * @return int containing the length in bytes, 0 if the glyph has no outline.
+     */
+    public int getGlyphLength(int glyphId) {
+        if (cff || glyphId < 0 || glyphId >= numGlyphs || !tables.containsKey("loca")) {
+            return 0;
+        }
+        return getGlyphOffset(glyphId + 1) - getGlyphOffset(glyphId);
+    }
+
+    /**
+     * Returns the bounding box of the given glyph. Only available for glyf based fonts.
+     * @param glyphId Id of the glyph.
+     * @return int array containing xMin, yMin, xMax and yMax in font units, null if the glyph has no outline.
+     */
+    public int[] getGlyphBoundingBox(int glyphId) {
+        if (getGlyphLength(glyphId) < GLYPH_HEADER_SIZE) {
+            return null;
+        }
+        int glyph = getTableOffset("glyf") + getGlyphOffset(glyphId);
+        return new int[] { data.getShort(glyph + 2), data.getShort(glyph + 4), data.getShort(glyph + 6), data.getShort(glyph + 8) };
+    }
+
+    /**
+     * Returns the offset of the given table within the font data.
+     * @param tag Tag of the table.
+     * @return int containing the offset, -1 if the font does not contain the table.
+     */
+    public int getTableOffset(String tag) {
+        int[] table = tables.get(tag);
+        return table == null ? NO_OFFSET : table[0];
+    }
+
+    /**
+     * Returns the length of the given table.
+     * @param tag Tag of the table.
+     * @return int containing the length in bytes, 0 if the font does not contain the table.
+     */
+    public int getTableLength(String tag) {
+        int[] table = tables.get(tag);
+        return table == null ? 0 : table[1];
+    }
+
+    /**
+     * @return the font data this parser reads from. The returned buffer is independent of the parser's buffer.
+     */
+    public ByteBuffer getData() {
+        return data.duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private int getUShort(int offset) {
+        return data.getShort(offset) & USHORT_MASK;
+    }
+
+    /**
+     * @return true if the glyph outlines are stored in a CFF table, false if they are stored in a glyf table.
+     */
+    public boolean isCFF() {
+        return cff;
+    }
+
+    public int getUnitsPerEm() {
+        return unitsPerEm;
+    }
+
+    public int[] getFontBoundingBox() {
+        return fontBoundingBox.clone();
+    }
+
+    public boolean isItalic() {
+        return (macStyle & MAC_STYLE_ITALIC) != 0 || italicAngle != 0;
+    }
+
+    public int getAscender() {
+        return ascender;
+    }
+
+    public int getDescender() {
+        return descender;
+    }
+
+    public int getLineGap() {
+        return lineGap;
+    }
+
+    public int getAdvanceWidthMax() {
+        return advanceWidthMax;
+    }
+
+    public int getNumberOfHMetrics() {
+        return numberOfHMetrics;
+    }
+
+    public int getNumGlyphs() {
+        return numGlyphs;
+    }
+
+    public int getAverageWidth() {
+        return averageWidth;
+    }
+
+    public int getWeightClass() {
+        return weightClass;
+    }
+
+    public int getCapHeight() {
+        return capHeight;
+    }
+
+    public int getxHeight() {
+        return xHeight;
+    }
+
+    public double getItalicAngle() {
+        return italicAngle;
+    }
+
+    public int getUnderlinePosition() {
+        return underlinePosition;
+    }
+
+    public int getUnderlineThickness() {
+        return underlineThickness;
+    }
+
+    public boolean isFixedPitch() {
+        return fixedPitch;
+    }
+
+    public String getPostscriptName() {
+        return postscriptName;
+    }
+
+    public String getFamilyName() {
+        return familyName;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+}
@@ -69,4 +69,23 @@ public interface Font extends DocumentPart {
      * @return FontMetrics corresponding to this font.
      */
     FontMetrics getMetrics();
+
+    /**
+     * Returns the way in which the program of this font is included in the document.
+     * By default the font uses the embedding of the document, fonts that do not override this method keep their existing behaviour.
+     * @return FontEmbedding of this font or null if the default of the document is used.
+     */
+    default FontEmbedding getEmbedding() {
+        return null;
+    }
+
+    /**
+     * Sets the way in which the program of this font is included in the document. This overrides the default of the document.
+     * Fonts that do not override this method ignore the given embedding and keep using the default of the document.
+     * @param embedding The embedding to use, null to use the default of the document.
+     * @return the font.
+     */
+    default Font embedding(FontEmbedding embedding) {
+        return this;
+    }
 }
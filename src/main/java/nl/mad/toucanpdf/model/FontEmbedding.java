@@ -0,0 +1,22 @@
+package nl.mad.toucanpdf.model;
+
+/**
+ * Enum containing the different ways in which the program of a font can be included in a document.
+ * @author Dylan de Wolff
+ * @see Font
+ */
+public enum FontEmbedding {
+    /**
+     * The entire font program is embedded.
+     */
+    EMBED,
+    /**
+     * The font program is reduced to the characters that are used by the document before it is embedded.
+     */
+    SUBSET,
+    /**
+     * The font program is not embedded, the font is only referred to by name. This is only possible for the standard 14 fonts,
+     * since PDF viewers are required to supply these. Other fonts will be subset instead.
+     */
+    REFERENCE;
+}
@@ -1,9 +1,11 @@
 package nl.mad.toucanpdf.model;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
+import nl.mad.toucanpdf.font.TrueTypeFontMetrics;
 import nl.mad.toucanpdf.font.Type1FontMetrics;
 
 import org.slf4j.Logger;
@@ -86,8 +88,10 @@ public class FontFamily {
         try {
             if (subType == FontType.TYPE1) {
                 metrics.put(filename, new Type1FontMetrics(filename));
+            } else if (subType == FontType.TRUETYPE) {
+                metrics.put(filename, new TrueTypeFontMetrics(filename));
             }
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             LOGGER.error(e.toString());
         }
     }
@@ -110,6 +114,26 @@ public class FontFamily {
         return DEFAULT_FONT_FAMILIES.get(family);
     }
 
+    /**
+     * Returns whether this family is one of the default font families. The fonts of these families are part of the standard 14 fonts,
+     * which PDF viewers are required to supply. These fonts therefore do not have to be embedded.
+     * Families created separately are considered default families as well if they have the same subtype and names as one of the default families.
+     * @return true if this family is a default font family, false otherwise.
+     */
+    public boolean isDefaultFontFamily() {
+        for (FontFamily family : DEFAULT_FONT_FAMILIES.values()) {
+            if (family == this || hasSameFonts(family)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasSameFonts(FontFamily family) {
+        return subType == family.subType && Objects.equals(name, family.name) && Objects.equals(boldName, family.boldName)
+                && Objects.equals(italicName, family.italicName) && Objects.equals(boldItalicName, family.boldItalicName);
+    }
+
     public FontType getSubType() {
         return subType;
     }
@@ -23,6 +23,23 @@ public interface FontMetrics {
      */
     int getWidth(String name);
 
+    /**
+     * Returns the glyph id of the given unicode character code. Type 1 fonts use the glyph ids given by the UnicodeConverter,
+     * TrueType fonts use the index of the glyph in the font file.
+     * @param characterCode Code of character.
+     * @return int containing the glyph id.
+     * @see nl.mad.toucanpdf.utility.UnicodeConverter#getGlyphId(int)
+     */
+    int getGlyphId(int characterCode);
+
+    /**
+     * Returns width of the character corresponding to the given glyph id.
+     * @param glyphId Id of the glyph.
+     * @return Width of the character, 0 if the font does not contain the glyph.
+     * @see #getGlyphId(int)
+     */
+    int getGlyphWidth(int glyphId);
+
     /**
      * Returns the kerning (width offset between two characters) value between the given unicode character codes.
      * @param characterCode First character code.
@@ -39,6 +56,14 @@ public interface FontMetrics {
      */
     int getKerning(String characterName, String secondCharacterName);
 
+    /**
+     * Returns the kerning (width offset between two characters) value between the given glyph ids.
+     * @param glyphId Id of the first glyph.
+     * @param secondGlyphId Id of the second glyph.
+     * @return int containing the kerning value.
+     */
+    int getGlyphKerning(int glyphId, int secondGlyphId);
+
     /**
      * Returns the name of the font as stated in the metrics file.
      * @return String containing the name.
@@ -202,7 +227,7 @@ public interface FontMetrics {
      * @param kerning Whether or not kerning should be applied.
      * @return Width of the string. 
      */
-    int getWidthOfString(String string, int fontSize, boolean kerning);
+    int getWidthOfString(CharSequence string, int fontSize, boolean kerning);
 
     /**
      * Returns the width of the given string in points. Can also return the width of the string after kerning is applied.
@@ -211,7 +236,7 @@ public interface FontMetrics {
      * @param kerning Whether or not kerning should be applied.
      * @return Width of the string in points.
      */
-    double getWidthPointOfString(String string, int fontSize, boolean kerning);
+    double getWidthPointOfString(CharSequence string, int fontSize, boolean kerning);
 
     /**
      * Returns width of the character corresponding to the given unicode character code in points.
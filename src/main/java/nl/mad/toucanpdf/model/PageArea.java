@@ -29,7 +29,8 @@ public interface PageArea {
      * add the following text to your text object "%keyOfAttribute" without the quotation marks. 
      * The following attributes are supplied automatically during the creation of a preview or upon the creation of the document.
      * - pageNumber, refer to as "%pageNumber"
-     * - totalPages, refer to as "%totalPages"
+     * - totalPages, refer to as "%totalPages". Texts reserve the space of the digits of the expected total amount of pages,
+     *   the total is drawn within this space when the document is written.
      * @param key The key of the attribute.
      * @param value The value of the attribute.
      * @return the PageArea instance.
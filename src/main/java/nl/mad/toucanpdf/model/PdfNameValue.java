@@ -35,6 +35,7 @@ public enum PdfNameValue {
     TRUE_TYPE("TrueType"),
     FONT_DESCRIPTOR("FontDescriptor"),
     ENCODING("Encoding"),
+    BASE_ENCODING("BaseEncoding"),
     FONT_NAME("FontName"),
     FONT_FAMILY("FontFamily"),
     FLAGS("Flags"),
@@ -90,7 +91,23 @@ public enum PdfNameValue {
     DEVICE_N("DeviceN"),
     DIFFERENCES("Differences"),
     DECODE("Decode"),
-    ROTATION("Rotate");
+    ROTATION("Rotate"),
+    DESCENDANT_FONTS("DescendantFonts"),
+    CID_FONT_TYPE0("CIDFontType0"),
+    CID_FONT_TYPE2("CIDFontType2"),
+    CID_SYSTEM_INFO("CIDSystemInfo"),
+    CID_TO_GID_MAP("CIDToGIDMap"),
+    REGISTRY("Registry"),
+    ORDERING("Ordering"),
+    SUPPLEMENT("Supplement"),
+    IDENTITY("Identity"),
+    IDENTITY_H("Identity-H"),
+    TO_UNICODE("ToUnicode"),
+    W("W"),
+    DW("DW"),
+    OPEN_TYPE("OpenType"),
+    FORM("Form"),
+    BBOX("BBox");
 
     private String string;
 
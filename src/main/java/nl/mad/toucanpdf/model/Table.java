@@ -101,6 +101,23 @@ public interface Table extends PlaceableFixedSizeDocumentPart {
      */
     Table addCell(Cell c);
 
+    /**
+     * Sets the source of the rows of this table. The rows are pulled from the source during the layout of the table and are placed below the cells
+     * that were added to the table. Each row is a collection of values that are placed in consecutive columns, values that do not fit in the 
+     * remaining columns are ignored. Cells are used as is, document parts are used as cell content and any other value is converted to text.
+     * The source is iterated again every time the document state is processed, use a source that can be iterated multiple times if the preview
+     * of the document is requested before finishing it.
+     * @param rowSource Source of the rows, or null to remove the current source.
+     * @return this table instance.
+     */
+    Table rows(Iterable<? extends Iterable<?>> rowSource);
+
+    /**
+     * Returns the source of the rows of this table.
+     * @return the source of the rows, null if the table has no row source.
+     */
+    Iterable<? extends Iterable<?>> getRowSource();
+
     /**
      * Sets the amount of columns the table has.
      * @param amountOfColumns Amount of columns.
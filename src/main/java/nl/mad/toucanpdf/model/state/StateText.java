@@ -1,6 +1,9 @@
 package nl.mad.toucanpdf.model.state;
 
+import java.util.List;
+
 import nl.mad.toucanpdf.model.Page;
+import nl.mad.toucanpdf.model.Position;
 
 /**
  * Interface for text objects that are used in calculating the state of the document.
@@ -25,4 +28,17 @@ public interface StateText extends StatePlaceableDocumentPart, StateSplittableTe
      */
     double getContentHeightUnderBaseLine(Page page);
 
+    /**
+     * Returns the positions on which the total amount of pages should be shown. The space for the total is reserved in the lines of the text,
+     * the total itself is filled in when the document is written.
+     * @return List of positions, empty if the text does not show the total amount of pages.
+     */
+    List<Position> getTotalPagesPositions();
+
+    /**
+     * Returns the width of the space reserved for the total amount of pages on each of the positions returned by {@link #getTotalPagesPositions()}.
+     * @return the width of the reserved space, 0 if the text does not show the total amount of pages.
+     */
+    double getTotalPagesWidth();
+
 }
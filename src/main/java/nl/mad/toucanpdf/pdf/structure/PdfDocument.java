@@ -4,18 +4,23 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import nl.mad.toucanpdf.font.TrueTypeFontMetrics;
 import nl.mad.toucanpdf.model.Compression;
 import nl.mad.toucanpdf.model.DocumentPart;
 import nl.mad.toucanpdf.model.Font;
+import nl.mad.toucanpdf.model.FontEmbedding;
 import nl.mad.toucanpdf.model.FontMetrics;
+import nl.mad.toucanpdf.model.FontType;
 import nl.mad.toucanpdf.model.Image;
 import nl.mad.toucanpdf.model.Page;
 import nl.mad.toucanpdf.model.PdfNameValue;
+import nl.mad.toucanpdf.model.Position;
 import nl.mad.toucanpdf.model.state.StateCell;
 import nl.mad.toucanpdf.model.state.StateCellContent;
 import nl.mad.toucanpdf.model.state.StateImage;
@@ -24,23 +29,31 @@ import nl.mad.toucanpdf.model.state.StateParagraph;
 import nl.mad.toucanpdf.model.state.StateSplittableText;
 import nl.mad.toucanpdf.model.state.StateTable;
 import nl.mad.toucanpdf.model.state.StateText;
+import nl.mad.toucanpdf.pdf.syntax.PdfCIDFont;
 import nl.mad.toucanpdf.pdf.syntax.PdfDictionary;
-import nl.mad.toucanpdf.pdf.syntax.PdfFile;
 import nl.mad.toucanpdf.pdf.syntax.PdfFont;
 import nl.mad.toucanpdf.pdf.syntax.PdfFontDescriptor;
 import nl.mad.toucanpdf.pdf.syntax.PdfFontEncoding;
 import nl.mad.toucanpdf.pdf.syntax.PdfFontProgram;
+import nl.mad.toucanpdf.pdf.syntax.PdfForm;
 import nl.mad.toucanpdf.pdf.syntax.PdfImage;
 import nl.mad.toucanpdf.pdf.syntax.PdfImageDictionary;
 import nl.mad.toucanpdf.pdf.syntax.PdfIndirectObject;
+import nl.mad.toucanpdf.pdf.syntax.PdfName;
 import nl.mad.toucanpdf.pdf.syntax.PdfObjectType;
 import nl.mad.toucanpdf.pdf.syntax.PdfPage;
 import nl.mad.toucanpdf.pdf.syntax.PdfStream;
 import nl.mad.toucanpdf.pdf.syntax.PdfString;
 import nl.mad.toucanpdf.pdf.syntax.PdfTable;
 import nl.mad.toucanpdf.pdf.syntax.PdfText;
+import nl.mad.toucanpdf.pdf.syntax.PdfToUnicodeCMap;
+import nl.mad.toucanpdf.pdf.syntax.PdfTotalPages;
+import nl.mad.toucanpdf.pdf.syntax.PdfType0Font;
 import nl.mad.toucanpdf.utility.Constants;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * Represents the PDF document itself, containing the four different sections of a PDF document.
  * This class is responsible for the creation of the four sections (header, body, cross reference table and trailer),
@@ -49,6 +62,7 @@ import nl.mad.toucanpdf.utility.Constants;
  * @author Dylan de Wolff
  */
 public class PdfDocument {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PdfDocument.class);
     private PdfHeader header;
     private PdfBody body;
     private PdfCrossReferenceTable xref;
@@ -56,13 +70,26 @@ public class PdfDocument {
     private PdfPage currentPage;
     private Map<Font, PdfIndirectObject> fontList = new HashMap<Font, PdfIndirectObject>();
     private Map<ByteBuffer, PdfIndirectObject> imageList = new HashMap<ByteBuffer, PdfIndirectObject>();
+    private Map<List<Object>, PdfIndirectObject> totalPagesForms = new HashMap<List<Object>, PdfIndirectObject>();
+    private int pageAmount = 0;
+    private int totalPages = -1;
     private static final String CREATOR = "Toucan-PDF";
     private static final Compression DEFAULT_COMPRESSION_METHOD = Compression.FLATE;
+    private FontEmbedding defaultFontEmbedding;
 
     /**
-     * Creates a new instance of PdfDocument.
+     * Creates a new instance of PdfDocument. The programs of the fonts are embedded as subsets.
      */
     public PdfDocument() {
+        this(FontEmbedding.SUBSET);
+    }
+
+    /**
+     * Creates a new instance of PdfDocument.
+     * @param defaultFontEmbedding The embedding used for fonts that do not specify an embedding themselves.
+     */
+    public PdfDocument(FontEmbedding defaultFontEmbedding) {
+        this.defaultFontEmbedding = defaultFontEmbedding;
         this.header = new PdfHeader();
         this.body = new PdfBody();
         this.xref = new PdfCrossReferenceTable();
@@ -189,6 +216,41 @@ public class PdfDocument {
 
         ts.add(pdfText);
         ts.addFilter(text.getCompressionMethod());
+        if (text instanceof StateText) {
+            this.addTotalPages((StateText) text);
+        }
+    }
+
+    /**
+     * Draws the total amount of pages on the positions reserved by the given text. The total is shown through a form that is filled
+     * when the document is written, which means the total does not have to be known when the page is added.
+     * @param text Text that might contain the total amount of pages.
+     */
+    private void addTotalPages(StateText text) {
+        List<Position> positions = text.getTotalPagesPositions();
+        if (!positions.isEmpty()) {
+            PdfIndirectObject form = this.getTotalPagesForm(text);
+            currentPage.addResource(form);
+            PdfStream stream = getCurrentPageStream();
+            for (Position position : positions) {
+                stream.add(new PdfForm(form.getReference().getResourceReference(), text, position));
+            }
+        }
+    }
+
+    private PdfIndirectObject getTotalPagesForm(StateText text) {
+        List<Object> key = Arrays.asList(text.getFont(), text.getTextSize(), text.getColor().toString(), text.getTotalPagesWidth());
+        PdfIndirectObject form = totalPagesForms.get(key);
+        if (form == null) {
+            PdfIndirectObject font = this.addFont(text.getFont());
+            PdfFont fontObj = (PdfFont) font.getObject();
+            if (fontObj.getEncoding() != null) {
+                fontObj.getEncoding().updateDifferences(PdfTotalPages.DIGITS);
+            }
+            form = body.addObject(new PdfTotalPages(fontObj, font, text, text.getTotalPagesWidth()));
+            totalPagesForms.put(key, form);
+        }
+        return form;
     }
 
     private void AddTextPropertiesToPdfText(StateSplittableText text, boolean overrideMatrix, PdfText pdfText) {
@@ -233,15 +295,27 @@ public class PdfDocument {
      */
     public PdfIndirectObject addFont(Font font) {
         if (!fontList.containsKey(font) && font != null) {
-            PdfFontDescriptor newFontDescriptor = new PdfFontDescriptor(font);
-            FontMetrics metrics = font.getFontFamily().getMetricsForStyle(font.getStyle());
-            AddFontProgram(font, newFontDescriptor, metrics);
-
-            PdfIndirectObject enc = body.addObject(new PdfFontEncoding(font));
+            FontEmbedding embedding = getFontEmbedding(font);
+            if (font.getFontFamily().getSubType() == FontType.TRUETYPE) {
+                PdfIndirectObject indirectFont = addType0Font(font, embedding);
+                fontList.put(font, indirectFont);
+                return indirectFont;
+            }
+            PdfFontEncoding encoding = new PdfFontEncoding(font);
+            PdfIndirectObject enc = body.addObject(encoding);
             PdfFont newFont = new PdfFont(font, enc);
+            newFont.setSubset(embedding == FontEmbedding.SUBSET);
             PdfIndirectObject indirectFont = body.addObject(newFont);
-            PdfIndirectObject indirectFontDictionary = body.addObject(newFontDescriptor);
-            newFont.setFontDescriptorReference(indirectFontDictionary.getReference());
+            if (embedding != FontEmbedding.REFERENCE) {
+                PdfFontDescriptor newFontDescriptor = new PdfFontDescriptor(font);
+                FontMetrics metrics = font.getFontFamily().getMetricsForStyle(font.getStyle());
+                PdfFontProgram fontProgram = AddFontProgram(font, newFontDescriptor, metrics);
+                if (embedding == FontEmbedding.SUBSET && encoding.getEncodingDifferences() != null) {
+                    fontProgram.setSubsetDifferences(encoding.getEncodingDifferences());
+                }
+                PdfIndirectObject indirectFontDictionary = body.addObject(newFontDescriptor);
+                newFont.setFontDescriptorReference(indirectFontDictionary.getReference());
+            }
 
             fontList.put(font, indirectFont);
             return indirectFont;
@@ -250,20 +324,68 @@ public class PdfDocument {
         }
     }
 
-    private void AddFontProgram(Font font, PdfFontDescriptor newFontDescriptor, FontMetrics metrics) {
-        byte[] fontProgramFile = metrics.getFontFile();
-        if (fontProgramFile != null) {
-            PdfFontProgram fontProgram = CreateFontProgram(metrics, fontProgramFile);
-            PdfIndirectObject indirectFontFile = body.addObject(fontProgram);
-            newFontDescriptor.setFontFileReference(indirectFontFile.getReference(), font.getFontFamily().getSubType());
+    /**
+     * Returns the embedding that should be used for the given font. Only the fonts of the default font families can be referenced without embedding
+     * their program, other fonts are subset instead.
+     * @param font Font to get the embedding for.
+     * @return the embedding of the font or the default embedding of this document if the font does not specify one.
+     */
+    private FontEmbedding getFontEmbedding(Font font) {
+        FontEmbedding embedding = font.getEmbedding() != null ? font.getEmbedding() : defaultFontEmbedding;
+        if (embedding == FontEmbedding.REFERENCE && !font.getFontFamily().isDefaultFontFamily()) {
+            LOGGER.warn("Only the standard 14 fonts can be referenced without embedding, the font {} will be embedded as subset.",
+                    font.getFontFamily().getName());
+            return FontEmbedding.SUBSET;
+        }
+        return embedding != null ? embedding : FontEmbedding.SUBSET;
+    }
+
+    /**
+     * Creates the objects for a TrueType or OpenType font. These fonts are added as Type 0 font with a single descendant CIDFont,
+     * the ToUnicode map is created from the glyphs that are used when the document is written. The font program is created from these glyphs
+     * as well, unless the entire program is embedded. Programs with CFF outlines can not be subset and are always embedded entirely,
+     * which means their name does not get a subset tag either.
+     * @param font Font that needs to be added.
+     * @param embedding The embedding of the font program, either EMBED or SUBSET.
+     * @return indirect object for the Type 0 font.
+     */
+    private PdfIndirectObject addType0Font(Font font, FontEmbedding embedding) {
+        boolean subset = embedding == FontEmbedding.SUBSET && !((TrueTypeFontMetrics) font.getMetrics()).isCFF();
+        PdfType0Font newFont = new PdfType0Font(font, subset);
+        PdfCIDFont descendantFont = new PdfCIDFont(newFont);
+        PdfFontDescriptor newFontDescriptor = new PdfFontDescriptor(font);
+        newFontDescriptor.put(PdfNameValue.FONT_NAME, new PdfName(newFont.getBaseFontName()));
+
+        PdfFontProgram fontProgram = new PdfFontProgram(newFont.getMetrics());
+        fontProgram.addFilter(DEFAULT_COMPRESSION_METHOD);
+        if (subset) {
+            fontProgram.setSubsetFont(newFont);
+        }
+        PdfToUnicodeCMap toUnicode = new PdfToUnicodeCMap(newFont);
+        toUnicode.addFilter(DEFAULT_COMPRESSION_METHOD);
+
+        PdfIndirectObject indirectFont = body.addObject(newFont);
+        PdfIndirectObject indirectDescendantFont = body.addObject(descendantFont);
+        PdfIndirectObject indirectFontDescriptor = body.addObject(newFontDescriptor);
+        PdfIndirectObject indirectFontFile = body.addObject(fontProgram);
+        PdfIndirectObject indirectToUnicode = body.addObject(toUnicode);
+        if (newFont.getMetrics().isCFF()) {
+            fontProgram.put(PdfNameValue.SUB_TYPE, PdfNameValue.OPEN_TYPE);
+            newFontDescriptor.put(PdfNameValue.FONT_FILE3, indirectFontFile.getReference());
+        } else {
+            newFontDescriptor.put(PdfNameValue.FONT_FILE2, indirectFontFile.getReference());
         }
+        newFont.setDescendantFontReference(indirectDescendantFont.getReference());
+        newFont.setToUnicodeReference(indirectToUnicode.getReference());
+        descendantFont.setFontDescriptorReference(indirectFontDescriptor.getReference());
+        return indirectFont;
     }
 
-    private PdfFontProgram CreateFontProgram(FontMetrics metrics, byte[] fontProgramFile) {
-        PdfFontProgram fontProgram = new PdfFontProgram();
+    private PdfFontProgram AddFontProgram(Font font, PdfFontDescriptor newFontDescriptor, FontMetrics metrics) {
+        PdfFontProgram fontProgram = new PdfFontProgram(metrics);
         fontProgram.addFilter(DEFAULT_COMPRESSION_METHOD);
-        fontProgram.setFontProgram(new PdfFile(fontProgramFile));
-        fontProgram.setLengths(metrics.getFontProgramLengths());
+        PdfIndirectObject indirectFontFile = body.addObject(fontProgram);
+        newFontDescriptor.setFontFileReference(indirectFontFile.getReference(), font.getFontFamily().getSubType());
         return fontProgram;
     }
 
@@ -275,6 +397,7 @@ public class PdfDocument {
         PdfPage pdfPage = new PdfPage(page.getWidth(), page.getHeight(), page.getLeading(), page.getRotation());
         pdfPage.setMargins(page.getMarginLeft(), page.getMarginRight(), page.getMarginBottom(), page.getMarginTop());
         currentPage = (PdfPage) body.addPage(pdfPage).getObject();
+        ++pageAmount;
     }
 
     /**
@@ -306,6 +429,7 @@ public class PdfDocument {
      * @throws IOException 
      */
     public void write(OutputStream os) throws IOException {
+        fillInTotalPages();
         DataOutputStream dos = new DataOutputStream(os);
         header.writeToFile(dos);
         dos.write(Constants.LINE_SEPARATOR);
@@ -320,6 +444,27 @@ public class PdfDocument {
         dos.close();
     }
 
+    /**
+     * Creates the content of the forms showing the total amount of pages. This has to be done before the fonts are written,
+     * since the glyphs of the total are only added to the fonts when the content is created.
+     */
+    private void fillInTotalPages() {
+        //without a given total the title page is not counted, see DocumentState
+        int total = totalPages >= 0 ? totalPages : Math.max(0, pageAmount - 1);
+        for (PdfIndirectObject form : totalPagesForms.values()) {
+            ((PdfTotalPages) form.getObject()).setTotalPages(total);
+        }
+    }
+
+    /**
+     * Sets the total amount of pages shown by the texts that refer to the total. If no total is set,
+     * the amount of pages added to the document minus the title page is used.
+     * @param totalPages The total amount of pages.
+     */
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
     public PdfPage getCurrentPage() {
         return this.currentPage;
     }
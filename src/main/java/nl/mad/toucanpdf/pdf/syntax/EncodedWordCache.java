@@ -0,0 +1,101 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache containing words that have been encoded for a text showing (TJ) operator. Each font object of a document has its own cache,
+ * since the encoding of a word depends on the character codes that the font assigned in this document.
+ * The least recently used words are removed when the cache is full.
+ * @author Dylan de Wolff
+ * @see PdfText
+ */
+public class EncodedWordCache {
+    /**
+     * Default maximum amount of words in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+    private final Map<String, EncodedWord> words;
+
+    /**
+     * Creates a new instance of EncodedWordCache with the default maximum size.
+     */
+    public EncodedWordCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a new instance of EncodedWordCache.
+     * @param maximumSize Maximum amount of words in the cache.
+     */
+    public EncodedWordCache(final int maximumSize) {
+        words = new LinkedHashMap<String, EncodedWord>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EncodedWord> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the encoded version of the given word.
+     * @param word Word to look up.
+     * @return the encoded word or null if the word is not in the cache.
+     */
+    public EncodedWord get(String word) {
+        return words.get(word);
+    }
+
+    /**
+     * Adds the encoded version of the given word to the cache.
+     * @param word The word.
+     * @param encodedWord The encoded word.
+     */
+    public void put(String word, EncodedWord encodedWord) {
+        words.put(word, encodedWord);
+    }
+
+    /**
+     * @return the amount of words in the cache.
+     */
+    public int size() {
+        return words.size();
+    }
+
+    /**
+     * An encoded word, including the kerning between its characters. The first and last glyph are stored
+     * so the kerning between this word and the surrounding characters can be determined.
+     * @author Dylan de Wolff
+     */
+    public static final class EncodedWord {
+        private final String content;
+        private final int firstGlyph;
+        private final int lastGlyph;
+
+        /**
+         * Creates a new instance of EncodedWord.
+         * @param content The encoded word.
+         * @param firstGlyph Glyph of the first character.
+         * @param lastGlyph Glyph of the last character.
+         */
+        public EncodedWord(String content, int firstGlyph, int lastGlyph) {
+            this.content = content;
+            this.firstGlyph = firstGlyph;
+            this.lastGlyph = lastGlyph;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public int getFirstGlyph() {
+            return firstGlyph;
+        }
+
+        public int getLastGlyph() {
+            return lastGlyph;
+        }
+    }
+}
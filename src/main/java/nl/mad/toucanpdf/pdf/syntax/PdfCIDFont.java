@@ -0,0 +1,89 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.mad.toucanpdf.font.TrueTypeFontMetrics;
+import nl.mad.toucanpdf.model.PdfNameValue;
+
+/**
+ * PdfDictionary representing the CIDFont that descends from a Type 0 font. The CIDs used in the text are equal to the glyph ids of the font.
+ * The widths of the used glyphs are written when the font is written, consecutive glyphs are grouped to keep the width array small.
+ * @author Dylan de Wolff
+ * @see PdfType0Font
+ */
+public class PdfCIDFont extends PdfDictionary {
+    private PdfType0Font parent;
+
+    /**
+     * Creates a new instance of PdfCIDFont.
+     * @param parent The Type 0 font this font descends from.
+     */
+    public PdfCIDFont(PdfType0Font parent) {
+        super(PdfObjectType.DICTIONARY);
+        this.parent = parent;
+        TrueTypeFontMetrics metrics = parent.getMetrics();
+        put(PdfNameValue.TYPE, PdfNameValue.FONT);
+        put(PdfNameValue.SUB_TYPE, metrics.isCFF() ? PdfNameValue.CID_FONT_TYPE0 : PdfNameValue.CID_FONT_TYPE2);
+        put(PdfNameValue.BASE_FONT, new PdfName(parent.getBaseFontName()));
+        PdfDictionary systemInfo = new PdfDictionary(PdfObjectType.DICTIONARY);
+        systemInfo.put(PdfNameValue.REGISTRY, new PdfString("Adobe"));
+        systemInfo.put(PdfNameValue.ORDERING, new PdfString("Identity"));
+        systemInfo.put(PdfNameValue.SUPPLEMENT, new PdfNumber(0));
+        put(PdfNameValue.CID_SYSTEM_INFO, systemInfo);
+        put(PdfNameValue.DW, new PdfNumber(metrics.getMissingWidth()));
+        if (!metrics.isCFF()) {
+            put(PdfNameValue.CID_TO_GID_MAP, PdfNameValue.IDENTITY);
+        }
+    }
+
+    /**
+     * Sets the reference to the font descriptor.
+     * @param fontDescriptor Reference to the font descriptor.
+     */
+    public void setFontDescriptorReference(PdfIndirectObjectReference fontDescriptor) {
+        put(PdfNameValue.FONT_DESCRIPTOR, fontDescriptor);
+    }
+
+    @Override
+    public void writeToFile(OutputStream os) throws IOException {
+        put(PdfNameValue.W, createWidthArray());
+        super.writeToFile(os);
+    }
+
+    /**
+     * Creates the width array for the used glyphs. Consecutive glyphs with the same width are written as "first last width",
+     * other consecutive glyphs are written as "first [width width ...]".
+     * @return array containing the widths.
+     */
+    private PdfArray createWidthArray() {
+        TrueTypeFontMetrics metrics = parent.getMetrics();
+        List<Integer> glyphs = new ArrayList<>(parent.getUsedGlyphs().keySet());
+        PdfArray widths = new PdfArray();
+        int i = 0;
+        while (i < glyphs.size()) {
+            int first = glyphs.get(i);
+            int last = i;
+            boolean sameWidth = true;
+            while (last + 1 < glyphs.size() && glyphs.get(last + 1) == glyphs.get(last) + 1) {
+                sameWidth &= metrics.getGlyphWidth(glyphs.get(last + 1)) == metrics.getGlyphWidth(first);
+                ++last;
+            }
+            widths.addValue(new PdfNumber(first));
+            if (sameWidth && last > i) {
+                widths.addValue(new PdfNumber(glyphs.get(last)));
+                widths.addValue(new PdfNumber(metrics.getGlyphWidth(first)));
+            } else {
+                PdfArray run = new PdfArray();
+                for (int j = i; j <= last; ++j) {
+                    run.addValue(new PdfNumber(metrics.getGlyphWidth(glyphs.get(j))));
+                }
+                widths.addValue(run);
+            }
+            i = last + 1;
+        }
+        return widths;
+    }
+}
@@ -17,6 +17,8 @@ import nl.mad.toucanpdf.utility.RandomStringGenerator;
 public class PdfFont extends PdfDictionary {
     private PdfFontEncoding encoding;
     private Font font;
+    private final EncodedWordCache wordCache = new EncodedWordCache();
+    private boolean subset = true;
     private static final int SUBSET_INDICATOR_LENGTH = 6;
 
     /**
@@ -30,6 +32,15 @@ public class PdfFont extends PdfDictionary {
         this.setFontEncodingReference(encoding);
     }
 
+    /**
+     * Creates a new PdfFont instance without filling the dictionary. Used by fonts that are not simple fonts.
+     * @param font Font to use.
+     */
+    protected PdfFont(Font font) {
+        super(PdfObjectType.FONT);
+        this.font = font;
+    }
+
     /**
      * Fills the dictionary based on the attributes of the font.
      */
@@ -78,18 +89,37 @@ public class PdfFont extends PdfDictionary {
         return this.encoding;
     }
 
+    /**
+     * Sets whether the font program used by this font is a subset. The name of a font using a subset is prefixed with a subset tag.
+     * @param subset True if the font program is a subset, false if the entire program is embedded or the program is not embedded at all.
+     */
+    public void setSubset(boolean subset) {
+        this.subset = subset;
+    }
+
+    /**
+     * Returns the cache containing the words that have been encoded for this font.
+     * @return the word cache of this font.
+     */
+    public EncodedWordCache getWordCache() {
+        return wordCache;
+    }
+
     @Override
     public void writeToFile(OutputStream os) throws IOException {
         this.addWidthsEntry();
         super.writeToFile(os);
     }
 
-    private void addWidthsEntry() {
+    /**
+     * Adds the widths of the used characters to the dictionary.
+     */
+    protected void addWidthsEntry() {
         FontMetrics metrics = font.getFontFamily().getMetricsForStyle(font.getStyle());
         List<Integer> widths;
         if (isFontUsingCustomEncoding()) {
             widths = encoding.getEncodingDifferences().generateWidthList(font);
-            CreateFontSubset(widths);
+            CreateFontSubset(encoding.getEncodingDifferences());
         } else {
             widths = metrics.getWidths(metrics.getFirstCharCode(), metrics.getLastCharCode());
         }
@@ -98,15 +128,17 @@ public class PdfFont extends PdfDictionary {
 
     /**
      * Creates a font subset, meaning we manually decide the characters order of the font and which characters are actually used
-     * This is required whenever we use custom encoding.
-     * @param widths character widths
+     * This is required whenever we use custom encoding. The subset tag is only added if the font program is a subset.
+     * @param differences differences of the used encoding
      */
-    private void CreateFontSubset(List<Integer> widths) {
-        put(PdfNameValue.FIRST_CHAR, new PdfNumber(0));
-        put(PdfNameValue.LAST_CHAR, new PdfNumber(widths.size() - 1));
-        put(PdfNameValue.BASE_FONT,
-                new PdfName(RandomStringGenerator.generateRandomString(RandomStringGenerator.DEFAULT_CAPS_CHARACTERS, SUBSET_INDICATOR_LENGTH) + "+"
-                        + font.getFontFamily().getNameOfStyle(font.getStyle())));
+    private void CreateFontSubset(PdfFontDifferences differences) {
+        put(PdfNameValue.FIRST_CHAR, new PdfNumber(differences.getFirstCode()));
+        put(PdfNameValue.LAST_CHAR, new PdfNumber(differences.getLastCode()));
+        if (subset) {
+            put(PdfNameValue.BASE_FONT,
+                    new PdfName(RandomStringGenerator.generateRandomString(RandomStringGenerator.DEFAULT_CAPS_CHARACTERS, SUBSET_INDICATOR_LENGTH) + "+"
+                            + font.getFontFamily().getNameOfStyle(font.getStyle())));
+        }
     }
 
     private boolean isFontUsingCustomEncoding() {
@@ -20,11 +20,27 @@ public interface PdfFontDifferences {
     void updateDifferences(String s);
 
     /**
-     * Returns the differences map.
+     * Returns the differences map. Only characters that do not use the code of the base encoding are part of the differences.
      * @return Map with as key the name of the character and as value the new character code.
      */
     Map<String, Integer> getDifferences();
 
+    /**
+     * Returns the names of all characters that have been given a code, including the characters that use the code of the base encoding.
+     * @return List containing the character names sorted by code.
+     */
+    List<String> getCharacterNames();
+
+    /**
+     * @return the lowest code in use, 0 if no codes are in use.
+     */
+    int getFirstCode();
+
+    /**
+     * @return the highest code in use, -1 if no codes are in use.
+     */
+    int getLastCode();
+
     /**
      * Converts the given string to use the new encoding.
      * @param s String to convert.
@@ -32,6 +48,13 @@ public interface PdfFontDifferences {
      */
     String convertString(String s);
 
+    /**
+     * Converts the given string to the character codes of the new encoding. Characters without a code are skipped.
+     * @param s String to convert.
+     * @return byte array containing a single byte code for each character.
+     */
+    byte[] convertToCodes(String s);
+
     /**
      * Inserts a difference into the map.
      * @param characterName The character name.
@@ -53,6 +76,13 @@ public interface PdfFontDifferences {
      */
     String getNameOf(int code);
 
+    /**
+     * Returns the glyph id corresponding to the given character code.
+     * @param code Code to check.
+     * @return int containing the glyph id, {@link nl.mad.toucanpdf.utility.UnicodeConverter#NO_GLYPH} if the code is not used.
+     */
+    int getGlyphOf(int code);
+
     /**
      * Returns the character name corresponding to the given octal code.
      * @param octalCode Octal code to check.
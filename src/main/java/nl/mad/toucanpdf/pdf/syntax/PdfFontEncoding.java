@@ -47,6 +47,7 @@ public class PdfFontEncoding extends PdfDictionary {
     @Override
     public void writeToFile(OutputStream os) throws IOException {
         if (differences != null) {
+            this.put(new PdfName(PdfNameValue.BASE_ENCODING), new PdfName(PdfNameValue.WIN_ANSI_ENCODING));
             this.addDifferencesEntry();
         }
         super.writeToFile(os);
@@ -62,6 +63,8 @@ public class PdfFontEncoding extends PdfDictionary {
             differencesArray.addValue(new PdfName(entry.getKey()));
             previousEntry = entry;
         }
-        this.put(new PdfName(PdfNameValue.DIFFERENCES), differencesArray);
+        if (differencesArray.getSize() > 0) {
+            this.put(new PdfName(PdfNameValue.DIFFERENCES), differencesArray);
+        }
     }
 }
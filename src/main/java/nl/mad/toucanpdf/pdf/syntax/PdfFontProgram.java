@@ -1,6 +1,18 @@
 package nl.mad.toucanpdf.pdf.syntax;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import nl.mad.toucanpdf.font.TrueTypeFontMetrics;
+import nl.mad.toucanpdf.font.TrueTypeFontSubsetter;
+import nl.mad.toucanpdf.font.Type1FontSubsetter;
+import nl.mad.toucanpdf.model.Compression;
+import nl.mad.toucanpdf.model.FontEmbedding;
+import nl.mad.toucanpdf.model.FontMetrics;
 import nl.mad.toucanpdf.model.PdfNameValue;
+import nl.mad.toucanpdf.pdf.syntax.PdfFontProgramCache.CachedProgram;
+import nl.mad.toucanpdf.pdf.syntax.PdfFontProgramCache.EncodedFontProgram;
 
 /**
  * This class represents the PDF syntax of an embedded font program. 
@@ -8,6 +20,13 @@ import nl.mad.toucanpdf.model.PdfNameValue;
  *
  */
 public class PdfFontProgram extends PdfStream {
+    private static final int TYPE1_LENGTH_AMOUNT = 3;
+    private static final List<Compression> NO_FILTERS = Collections.emptyList();
+    private PdfFile fontProgram;
+    private int[] lengths;
+    private PdfFontDifferences subsetDifferences;
+    private PdfType0Font subsetFont;
+    private FontMetrics metrics;
 
     /**
      * Creates a new instance of PdfFontProgram.
@@ -16,11 +35,24 @@ public class PdfFontProgram extends PdfStream {
         super();
     }
 
+    /**
+     * Creates a new instance of PdfFontProgram for the given font. The program is read from the font when the stream is written.
+     * Programs are shared between documents through the {@link PdfFontProgramCache}. Fully embedded programs only have to be read
+     * and compressed if they are not in the cache, subsets are created from the cached parsed program of the font.
+     * @param metrics Metrics of the font to embed.
+     */
+    public PdfFontProgram(FontMetrics metrics) {
+        super();
+        this.metrics = metrics;
+        this.setFontProgram(new PdfFile(new byte[0]));
+    }
+
     /**
      * Sets the font program to the given font program.
      * @param fontProgram The program to add.
      */
     public void setFontProgram(PdfFile fontProgram) {
+        this.fontProgram = fontProgram;
         this.add(fontProgram);
     }
 
@@ -29,9 +61,146 @@ public class PdfFontProgram extends PdfStream {
      * @param lengths Int array containing the lengths.
      */
     public void setLengths(int[] lengths) {
+        this.lengths = lengths.clone();
         this.put(PdfNameValue.LENGTH1, new PdfNumber(lengths[0]));
         this.put(PdfNameValue.LENGTH2, new PdfNumber(lengths[1]));
         this.put(PdfNameValue.LENGTH3, new PdfNumber(lengths[2]));
     }
 
+    /**
+     * Sets the font differences that determine which characters of the font program are used. 
+     * When the program is written it will be reduced to a subset containing only these characters.
+     * @param differences Differences of the font using this program.
+     */
+    public void setSubsetDifferences(PdfFontDifferences differences) {
+        this.subsetDifferences = differences;
+    }
+
+    /**
+     * Sets the Type 0 font that uses this program. When the program is written it will be created from the glyphs used by this font.
+     * @param font Font using this program.
+     */
+    public void setSubsetFont(PdfType0Font font) {
+        this.subsetFont = font;
+    }
+
+    @Override
+    protected byte[] getEncodedData() throws IOException {
+        if (metrics == null) {
+            if (subsetDifferences != null) {
+                this.createSubset();
+                //the subset only has to be created once
+                subsetDifferences = null;
+            }
+            return super.getEncodedData();
+        }
+        if (subsetFont != null && !subsetFont.getMetrics().isCFF()) {
+            return getTrueTypeSubset();
+        } else if (subsetDifferences != null) {
+            return getType1Subset();
+        }
+        EncodedFontProgram program = PdfFontProgramCache.getSharedCache().get(metrics, FontEmbedding.EMBED, getFilters(), this::createEncodedProgram);
+        int[] programLengths = program.getLengths();
+        if (programLengths.length == TYPE1_LENGTH_AMOUNT) {
+            this.setLengths(programLengths);
+        } else if (programLengths.length == 1) {
+            this.put(PdfNameValue.LENGTH1, new PdfNumber(programLengths[0]));
+        }
+        return program.getData();
+    }
+
+    /**
+     * Creates the subset of a TrueType font from the glyphs used by the Type 0 font.
+     * @return the encoded subset.
+     * @throws IOException
+     */
+    private byte[] getTrueTypeSubset() throws IOException {
+        TrueTypeFontMetrics trueTypeMetrics = subsetFont.getMetrics();
+        ParsedFontProgram parsed = PdfFontProgramCache.getSharedCache().get(metrics, FontEmbedding.SUBSET, NO_FILTERS,
+                () -> new ParsedFontProgram(trueTypeMetrics.createSubsetter(), null));
+        byte[] subset = parsed.trueTypeSubsetter.subset(subsetFont.getUsedGlyphs().keySet());
+        this.put(PdfNameValue.LENGTH1, new PdfNumber(subset.length));
+        return encode(subset);
+    }
+
+    /**
+     * Creates the subset of a Type 1 font from the characters in the font differences.
+     * @return the encoded subset.
+     * @throws IOException
+     */
+    private byte[] getType1Subset() throws IOException {
+        ParsedFontProgram parsed = PdfFontProgramCache.getSharedCache().get(metrics, FontEmbedding.SUBSET, NO_FILTERS, () -> {
+            byte[] file = metrics.getFontFile();
+            return new ParsedFontProgram(null, new Type1FontSubsetter(file, file.length > 0 ? metrics.getFontProgramLengths() : new int[TYPE1_LENGTH_AMOUNT]));
+        });
+        Type1FontSubsetter subset = parsed.type1Subsetter.createSubset(subsetDifferences.getCharacterNames());
+        if (subset == null) {
+            subset = parsed.type1Subsetter;
+        }
+        this.setLengths(subset.getLengths());
+        return encode(subset.getFontProgram());
+    }
+
+    /**
+     * Applies the filters of this stream to the given program.
+     * @param program The unencoded program.
+     * @return the encoded program.
+     * @throws IOException
+     */
+    private byte[] encode(byte[] program) throws IOException {
+        fontProgram.setByteRepresentation(program);
+        byte[] data = super.getEncodedData();
+        //the unencoded program is not needed anymore
+        fontProgram.setByteRepresentation(new byte[0]);
+        return data;
+    }
+
+    /**
+     * Creates the entire program from the font file and applies the filters of this stream. Only called if the program is not in the cache.
+     * @return the encoded program.
+     * @throws IOException
+     */
+    private EncodedFontProgram createEncodedProgram() throws IOException {
+        int[] programLengths;
+        if (metrics instanceof TrueTypeFontMetrics) {
+            TrueTypeFontMetrics trueTypeMetrics = (TrueTypeFontMetrics) metrics;
+            byte[] file = trueTypeMetrics.getFontFile();
+            fontProgram.setByteRepresentation(file);
+            programLengths = trueTypeMetrics.isCFF() ? new int[0] : new int[] { file.length };
+        } else {
+            byte[] file = metrics.getFontFile();
+            fontProgram.setByteRepresentation(file);
+            programLengths = file.length > 0 ? metrics.getFontProgramLengths() : new int[TYPE1_LENGTH_AMOUNT];
+        }
+        return new EncodedFontProgram(encode(fontProgram.getByteRepresentation()), programLengths);
+    }
+
+    private void createSubset() {
+        if (fontProgram != null && lengths != null) {
+            Type1FontSubsetter subsetter = new Type1FontSubsetter(fontProgram.getByteRepresentation(), lengths);
+            if (subsetter.subset(subsetDifferences.getCharacterNames())) {
+                fontProgram.setByteRepresentation(subsetter.getFontProgram());
+                this.setLengths(subsetter.getLengths());
+            }
+        }
+    }
+
+    /**
+     * Parsed font program from which the subsets of all documents using the font are created.
+     * @author Dylan de Wolff
+     */
+    private static final class ParsedFontProgram implements CachedProgram {
+        private final TrueTypeFontSubsetter trueTypeSubsetter;
+        private final Type1FontSubsetter type1Subsetter;
+
+        ParsedFontProgram(TrueTypeFontSubsetter trueTypeSubsetter, Type1FontSubsetter type1Subsetter) {
+            this.trueTypeSubsetter = trueTypeSubsetter;
+            this.type1Subsetter = type1Subsetter;
+        }
+
+        @Override
+        public int getSize() {
+            return trueTypeSubsetter != null ? trueTypeSubsetter.getSize() : type1Subsetter.getSize();
+        }
+    }
 }
@@ -0,0 +1,222 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import nl.mad.toucanpdf.model.Compression;
+import nl.mad.toucanpdf.model.FontEmbedding;
+import nl.mad.toucanpdf.model.FontMetrics;
+
+/**
+ * Bounded cache containing font programs. The programs are stored by font and embedding mode. Fully embedded fonts are stored as encoded program,
+ * since the result only depends on the font and the filters of the stream, documents using the same font can share a single encoded program.
+ * Subsets depend on the characters used by each document, for these the parsed font program is stored so every document can create its
+ * subset from it without reading and parsing the font file again.
+ * The cache is limited by the total size of the stored programs, the least recently used programs are removed first.
+ * A shared instance is used by the font programs of all documents.
+ * @author Dylan de Wolff
+ * @see PdfFontProgram
+ */
+public final class PdfFontProgramCache {
+    /**
+     * Default maximum amount of bytes the cache can hold.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 16L * 1024 * 1024;
+    private static final PdfFontProgramCache SHARED_CACHE = new PdfFontProgramCache(DEFAULT_MAXIMUM_SIZE);
+    private final long maximumSize;
+    private final Map<ProgramKey, CachedProgram> programs = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new instance of PdfFontProgramCache.
+     * @param maximumSize Maximum amount of bytes the cache can hold.
+     */
+    public PdfFontProgramCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the cache that is shared by all documents.
+     * @return the shared cache.
+     */
+    public static PdfFontProgramCache getSharedCache() {
+        return SHARED_CACHE;
+    }
+
+    /**
+     * Returns the program for the given font, embedding mode and filters. The program is created if it is not in the cache yet.
+     * The same type of program has to be requested for each combination of font and embedding mode.
+     * @param metrics Metrics of the font the program belongs to.
+     * @param embedding The way the font is embedded.
+     * @param filters The filters applied to the program.
+     * @param creator Creates the program if it is not in the cache.
+     * @param <T> Type of the program.
+     * @return the font program.
+     * @throws IOException if the program could not be created.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends CachedProgram> T get(FontMetrics metrics, FontEmbedding embedding, List<Compression> filters, ProgramCreator<T> creator)
+            throws IOException {
+        ProgramKey key = new ProgramKey(metrics, embedding, filters);
+        CachedProgram program;
+        synchronized (this) {
+            program = programs.get(key);
+        }
+        if (program != null) {
+            hits.increment();
+            return (T) program;
+        }
+        misses.increment();
+        T newProgram = creator.create();
+        synchronized (this) {
+            CachedProgram previous = programs.put(key, newProgram);
+            size += newProgram.getSize() - (previous != null ? previous.getSize() : 0);
+            removeEldestPrograms();
+        }
+        return newProgram;
+    }
+
+    private void removeEldestPrograms() {
+        Iterator<CachedProgram> iterator = programs.values().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            size -= iterator.next().getSize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the amount of lookups that were answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the amount of lookups that required the program to be created.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the total amount of bytes of the cached programs.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Removes all programs from the cache and resets the hit and miss counters.
+     */
+    public synchronized void clear() {
+        programs.clear();
+        size = 0;
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Creates the font program when it is not in the cache.
+     * @author Dylan de Wolff
+     * @param <T> Type of the program.
+     */
+    @FunctionalInterface
+    public interface ProgramCreator<T extends CachedProgram> {
+        /**
+         * Creates the program.
+         * @return the font program.
+         * @throws IOException if the program could not be created.
+         */
+        T create() throws IOException;
+    }
+
+    /**
+     * Program that can be stored in the cache. Programs are shared between documents and should not be changed after they are created.
+     * @author Dylan de Wolff
+     */
+    public interface CachedProgram {
+        /**
+         * @return the amount of bytes held by the program.
+         */
+        int getSize();
+    }
+
+    /**
+     * Immutable encoded font program together with the length entries of the font program stream.
+     * @author Dylan de Wolff
+     */
+    public static final class EncodedFontProgram implements CachedProgram {
+        private final byte[] data;
+        private final int[] lengths;
+
+        /**
+         * Creates a new instance of EncodedFontProgram.
+         * @param data The font program with all filters applied.
+         * @param lengths The length entries of the stream (Length1, Length2 and Length3), can contain less than three values.
+         */
+        public EncodedFontProgram(byte[] data, int[] lengths) {
+            this.data = data.clone();
+            this.lengths = lengths.clone();
+        }
+
+        /**
+         * Returns the encoded data. The returned array is shared and should not be modified.
+         */
+        byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return copy of the length entries.
+         */
+        public int[] getLengths() {
+            return lengths.clone();
+        }
+
+        /**
+         * @return the size of the encoded data in bytes.
+         */
+        @Override
+        public int getSize() {
+            return data.length;
+        }
+    }
+
+    /**
+     * Used as key for the cache. Fonts are compared by identity, since the metrics of a font are shared by all documents.
+     * @author Dylan de Wolff
+     */
+    private static class ProgramKey {
+        private final FontMetrics metrics;
+        private final FontEmbedding embedding;
+        private final List<Compression> filters;
+
+        ProgramKey(FontMetrics metrics, FontEmbedding embedding, List<Compression> filters) {
+            this.metrics = metrics;
+            this.embedding = embedding;
+            this.filters = new ArrayList<>(filters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof ProgramKey) {
+                ProgramKey other = (ProgramKey) o;
+                return metrics == other.metrics && embedding == other.embedding && filters.equals(other.filters);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(metrics) * 31 + Objects.hashCode(embedding)) * 31 + filters.hashCode();
+        }
+    }
+}
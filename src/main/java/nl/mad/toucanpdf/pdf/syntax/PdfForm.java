@@ -0,0 +1,28 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import nl.mad.toucanpdf.model.Position;
+import nl.mad.toucanpdf.model.Text;
+import nl.mad.toucanpdf.utility.Constants;
+
+/**
+ * This class draws a form XObject on the given position. This class should be added to an PdfStream in order to draw the form.
+ * @author Dylan de Wolff
+ * @see PdfTotalPages
+ */
+public class PdfForm extends PdfGraphicsState {
+    private static final String SHOW_XOBJECT = " Do" + Constants.LINE_SEPARATOR_STRING;
+    private static final String TRANSLATE = " cm" + Constants.LINE_SEPARATOR_STRING;
+
+    /**
+     * Creates a new instance of PdfForm.
+     * @param resourceReference The reference to the form resource.
+     * @param text Text to take the scale and shear of the form from.
+     * @param position Position to draw the form on.
+     */
+    public PdfForm(String resourceReference, Text text, Position position) {
+        super(PdfObjectType.FORM);
+        this.addToByteRepresentation(text.getScaleX() + " " + text.getShearX() + " " + text.getShearY() + " " + text.getScaleY() + " " + position.getX()
+                + " " + position.getY() + TRANSLATE);
+        this.addToByteRepresentation("/" + resourceReference + SHOW_XOBJECT);
+    }
+}
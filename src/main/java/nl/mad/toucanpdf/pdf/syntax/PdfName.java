@@ -1,5 +1,7 @@
 package nl.mad.toucanpdf.pdf.syntax;
 
+import java.nio.charset.StandardCharsets;
+
 import nl.mad.toucanpdf.model.PdfNameValue;
 
 /**
@@ -8,6 +10,9 @@ import nl.mad.toucanpdf.model.PdfNameValue;
  * @author Dylan de Wolff
  */
 public class PdfName extends AbstractPdfObject {
+    private static final String DELIMITERS = "()<>[]{}/%#";
+    private static final char FIRST_REGULAR_CHARACTER = '!';
+    private static final char LAST_REGULAR_CHARACTER = '~';
     private String name;
 
     /**
@@ -34,14 +39,24 @@ public class PdfName extends AbstractPdfObject {
     }
 
     /**
-     * Sets the name and prefixes the name to conform with the PDF.
+     * Sets the name and prefixes the name to conform with the PDF. Whitespace, delimiters and other irregular characters are written as #xx escapes.
      * @param name String containing the name.
      */
     public final void setName(String name) {
-        this.name = name;
-        if (!name.startsWith("/")) {
-            this.name = "/" + name;
+        String value = name;
+        if (value.startsWith("/")) {
+            value = value.substring(1);
+        }
+        StringBuilder sb = new StringBuilder("/");
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if (c < FIRST_REGULAR_CHARACTER || c > LAST_REGULAR_CHARACTER || DELIMITERS.indexOf(c) != -1) {
+                sb.append(String.format("#%02X", (int) c));
+            } else {
+                sb.append(c);
+            }
         }
+        this.name = sb.toString();
         this.setByteRepresentation(this.name);
     }
 
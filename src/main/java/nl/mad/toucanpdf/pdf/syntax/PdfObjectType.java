@@ -22,5 +22,6 @@ public enum PdfObjectType {
     XOBJECT,
     IMAGE,
     TABLE,
-    PATH
+    PATH,
+    FORM
 }
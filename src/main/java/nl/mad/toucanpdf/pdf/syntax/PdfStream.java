@@ -4,6 +4,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -60,11 +61,7 @@ public class PdfStream extends PdfDictionary {
 
     @Override
     public void writeToFile(OutputStream os) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        writeContentToStream(baos);
-        baos.flush();
-        baos.close();
-        byte[] data = processCompression(baos.toByteArray());
+        byte[] data = getEncodedData();
         updateLength(data);
         super.writeToFile(os);
         os.write(Constants.LINE_SEPARATOR);
@@ -76,6 +73,19 @@ public class PdfStream extends PdfDictionary {
         os.write(ByteEncoder.getBytes(END_STREAM));
     }
 
+    /**
+     * Returns the content of this stream with all filters applied. This is the data that is written between the stream keywords.
+     * @return byte array containing the encoded content.
+     * @throws IOException
+     */
+    protected byte[] getEncodedData() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeContentToStream(baos);
+        baos.flush();
+        baos.close();
+        return processCompression(baos.toByteArray());
+    }
+
     private void writeContentToStream(ByteArrayOutputStream bigBaos) throws IOException {
         for (int i = 0; i < contents.size(); ++i) {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -195,6 +205,14 @@ public class PdfStream extends PdfDictionary {
         }
     }
 
+    /**
+     * Returns the filters of this stream in the order they are applied.
+     * @return List containing the compression methods.
+     */
+    public List<Compression> getFilters() {
+        return Collections.unmodifiableList(filterList);
+    }
+
     public int getContentSize() {
         return this.contents.size();
     }
@@ -5,12 +5,13 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import nl.mad.toucanpdf.model.Alignment;
-import nl.mad.toucanpdf.model.Font;
 import nl.mad.toucanpdf.model.FontMetrics;
 import nl.mad.toucanpdf.model.Position;
 import nl.mad.toucanpdf.model.Text;
 import nl.mad.toucanpdf.model.state.StateSplittableText;
+import nl.mad.toucanpdf.pdf.syntax.EncodedWordCache.EncodedWord;
 import nl.mad.toucanpdf.utility.Constants;
+import nl.mad.toucanpdf.utility.UnicodeConverter;
 
 /**
  * PdfText stores the PDF stream version of a Text object. 
@@ -23,7 +24,17 @@ public class PdfText extends AbstractPdfObject {
     private static final String MATRIX = " Tm" + Constants.LINE_SEPARATOR_STRING;
     private static final String FONT = " Tf" + Constants.LINE_SEPARATOR_STRING;
     private PdfFontDifferences differences = null;
-    private static final int OCTAL_CODE_LENGTH = 4;
+    private PdfType0Font type0Font = null;
+    private EncodedWordCache wordCache = null;
+    private static final int BYTE_MASK = 0xff;
+    private static final int OCTAL_DIGIT_MASK = 7;
+    private static final int FIRST_PRINTABLE_CODE = 32;
+    private static final int LAST_PRINTABLE_CODE = 126;
+    private static final double GLYPH_SPACE_UNITS = 1000.0;
+    private static final int HEX_CODE_BITS = 16;
+    private static final int HEX_DIGIT_BITS = 4;
+    private static final int HEX_DIGIT_MASK = 0xf;
+    private static final int HEX_RADIX = 16;
 
     /**
      * Creates a new instance of PdfText.
@@ -34,6 +45,12 @@ public class PdfText extends AbstractPdfObject {
         if (fontObj != null && fontObj.getEncoding() != null) {
             differences = fontObj.getEncoding().getEncodingDifferences();
         }
+        if (fontObj != null) {
+            wordCache = fontObj.getWordCache();
+        }
+        if (fontObj instanceof PdfType0Font) {
+            type0Font = (PdfType0Font) fontObj;
+        }
     }
 
     /**
@@ -68,6 +85,16 @@ public class PdfText extends AbstractPdfObject {
         return text.getScaleX() + " " + text.getShearX() + " " + text.getShearY() + " " + text.getScaleY() + " " + pos.getX() + " " + pos.getY() + MATRIX;
     }
 
+    /**
+     * Adds a text matrix that scales the text horizontally and moves it along the x-axis.
+     * This should be done before adding the text.
+     * @param scaleX Horizontal scale of the text.
+     * @param x Horizontal offset of the text.
+     */
+    public void addMatrix(double scaleX, double x) {
+        this.addToByteRepresentation(scaleX + " 0 0 1 " + x + " 0" + MATRIX);
+    }
+
     /**
      * Adds the byte representation for the given font and font size.
      * This should be done before adding the text.
@@ -75,8 +102,32 @@ public class PdfText extends AbstractPdfObject {
      * @param fontSize Size of the font.
      */
     public void addFont(PdfIndirectObject font, int fontSize) {
-        String byteRep = "/" + font.getReference().getResourceReference() + " " + fontSize + FONT;
-        this.addToByteRepresentation(byteRep);
+        this.addFont(font.getReference().getResourceReference(), fontSize);
+    }
+
+    /**
+     * Adds the byte representation for the font with the given resource reference and font size.
+     * This should be done before adding the text.
+     * @param resourceReference Name of the font in the resources.
+     * @param fontSize Size of the font.
+     */
+    public void addFont(String resourceReference, int fontSize) {
+        this.addToByteRepresentation("/" + resourceReference + " " + fontSize + FONT);
+    }
+
+    /**
+     * Adds the byte representation for a single line at the current text position, using the color and font of the given text.
+     * @param line Line to add.
+     * @param text Text to take the color and font from.
+     */
+    public void addLine(String line, Text text) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(text.getColor().toString()).append(" rg ");
+        sb.append(type0Font != null ? "[<" : "[(");
+        this.appendLine(line, text.getFont().getMetrics(), null, sb);
+        sb.append(type0Font != null ? ">] TJ" : ")] TJ");
+        sb.append(Constants.LINE_SEPARATOR_STRING);
+        this.addToByteRepresentation(sb.toString());
     }
 
     /**
@@ -93,17 +144,24 @@ public class PdfText extends AbstractPdfObject {
 
     private void addTextString(Set<Entry<Position, String>> entrySet, Text text, Map<Position, Double> justification, int leading) {
         StringBuilder sb = new StringBuilder();
+        FontMetrics metrics = text.getFont().getMetrics();
         int i = 0;
         for (Entry<Position, String> entry : entrySet) {
             if (!isNewLineIndicator(entry)) {
+                Double spaceAdjustment = null;
                 if (textAlignmentIsJustifiedAndNotLastEntry(entrySet, text, i)) {
-                    sb.append(justification.get(entry.getKey())).append(WORD_SPACING);
+                    if (type0Font != null) {
+                        //word spacing (Tw) is not applied to two byte codes, so the space is added after each space character instead
+                        spaceAdjustment = -justification.get(entry.getKey()) * GLYPH_SPACE_UNITS / text.getTextSize();
+                    } else {
+                        sb.append(justification.get(entry.getKey())).append(WORD_SPACING);
+                    }
                 }
-
-                String textToProcess = determineTextToProcessBasedOnFontDifferences(entry);
                 sb.append(createMatrix(text, entry.getKey()));
                 sb.append(text.getColor().toString()).append(" rg ");
-                sb.append("[(").append(this.processKerning(textToProcess, text.getFont())).append(")] TJ");
+                sb.append(type0Font != null ? "[<" : "[(");
+                this.appendLine(entry.getValue(), metrics, spaceAdjustment, sb);
+                sb.append(type0Font != null ? ">] TJ" : ")] TJ");
             } else {
                 sb.append(getNewLineStringForText(leading));
             }
@@ -113,16 +171,6 @@ public class PdfText extends AbstractPdfObject {
         this.addToByteRepresentation(sb.toString());
     }
 
-    private String determineTextToProcessBasedOnFontDifferences(Entry<Position, String> entry) {
-        String textToProcess;
-        if (differences != null) {
-            textToProcess = differences.convertString(entry.getValue());
-        } else {
-            textToProcess = getEscapedString(entry.getValue());
-        }
-        return textToProcess;
-    }
-
     private boolean textAlignmentIsJustifiedAndNotLastEntry(Set<Entry<Position, String>> entrySet, Text text, int index) {
         return Alignment.JUSTIFIED.equals(text.getAlignment()) && (index != entrySet.size() - 1);
     }
@@ -131,62 +179,155 @@ public class PdfText extends AbstractPdfObject {
         return Constants.LINE_SEPARATOR_STRING.equals(entry.getValue());
     }
 
-    private String getEscapedString(String value) {
-        String newValue = "" + value;
-        newValue = newValue.replace("(", "\\(");
-        newValue = newValue.replace(")", "\\)");
-        return newValue;
-    }
-
     private String getNewLineStringForText(int leading) {
         return " 0 " + -leading + " TD";
     }
 
     /**
-     * Processes the kerning for the given text.
-     * @param text Text to be processed.
-     * @param font Font used for this text.
-     * @return String with kerning.
+     * Adds the operand of the text showing operator for the given line. The line is split into words,
+     * the encoded words are retrieved from the word cache of the font and joined by encoded spaces.
+     * @param line Line to add.
+     * @param metrics Metrics of the font used for the line.
+     * @param spaceAdjustment Adjustment added after each space, null if no adjustment is needed.
+     * @param sb StringBuilder to write to.
      */
-    private String processKerning(String text, Font font) {
-        if (differences != null) {
-            return processOctalKerning(text, font);
-        } else {
-            return processCharacterKerning(text, font);
+    private void appendLine(String line, FontMetrics metrics, Double spaceAdjustment, StringBuilder sb) {
+        EncodedWord space = null;
+        int previousGlyph = UnicodeConverter.NO_GLYPH;
+        int start = 0;
+        int end;
+        do {
+            end = line.indexOf(' ', start);
+            if (end == -1) {
+                end = line.length();
+            }
+            if (end > start) {
+                previousGlyph = appendWord(getEncodedWord(line.substring(start, end), metrics), previousGlyph, metrics, sb);
+            }
+            if (end < line.length()) {
+                if (space == null) {
+                    space = getEncodedWord(" ", metrics);
+                }
+                previousGlyph = appendWord(space, previousGlyph, metrics, sb);
+                if (spaceAdjustment != null) {
+                    appendAdjustment(spaceAdjustment, sb);
+                }
+            }
+            start = end + 1;
+        } while (end < line.length());
+    }
+
+    private int appendWord(EncodedWord word, int previousGlyph, FontMetrics metrics, StringBuilder sb) {
+        if (word.getContent().isEmpty()) {
+            return previousGlyph;
+        }
+        if (previousGlyph != UnicodeConverter.NO_GLYPH && word.getFirstGlyph() != UnicodeConverter.NO_GLYPH) {
+            int kernWidth = getKerning(previousGlyph, word.getFirstGlyph(), metrics);
+            if (kernWidth != 0) {
+                appendAdjustment(kernWidth, sb);
+            }
         }
+        sb.append(word.getContent());
+        return word.getLastGlyph();
     }
 
-    private String processCharacterKerning(String text, Font font) {
-        FontMetrics metrics = font.getMetrics();
-        StringBuilder sb = new StringBuilder("");
-        for (int i = 0; i < text.length(); ++i) {
-            sb.append(text.charAt(i));
-            if (text.length() != i + 1) {
-                int kernWidth = metrics.getKerning((int) text.charAt(i), (int) text.charAt(i + 1));
-                if (kernWidth != 0) {
-                    sb.append(") ").append(kernWidth).append(" (");
+    private EncodedWord getEncodedWord(String word, FontMetrics metrics) {
+        if (wordCache == null) {
+            return encodeWord(word, metrics);
+        }
+        EncodedWord encodedWord = wordCache.get(word);
+        if (encodedWord == null) {
+            encodedWord = encodeWord(word, metrics);
+            wordCache.put(word, encodedWord);
+        }
+        return encodedWord;
+    }
+
+    /**
+     * Encodes the given word and processes the kerning between its characters. 
+     * Type 0 fonts use hexadecimal glyph ids, fonts with differences use the codes of the differences and other fonts use the characters.
+     * @param word Word to encode.
+     * @param metrics Metrics of the font.
+     * @return the encoded word.
+     */
+    private EncodedWord encodeWord(String word, FontMetrics metrics) {
+        StringBuilder sb = new StringBuilder(word.length() * 2);
+        int firstGlyph = UnicodeConverter.NO_GLYPH;
+        int previousGlyph = UnicodeConverter.NO_GLYPH;
+        if (type0Font != null) {
+            for (int i = 0; i < word.length(); i += Character.charCount(word.codePointAt(i))) {
+                int glyph = type0Font.addCharacter(word.codePointAt(i));
+                firstGlyph = i == 0 ? glyph : firstGlyph;
+                previousGlyph = appendGlyph(glyph, previousGlyph, metrics, sb);
+                appendHexCode(glyph, sb);
+            }
+        } else if (differences != null) {
+            byte[] codes = differences.convertToCodes(word);
+            for (int i = 0; i < codes.length; ++i) {
+                int code = codes[i] & BYTE_MASK;
+                int glyph = differences.getGlyphOf(code);
+                firstGlyph = i == 0 ? glyph : firstGlyph;
+                previousGlyph = appendGlyph(glyph, previousGlyph, metrics, sb);
+                appendOctalCode(code, sb);
+            }
+        } else {
+            for (int i = 0; i < word.length(); ++i) {
+                char character = word.charAt(i);
+                firstGlyph = i == 0 ? character : firstGlyph;
+                previousGlyph = appendGlyph(character, previousGlyph, metrics, sb);
+                if (character == '(' || character == ')' || character == '\\') {
+                    sb.append('\\');
                 }
+                sb.append(character);
             }
         }
-        return sb.toString();
-    }
-
-    private String processOctalKerning(String text, Font font) {
-        FontMetrics metrics = font.getMetrics();
-        StringBuilder sb = new StringBuilder("");
-        for (int i = 0; i < text.length(); i += OCTAL_CODE_LENGTH) {
-            String octalCodeForFirstCharacter = text.substring(i + 1, i + OCTAL_CODE_LENGTH);
-            sb.append("\\").append(octalCodeForFirstCharacter);
-            if (text.length() != i + OCTAL_CODE_LENGTH) {
-                String octalCodeForSecondCharacter = text.substring(i + OCTAL_CODE_LENGTH + 1, i + (2 * OCTAL_CODE_LENGTH));
-                String charName = differences.getNameOf(octalCodeForFirstCharacter);
-                String secondCharName = differences.getNameOf(octalCodeForSecondCharacter);
-                int kernWidth = metrics.getKerning(charName, secondCharName);
-                if (kernWidth != 0) {
-                    sb.append(") ").append(kernWidth).append(" (");
-                }
+        return new EncodedWord(sb.toString(), firstGlyph, previousGlyph);
+    }
+
+    /**
+     * Adds the kerning between the previous glyph and the given glyph.
+     * @return the given glyph.
+     */
+    private int appendGlyph(int glyph, int previousGlyph, FontMetrics metrics, StringBuilder sb) {
+        if (previousGlyph != UnicodeConverter.NO_GLYPH && glyph != UnicodeConverter.NO_GLYPH) {
+            int kernWidth = getKerning(previousGlyph, glyph, metrics);
+            if (kernWidth != 0) {
+                appendAdjustment(kernWidth, sb);
             }
         }
-        return sb.toString();
+        return glyph;
+    }
+
+    private int getKerning(int glyph, int secondGlyph, FontMetrics metrics) {
+        if (type0Font == null && differences == null) {
+            return metrics.getKerning(glyph, secondGlyph);
+        }
+        return metrics.getGlyphKerning(glyph, secondGlyph);
+    }
+
+    private void appendAdjustment(Number adjustment, StringBuilder sb) {
+        if (type0Font != null) {
+            sb.append("> ").append(adjustment).append(" <");
+        } else {
+            sb.append(") ").append(adjustment).append(" (");
+        }
+    }
+
+    private static void appendHexCode(int glyph, StringBuilder sb) {
+        for (int shift = HEX_CODE_BITS - HEX_DIGIT_BITS; shift >= 0; shift -= HEX_DIGIT_BITS) {
+            sb.append(Character.toUpperCase(Character.forDigit((glyph >> shift) & HEX_DIGIT_MASK, HEX_RADIX)));
+        }
+    }
+
+    /**
+     * Adds the given code. Codes that are not printable ASCII characters or that have to be escaped in a string are written as octal codes.
+     */
+    private static void appendOctalCode(int code, StringBuilder sb) {
+        if (code >= FIRST_PRINTABLE_CODE && code <= LAST_PRINTABLE_CODE && code != '(' && code != ')' && code != '\\') {
+            sb.append((char) code);
+        } else {
+            sb.append('\\').append((char) ('0' + (code >> 6))).append((char) ('0' + ((code >> 3) & OCTAL_DIGIT_MASK)))
+                    .append((char) ('0' + (code & OCTAL_DIGIT_MASK)));
+        }
     }
 }
@@ -0,0 +1,67 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+import nl.mad.toucanpdf.utility.ByteEncoder;
+
+/**
+ * Stream containing the CMap that maps the glyph ids used by a Type 0 font back to unicode characters.
+ * This map allows PDF viewers to extract and search the text. The map is created when the stream is written,
+ * so it only contains the glyphs that were actually used.
+ * @author Dylan de Wolff
+ * @see PdfType0Font
+ */
+public class PdfToUnicodeCMap extends PdfStream {
+    /**
+     * Maximum amount of entries in a single bfchar block.
+     */
+    private static final int MAX_BLOCK_SIZE = 100;
+    private static final String HEADER = "/CIDInit /ProcSet findresource begin\n12 dict begin\nbegincmap\n"
+            + "/CIDSystemInfo << /Registry (Adobe) /Ordering (UCS) /Supplement 0 >> def\n/CMapName /Adobe-Identity-UCS def\n/CMapType 2 def\n"
+            + "1 begincodespacerange\n<0000> <FFFF>\nendcodespacerange\n";
+    private static final String FOOTER = "endcmap\nCMapName currentdict /CMap defineresource pop\nend\nend";
+    private PdfType0Font font;
+    private PdfFile map;
+
+    /**
+     * Creates a new instance of PdfToUnicodeCMap.
+     * @param font Font to create the map for.
+     */
+    public PdfToUnicodeCMap(PdfType0Font font) {
+        super();
+        this.font = font;
+        this.map = new PdfFile(new byte[0]);
+        this.add(map);
+    }
+
+    @Override
+    public void writeToFile(OutputStream os) throws IOException {
+        map.setByteRepresentation(ByteEncoder.getBytes(createMap()));
+        super.writeToFile(os);
+    }
+
+    private String createMap() {
+        Map<Integer, Integer> glyphs = font.getUsedGlyphs();
+        StringBuilder sb = new StringBuilder(HEADER);
+        Iterator<Map.Entry<Integer, Integer>> iterator = glyphs.entrySet().iterator();
+        int remaining = glyphs.size();
+        while (remaining > 0) {
+            int blockSize = Math.min(remaining, MAX_BLOCK_SIZE);
+            sb.append(blockSize).append(" beginbfchar\n");
+            for (int i = 0; i < blockSize; ++i) {
+                Map.Entry<Integer, Integer> glyph = iterator.next();
+                sb.append('<').append(String.format("%04X", glyph.getKey())).append("> <");
+                for (char c : Character.toChars(glyph.getValue())) {
+                    sb.append(String.format("%04X", (int) c));
+                }
+                sb.append(">\n");
+            }
+            sb.append("endbfchar\n");
+            remaining -= blockSize;
+        }
+        return sb.append(FOOTER).toString();
+    }
+}
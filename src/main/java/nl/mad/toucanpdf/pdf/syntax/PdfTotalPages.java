@@ -0,0 +1,75 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import nl.mad.toucanpdf.model.FontMetrics;
+import nl.mad.toucanpdf.model.PdfNameValue;
+import nl.mad.toucanpdf.model.Text;
+
+/**
+ * Represents a form XObject that shows the total amount of pages of the document. Pages draw this form where the total should be shown,
+ * the content of the form is only created once the total is known, which is when the document is written.
+ * The total is right-aligned within the space reserved for it and scaled down horizontally if it does not fit.
+ * One form is shared by all occurrences of the total that use the same font, size, color and reserved space.
+ * @author Dylan de Wolff
+ * @see PdfForm
+ */
+public class PdfTotalPages extends PdfXObject {
+    /**
+     * The characters that can be shown by the form. These should be included in the encoding of the font before the document is written.
+     */
+    public static final String DIGITS = "0123456789";
+    private static final String FONT_RESOURCE = "F1";
+    private final PdfFont font;
+    private final Text text;
+    private final double reservedWidth;
+    private boolean filled = false;
+
+    /**
+     * Creates a new instance of PdfTotalPages.
+     * @param font Font object used to show the total.
+     * @param fontReference Indirect object containing the font.
+     * @param text Text to take the font, size and color from.
+     * @param reservedWidth Width of the space reserved for the total, 0 if the form should take the width of the total.
+     */
+    public PdfTotalPages(PdfFont font, PdfIndirectObject fontReference, Text text, double reservedWidth) {
+        this.font = font;
+        this.text = text;
+        this.reservedWidth = reservedWidth;
+        this.put(PdfNameValue.SUB_TYPE, PdfNameValue.FORM);
+        PdfDictionary fonts = new PdfDictionary(PdfObjectType.DICTIONARY);
+        fonts.put(new PdfName(FONT_RESOURCE), fontReference.getReference());
+        PdfDictionary resources = new PdfDictionary(PdfObjectType.DICTIONARY);
+        resources.put(PdfNameValue.FONT, fonts);
+        this.put(PdfNameValue.RESOURCES, resources);
+    }
+
+    /**
+     * Creates the content of the form for the given total. This has no effect if the content has already been created.
+     * @param totalPages The total amount of pages.
+     */
+    public void setTotalPages(int totalPages) {
+        if (!filled) {
+            String number = String.valueOf(totalPages);
+            FontMetrics metrics = text.getFont().getMetrics();
+            int size = text.getTextSize();
+            double width = metrics.getWidthPointOfString(number, size, true);
+            double formWidth = reservedWidth > 0 ? reservedWidth : width;
+            PdfArray boundingBox = new PdfArray();
+            boundingBox.addValue(new PdfNumber(0));
+            boundingBox.addValue(new PdfNumber(-Math.abs(metrics.getDescentPoint() * size)));
+            boundingBox.addValue(new PdfNumber(formWidth));
+            boundingBox.addValue(new PdfNumber(metrics.getAscentPoint() * size));
+            this.put(PdfNameValue.BBOX, boundingBox);
+
+            PdfText pdfText = new PdfText(font);
+            pdfText.addFont(FONT_RESOURCE, size);
+            if (width > formWidth) {
+                pdfText.addMatrix(formWidth / width, 0);
+            } else if (width < formWidth) {
+                pdfText.addMatrix(1, formWidth - width);
+            }
+            pdfText.addLine(number, text);
+            this.add(pdfText);
+            filled = true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nl.mad.toucanpdf.pdf.syntax;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import nl.mad.toucanpdf.font.TrueTypeFontMetrics;
+import nl.mad.toucanpdf.model.Font;
+import nl.mad.toucanpdf.model.PdfNameValue;
+import nl.mad.toucanpdf.utility.RandomStringGenerator;
+
+/**
+ * PdfDictionary representing a Type 0 (composite) font. Type 0 fonts are used to embed TrueType and OpenType fonts.
+ * Text using this font is written as two byte glyph ids (Identity-H encoding), which gives access to every glyph of the font.
+ * The glyphs that are used are tracked, so the descendant font, the font program and the ToUnicode map only have to contain these glyphs.
+ * @author Dylan de Wolff
+ * @see PdfCIDFont
+ */
+public class PdfType0Font extends PdfFont {
+    private static final int SUBSET_INDICATOR_LENGTH = 6;
+    private TrueTypeFontMetrics metrics;
+    private String baseFontName;
+    /**
+     * Maps the id of each used glyph to the character it represents.
+     */
+    private Map<Integer, Integer> usedGlyphs = new TreeMap<>();
+
+    /**
+     * Creates a new instance of PdfType0Font that uses a subset of the font program.
+     * @param font Font to use, the metrics of this font should be TrueTypeFontMetrics.
+     */
+    public PdfType0Font(Font font) {
+        this(font, true);
+    }
+
+    /**
+     * Creates a new instance of PdfType0Font.
+     * @param font Font to use, the metrics of this font should be TrueTypeFontMetrics.
+     * @param subset True if the font program is a subset, the name of the font is then prefixed with a subset tag.
+     */
+    public PdfType0Font(Font font, boolean subset) {
+        super(font);
+        this.metrics = (TrueTypeFontMetrics) font.getMetrics();
+        this.baseFontName = metrics.getFontName();
+        if (subset) {
+            this.baseFontName = RandomStringGenerator.generateRandomString(RandomStringGenerator.DEFAULT_CAPS_CHARACTERS, SUBSET_INDICATOR_LENGTH) + "+"
+                    + baseFontName;
+        }
+        put(PdfNameValue.TYPE, PdfNameValue.FONT);
+        put(PdfNameValue.SUB_TYPE, PdfNameValue.TYPE0);
+        put(PdfNameValue.BASE_FONT, new PdfName(baseFontName));
+        put(PdfNameValue.ENCODING, PdfNameValue.IDENTITY_H);
+    }
+
+    /**
+     * Sets the reference to the descendant CIDFont.
+     * @param descendantFont Reference to the descendant font.
+     */
+    public void setDescendantFontReference(PdfIndirectObjectReference descendantFont) {
+        PdfArray descendants = new PdfArray();
+        descendants.addValue(descendantFont);
+        put(PdfNameValue.DESCENDANT_FONTS, descendants);
+    }
+
+    /**
+     * Sets the reference to the stream that maps the glyphs to unicode characters.
+     * @param toUnicode Reference to the ToUnicode stream.
+     */
+    public void setToUnicodeReference(PdfIndirectObjectReference toUnicode) {
+        put(PdfNameValue.TO_UNICODE, toUnicode);
+    }
+
+    /**
+     * Marks the glyph of the given character as used.
+     * @param codePoint Unicode code point of the character.
+     * @return the id of the glyph representing the character.
+     */
+    public int addCharacter(int codePoint) {
+        int glyphId = metrics.getGlyphId(codePoint);
+        usedGlyphs.putIfAbsent(glyphId, codePoint);
+        return glyphId;
+    }
+
+    /**
+     * Returns the used glyphs sorted by glyph id.
+     * @return Map containing the glyph ids and the characters they represent.
+     */
+    public Map<Integer, Integer> getUsedGlyphs() {
+        return Collections.unmodifiableMap(usedGlyphs);
+    }
+
+    /**
+     * @return the font name including the subset tag.
+     */
+    public String getBaseFontName() {
+        return baseFontName;
+    }
+
+    public TrueTypeFontMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    protected void addWidthsEntry() {
+        //the widths of a composite font are stored in the descendant font
+    }
+}
@@ -1,41 +1,115 @@
 package nl.mad.toucanpdf.pdf.syntax;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
 
 import nl.mad.toucanpdf.model.Font;
 import nl.mad.toucanpdf.model.FontMetrics;
 import nl.mad.toucanpdf.utility.UnicodeConverter;
+import nl.mad.toucanpdf.utility.WinAnsiEncoding;
 
+/**
+ * Font differences for Type 1 fonts, based on the WinAnsiEncoding. Characters that are part of the WinAnsiEncoding use their standard code,
+ * so plain Latin text does not need any differences. Other characters are given a code that is not used by the encoding,
+ * or a code of a WinAnsi character that has not been used yet. Only these characters are written to the differences array.
+ * Glyphs and character codes are mapped in both directions with arrays, so converting text and looking up the glyph of a code take constant time.
+ * Since the font uses single byte codes, at most 256 different glyphs can be used.
+ * @author Dylan de Wolff
+ * @see UnicodeConverter
+ * @see WinAnsiEncoding
+ */
 public class Type1FontDifferences implements PdfFontDifferences {
-    private Map<String, Integer> differences;
+    private static final int MAX_CODE_AMOUNT = 256;
+    private static final int NO_CODE = -1;
     private static final int OCTAL_CODE_CONVERSION = 8;
     private static final int OCTAL_CODE_LENGTH = 3;
+    /**
+     * Order in which codes are given to characters that are not part of the WinAnsiEncoding. Codes that are not used by the encoding come first.
+     */
+    private static final int[] FREE_CODE_ORDER = new int[MAX_CODE_AMOUNT];
+    static {
+        int index = 0;
+        for (int code = 0; code < MAX_CODE_AMOUNT; ++code) {
+            if (WinAnsiEncoding.getGlyphId(code) == UnicodeConverter.NO_GLYPH) {
+                FREE_CODE_ORDER[index++] = code;
+            }
+        }
+        for (int code = MAX_CODE_AMOUNT - 1; code >= 0; --code) {
+            if (WinAnsiEncoding.getGlyphId(code) != UnicodeConverter.NO_GLYPH) {
+                FREE_CODE_ORDER[index++] = code;
+            }
+        }
+    }
+    private final int[] codeToGlyph;
+    private int[] glyphToCode;
+    private int freeCodeIndex = 0;
+    private int firstCode = MAX_CODE_AMOUNT;
+    private int lastCode = NO_CODE;
 
     public Type1FontDifferences() {
-        differences = new LinkedHashMap<>();
+        codeToGlyph = new int[MAX_CODE_AMOUNT];
+        Arrays.fill(codeToGlyph, UnicodeConverter.NO_GLYPH);
+        glyphToCode = new int[Math.max(1, UnicodeConverter.getGlyphCount())];
+        Arrays.fill(glyphToCode, NO_CODE);
     }
 
     @Override
     public void updateDifferences(String s) {
         for (int i = 0; i < s.length(); ++i) {
-            int charCode = s.codePointAt(i);
-            String postscriptName = UnicodeConverter.getPostscriptForUnicode(charCode);
-            if (!differences.containsKey(postscriptName)) {
-                differences.put(postscriptName, differences.size());
+            int glyphId = UnicodeConverter.getGlyphId(s.codePointAt(i));
+            if (glyphId != UnicodeConverter.NO_GLYPH && getCodeOf(glyphId) == NO_CODE) {
+                int code = WinAnsiEncoding.getCode(glyphId);
+                if (code == WinAnsiEncoding.NO_CODE || codeToGlyph[code] != UnicodeConverter.NO_GLYPH) {
+                    code = getFreeCode();
+                }
+                addDifference(glyphId, code);
             }
         }
     }
 
+    private int getFreeCode() {
+        while (freeCodeIndex < MAX_CODE_AMOUNT) {
+            int code = FREE_CODE_ORDER[freeCodeIndex];
+            if (codeToGlyph[code] == UnicodeConverter.NO_GLYPH) {
+                return code;
+            }
+            ++freeCodeIndex;
+        }
+        return NO_CODE;
+    }
+
     @Override
     public void insertDifference(String characterName, int characterCode) {
-        if (!differences.containsKey(characterName)) {
-            differences.put(characterName, characterCode);
+        int glyphId = UnicodeConverter.getGlyphId(characterName);
+        if (glyphId != UnicodeConverter.NO_GLYPH && getCodeOf(glyphId) == NO_CODE) {
+            addDifference(glyphId, characterCode);
+        }
+    }
+
+    private void addDifference(int glyphId, int code) {
+        if (code < 0 || code >= MAX_CODE_AMOUNT || codeToGlyph[code] != UnicodeConverter.NO_GLYPH) {
+            return;
+        }
+        if (glyphId >= glyphToCode.length) {
+            int oldLength = glyphToCode.length;
+            glyphToCode = Arrays.copyOf(glyphToCode, Math.max(glyphId + 1, oldLength * 2));
+            Arrays.fill(glyphToCode, oldLength, glyphToCode.length, NO_CODE);
+        }
+        glyphToCode[glyphId] = code;
+        codeToGlyph[code] = glyphId;
+        firstCode = Math.min(firstCode, code);
+        lastCode = Math.max(lastCode, code);
+    }
+
+    private int getCodeOf(int glyphId) {
+        if (glyphId >= 0 && glyphId < glyphToCode.length) {
+            return glyphToCode[glyphId];
         }
+        return NO_CODE;
     }
 
     @Override
@@ -46,51 +120,91 @@ public class Type1FontDifferences implements PdfFontDifferences {
 
     @Override
     public String getNameOf(int code) {
-        if (differences.containsValue(code)) {
-            for (Entry<String, Integer> entry : differences.entrySet()) {
-                if (entry.getValue().equals(code)) {
-                    return entry.getKey();
-                }
-            }
+        int glyphId = getGlyphOf(code);
+        if (glyphId != UnicodeConverter.NO_GLYPH) {
+            return UnicodeConverter.getGlyphName(glyphId);
         }
         return "";
     }
 
+    @Override
+    public int getGlyphOf(int code) {
+        if (code >= 0 && code < MAX_CODE_AMOUNT) {
+            return codeToGlyph[code];
+        }
+        return UnicodeConverter.NO_GLYPH;
+    }
+
     @Override
     public Map<String, Integer> getDifferences() {
-        return differences;
+        Map<String, Integer> namedDifferences = new LinkedHashMap<>();
+        for (int code = 0; code < MAX_CODE_AMOUNT; ++code) {
+            int glyphId = codeToGlyph[code];
+            if (glyphId != UnicodeConverter.NO_GLYPH && glyphId != WinAnsiEncoding.getGlyphId(code)) {
+                namedDifferences.put(UnicodeConverter.getGlyphName(glyphId), code);
+            }
+        }
+        return namedDifferences;
     }
 
     @Override
-    public String convertString(String s) {
-        StringBuilder newString = new StringBuilder();
+    public List<String> getCharacterNames() {
+        List<String> names = new ArrayList<>();
+        for (int code = 0; code < MAX_CODE_AMOUNT; ++code) {
+            if (codeToGlyph[code] != UnicodeConverter.NO_GLYPH) {
+                names.add(UnicodeConverter.getGlyphName(codeToGlyph[code]));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public int getFirstCode() {
+        return lastCode == NO_CODE ? 0 : firstCode;
+    }
+
+    @Override
+    public int getLastCode() {
+        return lastCode;
+    }
+
+    @Override
+    public byte[] convertToCodes(String s) {
+        byte[] codes = new byte[s.length()];
+        int length = 0;
         for (int i = 0; i < s.length(); ++i) {
-            int charCode = s.codePointAt(i);
-            String postscriptName = UnicodeConverter.getPostscriptForUnicode(charCode);
-            if (differences.containsKey(postscriptName)) {
-                int code = differences.get(postscriptName);
-                newString.append("\\");
-                newString.append(generateStringForDifferenceCode(code));
+            int code = getCodeOf(UnicodeConverter.getGlyphId(s.codePointAt(i)));
+            if (code != NO_CODE) {
+                codes[length++] = (byte) code;
             }
         }
-        return newString.toString();
+        return length == codes.length ? codes : Arrays.copyOf(codes, length);
     }
 
-    private String generateStringForDifferenceCode(int code) {
-        StringBuilder stringCode = new StringBuilder(Integer.toString(code, OCTAL_CODE_CONVERSION));
-        int codeLength = stringCode.length();
-        //fill up the code with 0's in case the length of the code is not equal to the required length
-        for (int b = OCTAL_CODE_LENGTH; b > codeLength; --b) {
-            stringCode.insert(0, 0);
+    @Override
+    public String convertString(String s) {
+        byte[] codes = convertToCodes(s);
+        StringBuilder newString = new StringBuilder(codes.length * (OCTAL_CODE_LENGTH + 1));
+        for (byte code : codes) {
+            String octalCode = Integer.toString(code & 0xff, OCTAL_CODE_CONVERSION);
+            newString.append('\\');
+            //fill up the code with 0's in case the length of the code is not equal to the required length
+            for (int b = OCTAL_CODE_LENGTH; b > octalCode.length(); --b) {
+                newString.append('0');
+            }
+            newString.append(octalCode);
         }
-        return stringCode.toString();
+        return newString.toString();
     }
 
     @Override
     public List<Integer> generateWidthList(Font font) {
         FontMetrics metrics = font.getMetrics();
-        return differences.entrySet().stream()
-                .map(entry -> metrics.getWidth(entry.getKey()))
-                .collect(Collectors.toCollection(LinkedList::new));
+        List<Integer> widths = new LinkedList<>();
+        for (int code = getFirstCode(); code <= lastCode; ++code) {
+            int glyphId = codeToGlyph[code];
+            widths.add(glyphId != UnicodeConverter.NO_GLYPH ? metrics.getGlyphWidth(glyphId) : 0);
+        }
+        return widths;
     }
 }
@@ -1,17 +1,17 @@
 package nl.mad.toucanpdf.state;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 import nl.mad.toucanpdf.api.BaseText;
+import nl.mad.toucanpdf.font.WordWidthCache;
+import nl.mad.toucanpdf.model.Alignment;
 import nl.mad.toucanpdf.model.Position;
 import nl.mad.toucanpdf.model.Text;
 import nl.mad.toucanpdf.model.state.StateSpacing;
 import nl.mad.toucanpdf.model.state.StateSplittableText;
 
 public abstract class AbstractStateText extends BaseText implements StateSplittableText, StateSpacing {
-    protected Map<Position, String> textSplit = new LinkedHashMap<>();
-    protected Map<Position, Double> justificationOffset = new LinkedHashMap<>();
+    protected StateTextLines lines = new StateTextLines(null, false);
 
     public AbstractStateText(String text) {
         super(text);
@@ -21,14 +21,27 @@ public abstract class AbstractStateText extends BaseText implements StateSplitta
         super(part);
     }
 
+    protected AbstractStateText(Text part, String text) {
+        super(part, text);
+    }
+
     @Override
     public Map<Position, String> getTextSplit() {
-        return this.textSplit;
+        return this.lines.getTextSplit();
     }
 
     @Override
     public Map<Position, Double> getJustificationOffset() {
-        return this.justificationOffset;
+        return this.lines.getJustificationOffset();
+    }
+
+    /**
+     * Creates a new instance to store the lines of this text in, based on the current alignment.
+     * @param source Text the lines refer to, can be null if the lines are added as separate strings.
+     * @return the new lines.
+     */
+    protected StateTextLines createLines(String source) {
+        return new StateTextLines(source, Alignment.JUSTIFIED.equals(getAlignment()));
     }
 
     @Override
@@ -61,6 +74,26 @@ public abstract class AbstractStateText extends BaseText implements StateSplitta
         return this.getRequiredSpaceBelowLine() + marginBottom;
     }
 
+    /**
+     * Returns the width of the given word in points, including kerning. Widths are looked up in the shared word width cache.
+     * @param word The word to measure.
+     * @return Width of the word in points.
+     * @see WordWidthCache
+     */
+    protected double measureWordWidth(String word) {
+        return WordWidthCache.getSharedCache().getWidthPoint(getFont().getMetrics(), word, getTextSize(), true);
+    }
+
+    /**
+     * Returns the width of the given line in points, including kerning. Lines are hardly ever repeated,
+     * so they are measured directly instead of through the word width cache.
+     * @param line The line to measure.
+     * @return Width of the line in points.
+     */
+    protected double measureLineWidth(String line) {
+        return getFont().getMetrics().getWidthPointOfString(line, getTextSize(), true);
+    }
+
     /**
      * Processes the alignment of a single given line.
      * @param line Line to process.
@@ -79,14 +112,24 @@ public abstract class AbstractStateText extends BaseText implements StateSplitta
         case CENTERED:
             newPos.setX(position.getX() + (remainingWidth / 2));
             break;
-        case JUSTIFIED:
-            int wordAmount = Math.max((line.split(" ").length - 1), 0);
-            double offset = remainingWidth / wordAmount;
-            justificationOffset.put(newPos, offset);
-            break;
         default:
             break;
         }
         return newPos;
     }
+
+    /**
+     * Calculates the word spacing of a single given line. This is only used for justified text.
+     * @param line Line to process.
+     * @param width Width of the given line.
+     * @param openSpaceSize Size of the open space the line is filling.
+     * @return the space to add to each space character in the line.
+     */
+    protected double calculateWordSpacing(String line, double width, double openSpaceSize) {
+        if (!Alignment.JUSTIFIED.equals(getAlignment())) {
+            return 0;
+        }
+        int wordAmount = Math.max((line.split(" ").length - 1), 0);
+        return (openSpaceSize - width) / wordAmount;
+    }
 }
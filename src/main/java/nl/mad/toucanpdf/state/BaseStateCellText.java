@@ -2,7 +2,6 @@ package nl.mad.toucanpdf.state;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.List;
 
 import nl.mad.toucanpdf.model.DocumentPart;
@@ -16,6 +15,7 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
     private final static int REQUIRED_WIDTH = 10;
     private final static int DEFAULT_TOTAL_WIDTH = 2;
     private DocumentPart originalObject;
+    private LineLayout lineLayout;
 
     public BaseStateCellText(String text) {
         super(text);
@@ -30,16 +30,33 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
 
     @Override
     public double calculateContentHeight(double availableWidth, double leading, Position position, boolean processPositioning) {
-        textSplit = new LinkedHashMap<>();
+        lines = createLines(null);
+        Position pos = SetupPosition(position);
+        availableWidth -= marginRight + marginLeft;
+        if (lineLayout == null || !lineLayout.isValidFor(this, availableWidth)) {
+            lineLayout = breakLines(availableWidth);
+        }
+        if (processPositioning) {
+            for (int i = 0; i < lineLayout.lines.size(); ++i) {
+                processLineAddition(processPositioning, pos, leading, lineLayout.lines.get(i), lineLayout.lineWidths.get(i), availableWidth);
+            }
+        }
+        return lineLayout.height;
+    }
+
+    /**
+     * Divides the text over lines that fit within the given width and determines the height of the resulting content.
+     * @param availableWidth Width available for the text.
+     * @return the resulting line layout.
+     */
+    private LineLayout breakLines(double availableWidth) {
+        LineLayout layout = new LineLayout(this, availableWidth);
         ArrayList<String> strings = new ArrayList<String>(Arrays.asList(getText().split(" ")));
         strings.add("");
         int textSize = this.getTextSize();
         double width = 0;
         FontMetrics metrics = getFont().getMetrics();
         StringBuilder currentLine = new StringBuilder();
-        Position pos = SetupPosition(position);
-        availableWidth -= marginRight + marginLeft;
-        int lineAdditions = 0;
         String firstLine = null;
         String lastLine = null;
         double spaceSize = (metrics.getWidthPoint("space") * textSize);
@@ -47,7 +64,7 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
         for (int i = 0; i < strings.size(); ++i) {
             String s = strings.get(i);
             double oldWidth = width;
-            double stringWidth = metrics.getWidthPointOfString(s, textSize, true);
+            double stringWidth = measureWordWidth(s);
             if (currentLine.length() != 0) {
                 width += spaceSize;
             }
@@ -61,25 +78,23 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
                     //else simply move this word to the next line
                     strings.add(i + 1, s);
                 }
-                if (lineAdditions == 0) {
+                if (layout.lines.isEmpty()) {
                     firstLine = line;
                 }
-                lineAdditions += 1;
-                processLineAddition(processPositioning, pos, leading, line, metrics.getWidthPointOfString(line, textSize, true), availableWidth);
+                layout.addLine(line, measureLineWidth(line));
                 width = 0;
                 currentLine = new StringBuilder();
             } else if (i == (strings.size() - 1) && (currentLine.length() != 0 || !s.isEmpty())) {
                 currentLine.append(s);
-                lineAdditions += 1;
                 lastLine = currentLine.toString();
-                processLineAddition(processPositioning, pos, leading, lastLine,
-                        metrics.getWidthPointOfString(currentLine.toString(), textSize, true), availableWidth);
+                layout.addLine(lastLine, measureLineWidth(lastLine));
             } else {
                 currentLine.append(s).append(" ");
             }
         }
         //content height is equal to the amount of lines times leading and margins, we have to deduct leading once because the first line does not have leading
-        return determineTotalContentHeight(lineAdditions, metrics, firstLine, lastLine);
+        layout.height = determineTotalContentHeight(layout.lines.size(), metrics, firstLine, lastLine);
+        return layout;
     }
 
     private Position SetupPosition(Position position) {
@@ -93,12 +108,10 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
     public void processVerticalAlignment(double height) {
         //we want to use general font values in this calculation to make sure single lines of text are placed on the same baseline. 
         //If we're using the ascent/descent of individual lines to determine vertical alignment, the text will always be slightly off due to some lines being higher
-        double diff = (height - marginTop - marginBottom) - determineContentHeightWithGeneralFontValues(this.textSplit.size(), this.getFont().getMetrics());
+        double diff = (height - marginTop - marginBottom) - determineContentHeightWithGeneralFontValues(this.lines.size(), this.getFont().getMetrics());
         double yAdjustment = diff / 2;
-        if (this.textSplit.size() > 0 && diff > 0) {
-            for (Position p : textSplit.keySet()) {
-                p.adjustY(-yAdjustment);
-            }
+        if (this.lines.size() > 0 && diff > 0) {
+            lines.adjustY(-yAdjustment);
         }
     }
 
@@ -128,10 +141,10 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
 
     private void processLineAddition(boolean processPositioning, Position pos, double leading, String line, double width, double availableSpace) {
         if (processPositioning) {
-            double yAdjustment = textSplit.size() > 0 ? -(getRequiredSpaceAboveLine() + leading) : -getRequiredSpaceAboveLine();
+            double yAdjustment = lines.size() > 0 ? -(getRequiredSpaceAboveLine() + leading) : -getRequiredSpaceAboveLine();
             pos.adjustY(yAdjustment);
             pos = processAlignment(line, pos, width, availableSpace);
-            textSplit.put(new Position(pos), line);
+            lines.add(pos, line, calculateWordSpacing(line, width, availableSpace));
             pos.adjustY(-getRequiredSpaceBelowLine());
         }
     }
@@ -212,11 +225,49 @@ public class BaseStateCellText extends AbstractStateText implements StateCellTex
         String[] words = this.getText().split(" ");
         double largestWordLength = 0;
         for (String word : words) {
-            double length = metrics.getWidthPointOfString(word, this.getTextSize(), true);
+            double length = measureWordWidth(word);
             if (length > largestWordLength) {
                 largestWordLength = length;
             }
         }
         return largestWordLength + marginLeft + marginRight;
     }
+
+    /**
+     * Line breaks and content height of the text for a specific available width. The layout is only valid as long as the text, 
+     * font, size and margins it was created with remain unchanged. The lines are positioned separately, so the layout can be reused
+     * for any position and leading.
+     */
+    private static class LineLayout {
+        private final double availableWidth;
+        private final String text;
+        private final int textSize;
+        private final FontMetrics metrics;
+        private final int[] margins;
+        private final List<String> lines = new ArrayList<>();
+        private final List<Double> lineWidths = new ArrayList<>();
+        private double height;
+
+        LineLayout(BaseStateCellText text, double availableWidth) {
+            this.availableWidth = availableWidth;
+            this.text = text.getText();
+            this.textSize = text.getTextSize();
+            this.metrics = text.getFont().getMetrics();
+            this.margins = getMargins(text);
+        }
+
+        private static int[] getMargins(BaseStateCellText text) {
+            return new int[] { text.marginTop, text.marginRight, text.marginBottom, text.marginLeft };
+        }
+
+        void addLine(String line, double width) {
+            lines.add(line);
+            lineWidths.add(width);
+        }
+
+        boolean isValidFor(BaseStateCellText cellText, double width) {
+            return Double.compare(availableWidth, width) == 0 && text.equals(cellText.getText()) && textSize == cellText.getTextSize()
+                    && metrics == cellText.getFont().getMetrics() && Arrays.equals(margins, getMargins(cellText));
+        }
+    }
 }
@@ -28,6 +28,9 @@ public class BaseStatePage extends BasePage implements StatePage {
     private double filledWidth = 0;
     private double filledHeight = 0;
     private DocumentPart originalObject;
+    private PageOccupancyIndex occupancyIndex;
+    private Object occupancyIndexIgnoredPart;
+    private int occupancyIndexContentSize;
 
     /**
      * Creates a new instance of BaseStatePage with the given width and height.
@@ -47,6 +50,18 @@ public class BaseStatePage extends BasePage implements StatePage {
         marginTop(this.getMarginTop());
     }
 
+    @Override
+    public Page add(DocumentPart part) {
+        occupancyIndex = null;
+        return super.add(part);
+    }
+
+    @Override
+    public Page addAll(List<DocumentPart> parts) {
+        occupancyIndex = null;
+        return super.addAll(parts);
+    }
+
     @Override
     public Page marginTop(int marginTop) {
         if (FloatEqualityTester.equals(filledHeight, this.getMarginTop()) || FloatEqualityTester.equals(filledHeight, 0)) {
@@ -117,13 +132,14 @@ public class BaseStatePage extends BasePage implements StatePage {
 
         Position position = null;
         if (positionHeight > marginBottom) {
+            PageOccupancyIndex index = getOccupancyIndex(spacing);
             double potentialWidth = positionWidth + getMarginLeft();
             position = new Position(potentialWidth, potentialHeight);
             while (!positionDetermined) {
                 if (potentialHeight - requiredSpaceBelow <= marginBottom) {
                     positionDetermined = true;
                     position = null;
-                } else if (getWidestOpenSpaceOn(position, requiredSpaceAbove, requiredSpaceBelow, spacing) >= (requiredWidth)) {
+                } else if (getWidestOpenSpaceOn(index, position, requiredSpaceAbove, requiredSpaceBelow, spacing) >= (requiredWidth)) {
                     positionDetermined = true;
                 }
 
@@ -138,14 +154,16 @@ public class BaseStatePage extends BasePage implements StatePage {
 
     /**
      * Returns the width of the largest open space on the given position.
+     * @param index Index containing the occupied regions of the page.
      * @param position Position to check.
      * @param requiredSpaceAbove Free space required above the given position.
      * @param requiredSpaceBelow Free space required below the given position.
      * @return double containing the width.
      */
-    private double getWidestOpenSpaceOn(Position position, double requiredSpaceAbove, double requiredSpaceBelow, StateSpacing spacing) {
+    private double getWidestOpenSpaceOn(PageOccupancyIndex index, Position position, double requiredSpaceAbove, double requiredSpaceBelow,
+            StateSpacing spacing) {
         int maxWidth = 0;
-        for (Space openSpace : this.getOpenSpacesOn(position, true, requiredSpaceAbove, requiredSpaceBelow, spacing)) {
+        for (Space openSpace : this.getOpenSpacesOn(index, position, true, requiredSpaceAbove, requiredSpaceBelow, spacing)) {
             maxWidth = Math.max(maxWidth, openSpace.getEndPoint() - openSpace.getStartPoint());
         }
         return maxWidth;
@@ -162,26 +180,21 @@ public class BaseStatePage extends BasePage implements StatePage {
 
     /**
      * Returns all document parts that overlap with the given position.
+     * @param index Index containing the occupied regions of the page.
      * @param pos Position to check.
      * @param requiredSpaceAbove Required free space above the given position.
      * @param requiredSpaceBelow Required free space below the given position.
      * @return List of document parts that overlap with the given position.
      */
-    private List<StatePlaceableDocumentPart> getPartsOnLine(Position pos, double requiredSpaceAbove, double requiredSpaceBelow, StateSpacing spacing) {
+    private List<StatePlaceableDocumentPart> getPartsOnLine(PageOccupancyIndex index, Position pos, double requiredSpaceAbove, double requiredSpaceBelow,
+            StateSpacing spacing) {
         List<StatePlaceableDocumentPart> contentOnSameLine = new ArrayList<StatePlaceableDocumentPart>();
-        List<DocumentPart> pageContent = new LinkedList<DocumentPart>(getContent());
-        for (int i = 0; i < pageContent.size(); ++i) {
-            DocumentPart p = pageContent.get(i);
-            if (p instanceof StatePlaceableDocumentPart && !p.equals(spacing)) {
-                if (DocumentPartType.PARAGRAPH.equals(p.getType())) {
-                    Paragraph paragraph = (Paragraph) p;
-                    pageContent.addAll(i + 1, paragraph.getTextCollection());
-                } else {
-                    StatePlaceableDocumentPart part = (StatePlaceableDocumentPart) p;
-                    if (onSameLine(pos, requiredSpaceAbove, requiredSpaceBelow, spacing, part)) {
-                        contentOnSameLine.add(part);
-                    }
-                }
+        double y = pos.getY();
+        double top = Math.max(y, Math.max(y + requiredSpaceAbove, y - requiredSpaceBelow));
+        double bottom = Math.min(y, Math.min(y + requiredSpaceAbove, y - requiredSpaceBelow));
+        for (StatePlaceableDocumentPart part : index.getPartsBetween(bottom, top)) {
+            if (onSameLine(pos, requiredSpaceAbove, requiredSpaceBelow, spacing, part)) {
+                contentOnSameLine.add(part);
             }
         }
         return contentOnSameLine;
@@ -217,7 +230,28 @@ public class BaseStatePage extends BasePage implements StatePage {
     @Override
     public List<Space> getOpenSpacesOn(Position pos, boolean ignoreSpacesBeforePositionWidth, double requiredSpaceAbove, double requiredSpaceBelow,
             StateSpacing spacing) {
-        List<StatePlaceableDocumentPart> parts = this.getPartsOnLine(pos, requiredSpaceAbove, requiredSpaceBelow, spacing);
+        return getOpenSpacesOn(getOccupancyIndex(spacing), pos, ignoreSpacesBeforePositionWidth, requiredSpaceAbove, requiredSpaceBelow, spacing);
+    }
+
+    /**
+     * Returns the occupancy index of this page for the given part. The index is kept until content is added to or removed from the page,
+     * or until the index is requested for another part. While a part is positioned only that part changes, and it is left out of the index,
+     * so the same index can be used for every line of the part.
+     * @param ignoredPart Part that is being positioned.
+     * @return the index of the occupied regions of this page.
+     */
+    private PageOccupancyIndex getOccupancyIndex(Object ignoredPart) {
+        if (occupancyIndex == null || occupancyIndexIgnoredPart != ignoredPart || occupancyIndexContentSize != getContent().size()) {
+            occupancyIndex = new PageOccupancyIndex(this, ignoredPart);
+            occupancyIndexIgnoredPart = ignoredPart;
+            occupancyIndexContentSize = getContent().size();
+        }
+        return occupancyIndex;
+    }
+
+    private List<Space> getOpenSpacesOn(PageOccupancyIndex index, Position pos, boolean ignoreSpacesBeforePositionWidth, double requiredSpaceAbove,
+            double requiredSpaceBelow, StateSpacing spacing) {
+        List<StatePlaceableDocumentPart> parts = this.getPartsOnLine(index, pos, requiredSpaceAbove, requiredSpaceBelow, spacing);
         List<Space> openSpaces = new ArrayList<Space>();
 
         int startingPoint = getMarginLeft();
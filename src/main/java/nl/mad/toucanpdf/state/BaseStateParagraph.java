@@ -103,11 +103,15 @@ public class BaseStateParagraph extends AbstractParagraph implements StateParagr
 
             if (this.getAnchorsOn(t).size() > 0) {
                 overflowParagraph = processAnchors(textCollection.get(i), page, fixedPosition);
+                if (overflowParagraph != null) {
+                    //the text has been moved to the overflow paragraph and should not be placed on this page
+                    break;
+                }
             } else {
                 posX = processTextPosition(textCollection.get(i), page, fixedPosition);
             }
 
-            Text overflow = t.processContentSize(page, posX, fixedPosition);
+            StateText overflow = t.processContentSize(page, posX, fixedPosition);
             if (overflow != null) {
                 overflowParagraph = this.handleOverflow(i + 1, overflow);
             } else {
@@ -343,20 +347,22 @@ public class BaseStateParagraph extends AbstractParagraph implements StateParagr
     }
 
     /**
-     * Processes overflow based on the given index and text.
-     * @param index Index of the text object causing overflow.
-     * @param text Text object that contains the overflow.
+     * Processes overflow based on the given index and text. The overflow and the text objects from the given index onwards
+     * are moved to the overflow paragraph instead of being copied.
+     * @param index Index of the first text object that is moved to the overflow paragraph.
+     * @param text Text object that contains the overflow, this can be the text object at the given index.
      * @return the overflow paragraph
      */
-    private Paragraph handleOverflow(int index, Text text) {
-        List<Text> newTextList = new ArrayList<Text>();
-        newTextList.add(text);
-        newTextList.addAll(textCollection.subList(index, textCollection.size()));
-        this.textCollection.removeAll(newTextList);
+    private Paragraph handleOverflow(int index, StateText text) {
+        List<StateText> remainingText = textCollection.subList(index, textCollection.size());
         BaseStateParagraph overflowParagraph = new BaseStateParagraph(this, false);
-        overflowParagraph.addText(newTextList);
+        if (!remainingText.contains(text)) {
+            overflowParagraph.textCollection.add(text);
+        }
+        overflowParagraph.textCollection.addAll(remainingText);
+        remainingText.clear();
         //TODO: add anchors on overflow! Including beneath anchor from the object causing the overflow
-        for (Text t : overflowParagraph.getTextCollection()) {
+        for (Text t : overflowParagraph.textCollection) {
             this.getAnchorsOn(t).forEach(overflowParagraph::addAnchor);
         }
         overflowParagraph.setOriginalObject(this.getOriginalObject());
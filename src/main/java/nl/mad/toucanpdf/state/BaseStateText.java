@@ -2,11 +2,11 @@ package nl.mad.toucanpdf.state;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import nl.mad.toucanpdf.model.DocumentPart;
 import nl.mad.toucanpdf.model.FontMetrics;
@@ -25,7 +25,19 @@ import nl.mad.toucanpdf.utility.FloatEqualityTester;
  * @author Dylan de Wolff
  */
 public class BaseStateText extends AbstractStateText implements StateText {
+    private static final int NO_CUT_OFF = -1;
     private DocumentPart originalObject;
+    //words of the text this text overflowed from, with the cursor on the first word of this text. Null if this text did not result from overflow.
+    private TextWords remainingWords;
+    //source text of which this text covers a range, shared with the text it was laid out from. Null if this text is not a range of a source.
+    private String sourceText;
+    private int sourceStart;
+    private int sourceEnd;
+    //offsets of the space reserved for the total amount of pages, null if no space has been reserved
+    private int[] totalPagesOffsets;
+    private int totalPagesLength;
+    private double totalPagesWidth;
+    private List<Position> totalPagesPositions = Collections.emptyList();
 
     /**
      * Creates a new instance of BaseStateText.
@@ -47,39 +59,199 @@ public class BaseStateText extends AbstractStateText implements StateText {
      * @param part Text to copy from.
      */
     public BaseStateText(Text part) {
-        super(part);
+        super(part, getTextToCopy(part));
+        if (part instanceof BaseStateText) {
+            BaseStateText text = (BaseStateText) part;
+            this.remainingWords = text.remainingWords;
+            this.sourceText = text.sourceText;
+            this.sourceStart = text.sourceStart;
+            this.sourceEnd = text.sourceEnd;
+        }
+    }
+
+    /**
+     * Returns the text that should be copied from the given part. The remaining text of overflow and the text of a range of a source
+     * are only created when they are requested, copies share the words or the source instead.
+     * @param part Text to copy from.
+     * @return the text to copy, null if the text of the given part has not been created yet.
+     */
+    private static String getTextToCopy(Text part) {
+        if (part instanceof BaseStateText && (((BaseStateText) part).remainingWords != null || ((BaseStateText) part).sourceText != null)) {
+            return ((BaseStateText) part).getCreatedText();
+        }
+        return part.getText();
+    }
+
+    private String getCreatedText() {
+        return super.getText();
+    }
+
+    @Override
+    public String getText() {
+        if (super.getText() == null) {
+            if (remainingWords != null) {
+                super.text(remainingWords.getRemainingText());
+            } else if (sourceText != null) {
+                super.text(sourceText.substring(sourceStart, sourceEnd));
+            }
+        }
+        return super.getText();
+    }
+
+    @Override
+    public Text text(String text) {
+        this.remainingWords = null;
+        this.sourceText = null;
+        this.totalPagesOffsets = null;
+        return super.text(text);
+    }
+
+    /**
+     * Replaces each occurrence of the given placeholder by the given reservation. The reservation is laid out as part of the text,
+     * but it is left out of the lines of the text. Instead the positions of the reservations are offered through {@link #getTotalPagesPositions()},
+     * which allows the total amount of pages to be filled in when the document is written.
+     * A reservation that does not end up on a single line is laid out as regular text.
+     * @param placeholder Placeholder of the total amount of pages.
+     * @param reservation String that reserves the space for the total, usually the (expected) total itself.
+     */
+    public void reserveTotalPages(String placeholder, String reservation) {
+        String source = getText();
+        StringBuilder sb = new StringBuilder(source.length());
+        List<Integer> offsets = new ArrayList<>();
+        int start = 0;
+        int index = source.indexOf(placeholder);
+        while (index != -1) {
+            sb.append(source, start, index);
+            offsets.add(sb.length());
+            sb.append(reservation);
+            start = index + placeholder.length();
+            index = source.indexOf(placeholder, start);
+        }
+        sb.append(source, start, source.length());
+        this.text(sb.toString());
+        if (!offsets.isEmpty()) {
+            this.totalPagesOffsets = offsets.stream().mapToInt(Integer::intValue).toArray();
+            this.totalPagesLength = reservation.length();
+            this.totalPagesWidth = measureLineWidth(reservation);
+        }
+    }
+
+    /**
+     * Replaces the reservations made by {@link #reserveTotalPages(String, String)} in the text by the given total. The lines of the text and the positions
+     * of the reservations are not changed, which means the total is still drawn on the reserved positions.
+     * This has no effect if the text does not contain any reservations.
+     * @param totalPages The total amount of pages.
+     */
+    public void fillInTotalPages(String totalPages) {
+        if (totalPagesOffsets != null) {
+            String source = getText();
+            StringBuilder sb = new StringBuilder(source.length());
+            int start = 0;
+            for (int offset : totalPagesOffsets) {
+                sb.append(source, start, offset).append(totalPages);
+                start = offset + totalPagesLength;
+            }
+            sb.append(source, start, source.length());
+            super.text(sb.toString());
+            this.totalPagesOffsets = null;
+        }
     }
 
     @Override
     public StateText processContentSize(StatePage page, double positionX, boolean fixedPosition) {
-        ArrayList<String> strings = new ArrayList<String>(Arrays.asList(getText().split(" ")));
+        TextWords words = remainingWords != null ? new TextWords(remainingWords) : new TextWords(getText());
         double leading = page.getLeading() + getRequiredSpaceBelowLine();
-        this.textSplit = new LinkedHashMap<Position, String>();
-        int i = 0;
-        boolean stringsProcessed = false;
+        this.lines = createLines(words.getSource());
         Position pos = new Position(this.getPosition());
         StateText overflowText = null;
         if (positionX == 0) {
             positionX = this.getRequiredSpaceLeft();
         }
 
-        while (!stringsProcessed && i < strings.size()) {
+        CachedLayout cachedLayout = TextLayoutCache.getSharedCache().isEnabled() ? new CachedLayout() : null;
+        while (overflowText == null && !words.isFinished()) {
             List<Space> openSpaces = getOpenSpaces(pos, page, fixedPosition);
             if (openSpaces.size() != 0) {
-                i += splitText(openSpaces, strings.subList(i, strings.size()), pos, page);
-                boolean isLast = (i == (strings.size() - 1));
+                if (cachedLayout != null) {
+                    cachedLayout.addLine(openSpaces, words, pos, page);
+                } else {
+                    splitText(openSpaces, words, pos, page);
+                }
+                boolean isLast = (words.getRemainingWordCount() == 1);
                 pos = handleTextAddition(page, leading, pos, positionX, fixedPosition, isLast);
                 if (pos == null) {
-                    overflowText = handleOverflow(i, strings);
-                    stringsProcessed = true;
+                    overflowText = handleOverflow(words);
                 }
             } else {
                 pos.adjustY(-leading);
             }
         }
+        if (cachedLayout != null) {
+            cachedLayout.store();
+        }
+        if (totalPagesOffsets != null) {
+            separateTotalPages();
+        }
         return overflowText;
     }
 
+    /**
+     * Removes the space reserved for the total amount of pages from the lines. The part of a line that follows a reservation
+     * is added as a separate line and the position of each reservation is stored.
+     */
+    private void separateTotalPages() {
+        String source = lines.getSource();
+        StateTextLines separated = createLines(source);
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < lines.size(); ++i) {
+            int start = lines.getStart(i);
+            int end = lines.getEnd(i);
+            double spacing = lines.getWordSpacing(i);
+            int segmentStart = start;
+            for (int offset : totalPagesOffsets) {
+                if (offset >= segmentStart && offset + totalPagesLength <= end) {
+                    if (offset > segmentStart) {
+                        separated.add(getPositionInLine(i, segmentStart), source.substring(segmentStart, offset), spacing);
+                    }
+                    positions.add(getPositionInLine(i, offset));
+                    segmentStart = offset + totalPagesLength;
+                }
+            }
+            if (segmentStart == start) {
+                separated.add(new Position(lines.getX(i), lines.getY(i)), start, end, lines.getSuffix(i), spacing);
+            } else if (segmentStart < end) {
+                separated.add(getPositionInLine(i, segmentStart), source.substring(segmentStart, end) + lines.getSuffix(i), spacing);
+            }
+        }
+        this.lines = separated;
+        this.totalPagesPositions = Collections.unmodifiableList(positions);
+    }
+
+    /**
+     * Returns the position of the character with the given offset, which should be part of the given line.
+     * @param line Index of the line.
+     * @param offset Offset of the character in the source text.
+     * @return the position of the character.
+     */
+    private Position getPositionInLine(int line, int offset) {
+        String preceding = lines.getSource().substring(lines.getStart(line), offset);
+        double x = lines.getX(line) + measureLineWidth(preceding);
+        if (lines.isJustified()) {
+            x += preceding.chars().filter(c -> c == ' ').count() * lines.getWordSpacing(line);
+        }
+        return new Position(x, lines.getY(line));
+    }
+
+    @Override
+    public List<Position> getTotalPagesPositions() {
+        return totalPagesPositions;
+    }
+
+    @Override
+    public double getTotalPagesWidth() {
+        return totalPagesPositions.isEmpty() ? 0 : totalPagesWidth;
+    }
+
     /**
      * Returns the open spaces on the given position and page.
      * @param pos Position to check.
@@ -99,132 +271,156 @@ public class BaseStateText extends AbstractStateText implements StateText {
     }
 
     /**
-     * Splits the given text over the given open spaces.
+     * Splits the given text over the given open spaces. The words are walked from the current word of the given cursor,
+     * which is moved to the first word that did not fit on the lines that have been added.
      * @param openSpaces Open spaces that can be filled.
-     * @param strings Strings to fill the open spaces with.
+     * @param words Cursor over the words of the text.
      * @param pos Position of the text.
      * @param page The page to add the text to.
-     * @return index determining how many strings have been processed.
      */
-    private int splitText(List<Space> openSpaces, List<String> strings, Position pos, Page page) {
-        List<String> stringsCopy = new LinkedList<String>(strings);
-        stringsCopy.add("");
-        StringBuilder currentLine = new StringBuilder();
+    private void splitText(List<Space> openSpaces, TextWords words, Position pos, Page page) {
+        double spaceWidth = getFont().getMetrics().getWidthPoint("space") * getTextSize();
         Space openSpace = openSpaces.get(0);
-        int i = 0;
-        int lastAdditionIndex = 0;
-        int additions = 0;
-        int cutOffAdditions = 0;
-        int textSize = getTextSize();
+        int openSpaceIndex = 0;
+        int nextWord = words.getIndex();
+        int nextWordStart = words.getStart(nextWord);
+        int lineStart = nextWordStart;
+        int lineEnd = lineStart;
+        boolean lineEmpty = true;
         double width = 0;
         boolean openSpacesFilled = false;
-        FontMetrics metrics = getFont().getMetrics();
-        int openSpaceIndex = 0;
+        int i = nextWord;
 
-        while (!openSpacesFilled && i < stringsCopy.size()) {
-            String s = stringsCopy.get(i);
+        //the word after the last word of the text is used to add the final line
+        while (!openSpacesFilled && i <= words.getWordCount()) {
+            boolean lastWord = (i == words.getWordCount());
+            int wordStart = (i == nextWord) ? nextWordStart : words.getStart(i);
             double oldWidth = width;
-            if (i != (stringsCopy.size() - 1)) {
-                width += metrics.getWidthPointOfString(s, textSize, true) + (metrics.getWidthPoint("space") * textSize);
+            int spaceSize = openSpace.getEndPoint() - openSpace.getStartPoint();
+            if (!lastWord) {
+                width += getWordWidth(words, i, wordStart) + spaceWidth;
             }
-            if ((width > openSpace.getEndPoint() - openSpace.getStartPoint() || i == (stringsCopy.size() - 1))
-                    && oldWidth < openSpace.getEndPoint() - openSpace.getStartPoint()) {
-                String cutOffLine = processCutOff(openSpace.getStartPoint() + oldWidth, openSpace.getEndPoint(), currentLine.toString(), stringsCopy, i, page);
-                if (!cutOffLine.equals(currentLine.toString())) {
-                    strings.add(i + 1, stringsCopy.get(i + 1));
-                    ++cutOffAdditions;
-                    currentLine = new StringBuilder(cutOffLine);
+            if ((width > spaceSize || lastWord) && oldWidth < spaceSize) {
+                String currentLine = lineEmpty ? "" : words.getText(lineStart, lineEnd) + " ";
+                int currentLineStart = lineStart;
+                int currentLineEnd = lineEnd;
+                char suffix = ' ';
+                if (!lastWord) {
+                    int wordEnd = words.getEnd(i);
+                    int cutOffLength = processCutOff(openSpace.getStartPoint() + oldWidth, openSpace.getEndPoint(), words, wordStart, wordEnd, page);
+                    if (cutOffLength != NO_CUT_OFF) {
+                        currentLine = currentLine + words.getText(wordStart, wordStart + cutOffLength) + "-";
+                        if (lineEmpty) {
+                            currentLineStart = wordStart;
+                        }
+                        currentLineEnd = wordStart + cutOffLength;
+                        suffix = '-';
+                        //the last character that was checked is moved to the next line
+                        wordStart += Math.min(cutOffLength, wordEnd - wordStart - 1);
+                    }
                 }
-                if (!currentLine.toString().isEmpty()) {
-                    lastAdditionIndex = i;
-                    ++additions;
+                if (!currentLine.isEmpty()) {
+                    nextWord = i;
+                    nextWordStart = wordStart;
                     Position position = new Position(openSpace.getStartPoint(), pos.getY());
-                    width = metrics.getWidthPointOfString(currentLine.toString(), textSize, true) + (metrics.getWidthPoint("space") * textSize);
-                    position = processAlignment(currentLine.toString(), position, width, openSpace.getEndPoint() - openSpace.getStartPoint());
-                    addTextSplitEntry(position, currentLine.toString());
-                    currentLine = new StringBuilder();
+                    width = measureLineWidth(currentLine) + spaceWidth;
+                    position = processAlignment(currentLine, position, width, spaceSize);
+                    addLine(position, currentLineStart, currentLineEnd, suffix, calculateWordSpacing(currentLine, width, spaceSize));
                 }
                 if (openSpaceIndex != (openSpaces.size() - 1)) {
                     openSpace = openSpaces.get(openSpaceIndex + 1);
-                    width = metrics.getWidthPointOfString(stringsCopy.get(i), textSize, true) - (metrics.getWidthPoint("space") * textSize);
+                    width = getWordWidth(words, i, wordStart) - spaceWidth;
                     ++openSpaceIndex;
+                    lineStart = wordStart;
+                    lineEmpty = true;
                 } else {
                     openSpacesFilled = true;
                 }
             }
-            currentLine.append(stringsCopy.get(i));
-            currentLine.append(' ');
+            if (!lastWord) {
+                lineEnd = words.getEnd(i);
+                lineEmpty = false;
+            }
             ++i;
         }
-        //if we only do a single loop we should still skip the current text if it was added.
-        if (lastAdditionIndex == 0 && additions > 0) {
-            ++lastAdditionIndex;
+        words.moveTo(nextWord, nextWordStart);
+    }
+
+    /**
+     * Returns the width of the given word.
+     * @param words The words of the text.
+     * @param index Index of the word.
+     * @param start Offset of the first character of the word, this differs from the start of the word if part of the word has been cut off.
+     * @return the width of the word.
+     */
+    private double getWordWidth(TextWords words, int index, int start) {
+        if (index == words.getWordCount()) {
+            return measureWordWidth("");
+        }
+        if (!words.isWholeWord(index, start)) {
+            return measureWordWidth(words.getText(start, words.getEnd(index)));
+        }
+        double[] widths = words.getWidths(getFont().getMetrics(), getTextSize());
+        double width = widths[index];
+        if (Double.isNaN(width)) {
+            width = measureWordWidth(words.getText(start, words.getEnd(index)));
+            widths[index] = width;
         }
-        return lastAdditionIndex + cutOffAdditions;
+        return width;
     }
 
     /**
-     * Adds a new line to the textSplit map.
+     * Adds a new line to the lines of this text. The line consists of a range of the text, followed by the given suffix.
      * @param position Position the line is on.
-     * @param string The line itself.
+     * @param start Offset of the first character of the line.
+     * @param end Offset after the last character of the line.
+     * @param suffix Character following the line.
+     * @param wordSpacing Word spacing of the line.
      */
-    private void addTextSplitEntry(Position position, String string) {
-        if (textSplit.isEmpty()) {
+    private void addLine(Position position, int start, int end, char suffix, double wordSpacing) {
+        if (lines.isEmpty()) {
             this.setPosition(new Position(position.getX(), position.getY()));
         }
-        textSplit.put(position, string);
+        lines.add(position, start, end, suffix, wordSpacing);
     }
 
     /**
-     * Processes text cutoff. Determines whether or not cutting off text is required and does so if it is.
+     * Processes text cutoff. Determines whether or not cutting off the given word is required and how many of its characters fit on the current line.
      * @param width Width of the current line.
      * @param widthLimit Width of the open space being filled.
-     * @param currentLine The current line being processed.
-     * @param text The text list being processed.
-     * @param currentTextIndex The current index being processed of the text list.
+     * @param words The words of the text.
+     * @param wordStart Offset of the first character of the word.
+     * @param wordEnd Offset after the last character of the word.
      * @param page The page the text will be added to.
-     * @return
+     * @return the amount of characters that should be added to the current line, followed by a dash. NO_CUT_OFF if the word should not be cut off.
      */
-    private String processCutOff(double width, int widthLimit, String currentLine, List<String> text, int currentTextIndex, Page page) {
+    private int processCutOff(double width, int widthLimit, TextWords words, int wordStart, int wordEnd, Page page) {
         if (FloatEqualityTester.greaterThan((widthLimit - width), ((page.getWidth() - page.getMarginRight()) * (1.0 - Page.CUT_OFF_POINT_PERCENTAGE)))) {
             int textSize = getTextSize();
             double currentWidth = width;
-            StringBuilder currentString = new StringBuilder(currentLine);
             FontMetrics metrics = getFont().getMetrics();
-            char[] charArray = text.get(currentTextIndex).toCharArray();
-            int i = 0;
+            int i = wordStart;
+            int length = 0;
             double dashWidth = metrics.getWidthPoint("endash") * textSize;
-            while (currentWidth < (widthLimit - dashWidth) && i != charArray.length) {
-                char c = charArray[i];
+            while (currentWidth < (widthLimit - dashWidth) && i != wordEnd) {
+                char c = words.charAt(i);
                 double characterSize;
-                if (i + 1 != charArray.length) {
-                    characterSize = (((metrics.getWidth(c) - metrics.getKerning(c, charArray[i + 1])) * textSize) * metrics.getConversionToPointsValue());
+                if (i + 1 != wordEnd) {
+                    characterSize = (((metrics.getWidth(c) - metrics.getKerning(c, words.charAt(i + 1))) * textSize) * metrics.getConversionToPointsValue());
                 } else {
                     characterSize = metrics.getWidthPoint(c) * textSize;
                 }
                 currentWidth += characterSize;
                 if (currentWidth < widthLimit - dashWidth) {
-                    currentString.append(c);
+                    ++length;
                 }
                 ++i;
             }
-            ApplyTextSplit(text, currentTextIndex, currentString, charArray, i);
-            return currentString.toString();
-        }
-        return currentLine;
-    }
-
-    private void ApplyTextSplit(List<String> text, int currentTextIndex, StringBuilder currentString, char[] charArray, int lastCharOfCurrentLineIndex) {
-        if (lastCharOfCurrentLineIndex != 0) {
-            currentString.append('-');
-            text.set(currentTextIndex, "");
-            String stringToAdd = String.valueOf(charArray).substring(lastCharOfCurrentLineIndex - 1);
-            if (text.size() > currentTextIndex + 1) {
-                text.set(currentTextIndex + 1, stringToAdd);
-            } else {
-                text.add(stringToAdd);
+            if (i != wordStart) {
+                return length;
             }
         }
+        return NO_CUT_OFF;
     }
 
     /**
@@ -256,41 +452,59 @@ public class BaseStateText extends AbstractStateText implements StateText {
 
     /**
      * Processes the overflow by removing all overflowing content and adding it to another text object.
-     * @param overflowStart Index determining which string caused the overflow.
-     * @param strings The text split into a list of strings.
+     * This text is reduced to the range of the source covered by its lines and the overflow shares the words of this text,
+     * the text of both is only created when it is requested.
+     * @param words Cursor pointing to the first word that did not fit.
      * @return a new StateText object that contains all the overflowing content of this object.
      */
-    private StateText handleOverflow(int overflowStart, List<String> strings) {
-        StringBuilder sb = new StringBuilder();
-        for (String s : textSplit.values()) {
-            if (!"\n".equals(s)) {
-                sb.append(s);
-                sb.append(" ");
-            }
+    private StateText handleOverflow(TextWords words) {
+        if (lines.isEmpty()) {
+            this.text("");
+        } else {
+            coverRange(lines.getSource(), lines.getStart(0), lines.getEnd(lines.size() - 1));
         }
-        this.text(sb.toString());
 
-        sb = new StringBuilder();
-        appendOverflowStrings(overflowStart, strings, sb);
-        StateText overflowText = new BaseStateText(this);
+        BaseStateText overflowText = new BaseStateText(this);
         overflowText.setOriginalObject(this.getOriginalObject());
-        overflowText.text(sb.toString()).on(new Position());
+        if (words.isFinished()) {
+            overflowText.text("");
+        } else {
+            overflowText.continueFrom(words);
+        }
+        overflowText.on(new Position());
         return overflowText;
     }
 
-    private void appendOverflowStrings(int overflowStart, List<String> strings, StringBuilder sb) {
-        for (int i = overflowStart; i < strings.size(); ++i) {
-            sb.append(strings.get(i));
-            sb.append(" ");
-        }
+    /**
+     * Lets this text represent the remaining words of the given cursor.
+     * @param words Cursor pointing to the first word of this text.
+     */
+    private void continueFrom(TextWords words) {
+        super.text(null);
+        this.sourceText = null;
+        this.remainingWords = words;
+    }
+
+    /**
+     * Lets this text represent the given range of the given source, without copying the range.
+     * @param source The source text.
+     * @param start Offset of the first character of the range.
+     * @param end Offset after the last character of the range.
+     */
+    private void coverRange(String source, int start, int end) {
+        super.text(null);
+        this.remainingWords = null;
+        this.sourceText = source;
+        this.sourceStart = start;
+        this.sourceEnd = end;
     }
 
     @Override
     public double getContentHeight(Page page) {
         double lowestHeight = this.getPosition().getY();
         double highestHeight = 0;
-        for (Entry<Position, String> entry : textSplit.entrySet()) {
-            Double posY = entry.getKey().getY();
+        for (int i = 0; i < lines.size(); ++i) {
+            double posY = lines.getY(i);
             highestHeight = Math.max(highestHeight, posY);
             lowestHeight = Math.min(lowestHeight, posY);
         }
@@ -305,75 +519,43 @@ public class BaseStateText extends AbstractStateText implements StateText {
     @Override
     public double getContentWidth(Page page, Position position) {
         FontMetrics metrics = getFont().getMetrics();
-        List<Entry<Position, String>> entries = this.getEntriesAtHeight(position.getY());
-        int width = 0;
-        for (Entry<Position, String> entry : entries) {
-            width += (int) (metrics.getWidthPointOfString(entry.getValue(), getTextSize(), true) + (metrics.getWidthPoint("space") * getTextSize()));
-        }
-        return width;
+        return getLinesAtHeight(position.getY())
+                .map(i -> (int) (measureLineWidth(lines.getLine(i)) + (metrics.getWidthPoint("space") * getTextSize()))).sum();
     }
 
     @Override
     public int[] getPositionAt(double height) {
-        List<Entry<Position, String>> entries = this.getEntriesAtHeight(height);
-        int[] positions = new int[0];
-        if (!entries.isEmpty()) {
-            positions = new int[entries.size()];
-            for (int i = 0; i < entries.size(); ++i) {
-                positions[i] = (int) entries.get(i).getKey().getX();
-            }
-        }
-        return positions;
+        return getLinesAtHeight(height).map(i -> (int) lines.getX(i)).toArray();
     }
 
     /**
-     * Returns all entries from the textSplit map that are positioned at the given height.
+     * Returns the indices of all lines that are positioned at the given height. The lines that could be at the given height are found through binary search.
      * @param height Height to check.
-     * @return List of entries that are positioned at the given height.
+     * @return the indices of the lines that are positioned at the given height.
      */
-    private List<Entry<Position, String>> getEntriesAtHeight(double height) {
-        List<Entry<Position, String>> entries = new LinkedList<Entry<Position, String>>();
-        int i = 0;
-        for (Entry<Position, String> entry : textSplit.entrySet()) {
-            Position linePos = entry.getKey();
+    private IntStream getLinesAtHeight(double height) {
+        double maxSpaceAbove = Math.max(this.getRequiredSpaceAboveLine(), this.getRequiredSpaceAbove());
+        double maxSpaceBelow = Math.max(this.getRequiredSpaceBelowLine(), this.getRequiredSpaceBelow());
+        int last = lines.size() - 1;
+        return lines.getLinesBetween(height + maxSpaceBelow + FloatEqualityTester.EPSILON, height - maxSpaceAbove - FloatEqualityTester.EPSILON).filter(i -> {
+            double lineY = lines.getY(i);
             double requiredSpaceAbove = (i != 0) ? this.getRequiredSpaceAboveLine() : this.getRequiredSpaceAbove();
-            double requiredSpaceBelow = (i != (textSplit.size() - 1)) ? this.getRequiredSpaceBelowLine() : this.getRequiredSpaceBelow();
-            if (FloatEqualityTester.lessThanOrEqualTo(height, linePos.getY() + requiredSpaceAbove)
-                    && FloatEqualityTester.greaterThanOrEqualTo(height, linePos.getY() - requiredSpaceBelow)) {
-                entries.add(entry);
-            }
-            ++i;
-        }
-        return entries;
+            double requiredSpaceBelow = (i != last) ? this.getRequiredSpaceBelowLine() : this.getRequiredSpaceBelow();
+            return FloatEqualityTester.lessThanOrEqualTo(height, lineY + requiredSpaceAbove)
+                    && FloatEqualityTester.greaterThanOrEqualTo(height, lineY - requiredSpaceBelow);
+        });
     }
 
     @Override
     public List<Space> getUsedSpaces(double height, int pageWidth) {
-        List<Space> spaces = new LinkedList<>();
-        List<Entry<Position, String>> entries = getEntriesAtHeight(height);
-        FontMetrics metrics = getFont().getMetrics();
-        for (Entry<Position, String> entry : entries) {
-            double stringWidth = metrics.getWidthPointOfString(entry.getValue(), getTextSize(), true);
-            if ((entry.equals(getFirstTextSplitEntry()) && this.marginTop > 0) || (entry.equals(getLastTextSplitEntry()) && this.getMarginBottom() > 0)) {
-                spaces.add(new Space(0, pageWidth));
-            } else {
-                spaces.add(new Space((int) entry.getKey().getX(), (int) (entry.getKey().getX() + stringWidth)));
+        int last = lines.size() - 1;
+        return getLinesAtHeight(height).mapToObj(i -> {
+            if ((i == 0 && this.marginTop > 0) || (i == last && this.getMarginBottom() > 0)) {
+                return new Space(0, pageWidth);
             }
-        }
-        return spaces;
-    }
-
-    private Entry<Position, String> getFirstTextSplitEntry() {
-        return textSplit.entrySet().iterator().next();
-    }
-
-    private Entry<Position, String> getLastTextSplitEntry() {
-        Iterator<Entry<Position, String>> iterator = textSplit.entrySet().iterator();
-        Entry<Position, String> lastEntry = null;
-        while (iterator.hasNext()) {
-            lastEntry = iterator.next();
-        }
-        return lastEntry;
+            double stringWidth = measureLineWidth(lines.getLine(i));
+            return new Space((int) lines.getX(i), (int) (lines.getX(i) + stringWidth));
+        }).collect(Collectors.toCollection(LinkedList::new));
     }
 
     @Override
@@ -387,4 +569,220 @@ public class BaseStateText extends AbstractStateText implements StateText {
     public DocumentPart getOriginalObject() {
         return this.originalObject;
     }
+
+    /**
+     * Takes the lines of this text from the shared layout cache as long as the open spaces match the stored lines.
+     * Once a line has to be created by splitting the text, the remaining lines are created by splitting the text as well.
+     * The lines are recorded while each line fills a single open space, the recorded lines are stored once the text has been processed.
+     * @author Dylan de Wolff
+     * @see TextLayoutCache
+     */
+    private final class CachedLayout {
+        private TextLayoutCache.LayoutKey key;
+        private TextLayoutCache.TextLayout stored;
+        private TextLayoutCache.TextLayout recorded = new TextLayoutCache.TextLayout();
+        private boolean recording = true;
+
+        /**
+         * Adds the next line of the text, either from the stored lines or by splitting the text.
+         * @param openSpaces Open spaces that can be filled.
+         * @param words Cursor over the words of the text.
+         * @param pos Position of the line.
+         * @param page The page to add the text to.
+         */
+        void addLine(List<Space> openSpaces, TextWords words, Position pos, Page page) {
+            if (openSpaces.size() != 1) {
+                recording = false;
+                stored = null;
+                splitText(openSpaces, words, pos, page);
+                return;
+            }
+            Space openSpace = openSpaces.get(0);
+            int spaceWidth = openSpace.getEndPoint() - openSpace.getStartPoint();
+            if (key == null) {
+                key = new TextLayoutCache.LayoutKey(words.getSource(), words.getIndex(), words.getStart(words.getIndex()), getFont().getMetrics(),
+                        getTextSize(), getAlignment(), spaceWidth, page.getWidth() - page.getMarginRight());
+                stored = TextLayoutCache.getSharedCache().get(key);
+            }
+            int line = recorded.size();
+            int lineCount = lines.size();
+            if (recording && stored != null && stored.matches(line, spaceWidth)) {
+                BaseStateText.this.addLine(new Position(openSpace.getStartPoint() + stored.getOffset(line), pos.getY()), stored.getStart(line),
+                        stored.getEnd(line), stored.getSuffix(line), stored.getWordSpacing(line));
+                words.moveTo(stored.getNextWord(line), stored.getNextWordStart(line));
+            } else {
+                stored = null;
+                splitText(openSpaces, words, pos, page);
+            }
+            if (recording && lines.size() == lineCount + 1) {
+                recorded.add(spaceWidth, lines.getStart(lineCount), lines.getEnd(lineCount), lines.getSuffix(lineCount),
+                        lines.getX(lineCount) - openSpace.getStartPoint(), lines.getWordSpacing(lineCount), words.getIndex(),
+                        words.getStart(words.getIndex()));
+            } else {
+                recording = false;
+            }
+        }
+
+        /**
+         * Stores the recorded lines in the shared layout cache.
+         */
+        void store() {
+            if (key != null && recorded.size() > 0) {
+                TextLayoutCache.getSharedCache().put(key, recorded);
+            }
+        }
+    }
+
+    /**
+     * The words of a text, stored as offsets in the text instead of separate strings. Words are separated by a single space,
+     * multiple spaces result in empty words. The cursor points to the first word that has not been added to a line yet,
+     * this word can be partially added if it has been cut off. Copies share the text and word offsets, but have their own cursor.
+     * The widths of the words are measured once for each font and size. Copies share the measured widths as long as they use the same font and size.
+     * @author Dylan de Wolff
+     */
+    private static final class TextWords {
+        private static final int INITIAL_CAPACITY = 16;
+        private final String text;
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        private WordWidths widths;
+        private int wordCount = 0;
+        private int index = 0;
+        private int indexStart = 0;
+
+        TextWords(String text) {
+            this.text = text;
+            int wordStart = 0;
+            for (int i = 0; i <= text.length(); ++i) {
+                if (i == text.length() || text.charAt(i) == ' ') {
+                    addWord(wordStart, i);
+                    wordStart = i + 1;
+                }
+            }
+            //trailing empty words are ignored, unless the text itself is empty
+            while (wordCount > 1 && starts[wordCount - 1] == ends[wordCount - 1]) {
+                --wordCount;
+            }
+            if (wordCount == 1 && !text.isEmpty() && starts[0] == ends[0]) {
+                wordCount = 0;
+            }
+        }
+
+        /**
+         * Creates a new cursor over the given words, starting at the current word of the given cursor.
+         */
+        TextWords(TextWords words) {
+            this.text = words.text;
+            this.starts = words.starts;
+            this.ends = words.ends;
+            this.widths = words.widths;
+            this.wordCount = words.wordCount;
+            this.index = words.index;
+            this.indexStart = words.indexStart;
+        }
+
+        private void addWord(int start, int end) {
+            if (wordCount == starts.length) {
+                starts = Arrays.copyOf(starts, wordCount * 2);
+                ends = Arrays.copyOf(ends, wordCount * 2);
+            }
+            starts[wordCount] = start;
+            ends[wordCount] = end;
+            ++wordCount;
+        }
+
+        int getWordCount() {
+            return wordCount;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        int getRemainingWordCount() {
+            return wordCount - index;
+        }
+
+        boolean isFinished() {
+            return index >= wordCount;
+        }
+
+        /**
+         * Returns the offset of the first character of the given word. For the current word this is the first character that has not been added yet.
+         */
+        int getStart(int word) {
+            if (word == index) {
+                return indexStart;
+            }
+            return word < wordCount ? starts[word] : text.length();
+        }
+
+        boolean isWholeWord(int word, int start) {
+            return start == starts[word];
+        }
+
+        int getEnd(int word) {
+            return ends[word];
+        }
+
+        /**
+         * Returns the widths of the words for the given font and size, words that have not been measured yet have a width of NaN.
+         * The widths are shared with the copies of this cursor that use the same font and size.
+         * @param metrics Metrics of the font.
+         * @param textSize Size of the text.
+         * @return the widths of the words.
+         */
+        double[] getWidths(FontMetrics metrics, int textSize) {
+            if (widths == null || widths.metrics != metrics || widths.textSize != textSize) {
+                widths = new WordWidths(metrics, textSize, wordCount);
+            }
+            return widths.widths;
+        }
+
+        char charAt(int offset) {
+            return text.charAt(offset);
+        }
+
+        String getSource() {
+            return text;
+        }
+
+        String getText(int start, int end) {
+            return text.substring(start, end);
+        }
+
+        /**
+         * Returns the text from the cursor up to and including the last word, followed by a space.
+         */
+        String getRemainingText() {
+            return text.substring(getStart(index), ends[wordCount - 1]) + " ";
+        }
+
+        /**
+         * Moves the cursor to the given word.
+         * @param word The word.
+         * @param start Offset of the first character of the word that has not been added to a line yet.
+         */
+        void moveTo(int word, int start) {
+            index = word;
+            indexStart = word < wordCount ? start : text.length();
+        }
+    }
+
+    /**
+     * The widths of the words of a text, measured with a single font and size.
+     * @author Dylan de Wolff
+     */
+    private static final class WordWidths {
+        private final FontMetrics metrics;
+        private final int textSize;
+        private final double[] widths;
+
+        WordWidths(FontMetrics metrics, int textSize, int wordCount) {
+            this.metrics = metrics;
+            this.textSize = textSize;
+            this.widths = new double[wordCount];
+            Arrays.fill(widths, Double.NaN);
+        }
+    }
 }
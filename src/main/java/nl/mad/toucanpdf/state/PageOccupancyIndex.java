@@ -0,0 +1,154 @@
+package nl.mad.toucanpdf.state;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import nl.mad.toucanpdf.model.DocumentPart;
+import nl.mad.toucanpdf.model.DocumentPartType;
+import nl.mad.toucanpdf.model.Page;
+import nl.mad.toucanpdf.model.Paragraph;
+import nl.mad.toucanpdf.model.state.StatePlaceableDocumentPart;
+import nl.mad.toucanpdf.utility.FloatEqualityTester;
+
+/**
+ * Interval index containing the vertical regions occupied by the positioned parts on a page. Paragraphs are expanded into their text objects.
+ * The parts are sorted on the bottom of their region and stored as an implicit binary search tree, in which each node also stores the highest top
+ * of its subtree. This allows the parts overlapping a vertical range to be found in logarithmic time, instead of checking every part on the page.
+ * The index is a snapshot of the page, {@link BaseStatePage} keeps it until the content of the page changes or another part is being positioned.
+ * @author Dylan de Wolff
+ * @see BaseStatePage
+ */
+public class PageOccupancyIndex {
+    private final StatePlaceableDocumentPart[] parts;
+    private final int[] contentIndices;
+    private final double[] bottoms;
+    private final double[] tops;
+    private final double[] maxTops;
+
+    /**
+     * Creates a new index for the content of the given page.
+     * @param page Page to create the index for.
+     * @param ignoredPart Part that should not be included in the index, usually the part that is being positioned. Can be null.
+     */
+    public PageOccupancyIndex(Page page, Object ignoredPart) {
+        List<Region> regions = getRegions(page, ignoredPart);
+        regions.sort((a, b) -> Double.compare(a.bottom, b.bottom));
+        int size = regions.size();
+        parts = new StatePlaceableDocumentPart[size];
+        contentIndices = new int[size];
+        bottoms = new double[size];
+        tops = new double[size];
+        maxTops = new double[size];
+        for (int i = 0; i < size; ++i) {
+            Region region = regions.get(i);
+            parts[i] = region.part;
+            contentIndices[i] = region.contentIndex;
+            bottoms[i] = region.bottom;
+            tops[i] = region.top;
+        }
+        fillMaxTops(0, size);
+    }
+
+    /**
+     * Determines the occupied region of each positioned part on the given page.
+     * @param page Page containing the parts.
+     * @param ignoredPart Part to ignore.
+     * @return List of regions in the order of the page content.
+     */
+    private List<Region> getRegions(Page page, Object ignoredPart) {
+        List<Region> regions = new ArrayList<Region>();
+        int contentIndex = 0;
+        for (DocumentPart p : page.getContent()) {
+            if (p instanceof StatePlaceableDocumentPart && !p.equals(ignoredPart)) {
+                if (DocumentPartType.PARAGRAPH.equals(p.getType())) {
+                    for (DocumentPart text : ((Paragraph) p).getTextCollection()) {
+                        if (text instanceof StatePlaceableDocumentPart && !text.equals(ignoredPart)) {
+                            addRegion(regions, page, (StatePlaceableDocumentPart) text, contentIndex++);
+                        }
+                    }
+                } else {
+                    addRegion(regions, page, (StatePlaceableDocumentPart) p, contentIndex++);
+                }
+            }
+        }
+        return regions;
+    }
+
+    private void addRegion(List<Region> regions, Page page, StatePlaceableDocumentPart part, int contentIndex) {
+        if (part.getPosition().hasCustomPosition()) {
+            double top = part.getPosition().getY() + part.getRequiredSpaceAbove();
+            double bottom = part.getPosition().getY() - part.getContentHeight(page) - part.getMarginBottom();
+            regions.add(new Region(part, contentIndex, Math.min(bottom, top), Math.max(bottom, top)));
+        }
+    }
+
+    private double fillMaxTops(int from, int to) {
+        if (from >= to) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int middle = (from + to) >>> 1;
+        maxTops[middle] = Math.max(tops[middle], Math.max(fillMaxTops(from, middle), fillMaxTops(middle + 1, to)));
+        return maxTops[middle];
+    }
+
+    /**
+     * Returns the parts whose region overlaps the given vertical range. The boundaries of the range are extended by the default epsilon value.
+     * @param bottom Bottom of the range.
+     * @param top Top of the range.
+     * @return List of parts in the order in which they appear on the page.
+     */
+    public List<StatePlaceableDocumentPart> getPartsBetween(double bottom, double top) {
+        List<Integer> found = new ArrayList<Integer>();
+        find(0, parts.length, bottom - FloatEqualityTester.EPSILON, top + FloatEqualityTester.EPSILON, found);
+        found.sort(Comparator.comparingInt(i -> contentIndices[i]));
+        List<StatePlaceableDocumentPart> result = new ArrayList<StatePlaceableDocumentPart>(found.size());
+        for (int index : found) {
+            result.add(parts[index]);
+        }
+        return result;
+    }
+
+    private void find(int from, int to, double bottom, double top, List<Integer> found) {
+        if (from >= to) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        if (maxTops[middle] < bottom) {
+            return;
+        }
+        find(from, middle, bottom, top, found);
+        //the parts after the middle start even higher
+        if (bottoms[middle] > top) {
+            return;
+        }
+        if (tops[middle] >= bottom) {
+            found.add(middle);
+        }
+        find(middle + 1, to, bottom, top, found);
+    }
+
+    /**
+     * @return the amount of parts in the index.
+     */
+    public int size() {
+        return parts.length;
+    }
+
+    /**
+     * Region occupied by a single part.
+     */
+    private static class Region {
+        private final StatePlaceableDocumentPart part;
+        private final int contentIndex;
+        private final double bottom;
+        private final double top;
+
+        Region(StatePlaceableDocumentPart part, int contentIndex, double bottom, double top) {
+            this.part = part;
+            this.contentIndex = contentIndex;
+            this.bottom = bottom;
+            this.top = top;
+        }
+    }
+}
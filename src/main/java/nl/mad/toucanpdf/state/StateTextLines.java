@@ -0,0 +1,338 @@
+package nl.mad.toucanpdf.state;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import nl.mad.toucanpdf.model.Position;
+
+/**
+ * The laid out lines of a text, stored in parallel arrays instead of a map containing a position and string per line.
+ * Lines usually refer to a range of the source text, followed by a space or a dash, which means the line itself is only created when it is requested.
+ * Lines that are not part of the source text can be added as separate strings.
+ * As long as each line is added at the same height or below the previous line, the lines between two heights are found through binary search.
+ * The map based methods of the text objects are offered through read-only views on these lines.
+ * @author Dylan de Wolff
+ * @see AbstractStateText
+ */
+public class StateTextLines {
+    private static final int INITIAL_CAPACITY = 8;
+    private final String source;
+    private final boolean justified;
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private char[] suffixes = new char[INITIAL_CAPACITY];
+    private double[] wordSpacing;
+    private String[] strings;
+    private int size = 0;
+    private boolean sorted = true;
+
+    /**
+     * Creates a new instance without any lines.
+     * @param source Text the lines refer to, can be null if the lines are added as separate strings.
+     * @param justified Whether the lines are justified. The word spacing of each line is only stored for justified lines.
+     */
+    public StateTextLines(String source, boolean justified) {
+        this.source = source;
+        this.justified = justified;
+        if (justified) {
+            wordSpacing = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Adds a line that consists of a range of the source text followed by the given suffix.
+     * @param position Position of the line.
+     * @param start Offset of the first character of the line in the source text.
+     * @param end Offset after the last character of the line in the source text.
+     * @param suffix Character that follows the line, usually a space or a dash.
+     * @param spacing Word spacing of the line, this is ignored if the lines are not justified.
+     */
+    public void add(Position position, int start, int end, char suffix, double spacing) {
+        int index = addPosition(position, spacing);
+        starts[index] = start;
+        ends[index] = end;
+        suffixes[index] = suffix;
+    }
+
+    /**
+     * Adds a line that is not part of the source text.
+     * @param position Position of the line.
+     * @param line The line itself.
+     * @param spacing Word spacing of the line, this is ignored if the lines are not justified.
+     */
+    public void add(Position position, String line, double spacing) {
+        int index = addPosition(position, spacing);
+        if (strings == null) {
+            strings = new String[x.length];
+        }
+        strings[index] = line;
+    }
+
+    private int addPosition(Position position, double spacing) {
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            suffixes = Arrays.copyOf(suffixes, capacity);
+            if (wordSpacing != null) {
+                wordSpacing = Arrays.copyOf(wordSpacing, capacity);
+            }
+            if (strings != null) {
+                strings = Arrays.copyOf(strings, capacity);
+            }
+        }
+        if (size > 0 && position.getY() > y[size - 1]) {
+            sorted = false;
+        }
+        x[size] = position.getX();
+        y[size] = position.getY();
+        if (justified) {
+            wordSpacing[size] = spacing;
+        }
+        return size++;
+    }
+
+    /**
+     * @return the amount of lines.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if there are no lines, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Index of the line.
+     * @return the x position of the line.
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * @param index Index of the line.
+     * @return the y position of the line.
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * @param index Index of the line.
+     * @return offset of the first character of the line in the source text. Only valid for lines that refer to the source text.
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index Index of the line.
+     * @return offset after the last character of the line in the source text. Only valid for lines that refer to the source text.
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @param index Index of the line.
+     * @return the character that follows the line. Only valid for lines that refer to the source text.
+     */
+    public char getSuffix(int index) {
+        return suffixes[index];
+    }
+
+    /**
+     * @param index Index of the line.
+     * @return the word spacing of the line, 0 if the lines are not justified.
+     */
+    public double getWordSpacing(int index) {
+        return justified ? wordSpacing[index] : 0;
+    }
+
+    /**
+     * @return true if the lines are justified, false otherwise.
+     */
+    public boolean isJustified() {
+        return justified;
+    }
+
+    /**
+     * @return the text the lines refer to.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the line with the given index. Lines that refer to the source text are created on every call.
+     * @param index Index of the line.
+     * @return the line.
+     */
+    public String getLine(int index) {
+        if (strings != null && strings[index] != null) {
+            return strings[index];
+        }
+        return new StringBuilder(ends[index] - starts[index] + 1).append(source, starts[index], ends[index]).append(suffixes[index]).toString();
+    }
+
+    /**
+     * Moves all lines vertically by the given amount.
+     * @param adjustment Amount to add to the y position of each line.
+     */
+    public void adjustY(double adjustment) {
+        for (int i = 0; i < size; ++i) {
+            y[i] += adjustment;
+        }
+    }
+
+    /**
+     * Returns the indices of the lines positioned between the given heights, in the order the lines have been added.
+     * @param top Highest position to include.
+     * @param bottom Lowest position to include.
+     * @return the indices of the lines.
+     */
+    public IntStream getLinesBetween(double top, double bottom) {
+        if (!sorted) {
+            return IntStream.range(0, size).filter(i -> y[i] <= top && y[i] >= bottom);
+        }
+        return IntStream.range(getFirstLineBelow(top, true), getFirstLineBelow(bottom, false));
+    }
+
+    /**
+     * Returns the index of the first line positioned below the given height. This requires the lines to be sorted from top to bottom.
+     * @param height Height to check.
+     * @param inclusive Whether lines positioned exactly on the given height are included.
+     * @return index of the first line below the given height, the amount of lines if there is no such line.
+     */
+    private int getFirstLineBelow(double height, boolean inclusive) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (y[middle] > height || (!inclusive && y[middle] == height)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(Object key) {
+        if (key instanceof Position) {
+            Position position = (Position) key;
+            long xBits = Double.doubleToLongBits(position.getX());
+            long yBits = Double.doubleToLongBits(position.getY());
+            return getLinesBetween(position.getY(), position.getY())
+                    .filter(i -> xBits == Double.doubleToLongBits(x[i]) && yBits == Double.doubleToLongBits(y[i])).findFirst().orElse(-1);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a read-only view of the lines that maps the position of each line to the line itself.
+     * @return map containing the lines.
+     */
+    public Map<Position, String> getTextSplit() {
+        return new LineMap<String>() {
+            @Override
+            String getValue(int index) {
+                return getLine(index);
+            }
+        };
+    }
+
+    /**
+     * Returns a read-only view that maps the position of each line to its word spacing. The view is empty if the lines are not justified.
+     * @return map containing the word spacing of each line.
+     */
+    public Map<Position, Double> getJustificationOffset() {
+        return new LineMap<Double>() {
+            @Override
+            int getLineCount() {
+                return justified ? size : 0;
+            }
+
+            @Override
+            Double getValue(int index) {
+                return wordSpacing[index];
+            }
+        };
+    }
+
+    /**
+     * Read-only map view on the lines. Positions are created on every call.
+     */
+    private abstract class LineMap<V> extends AbstractMap<Position, V> {
+
+        abstract V getValue(int index);
+
+        int getLineCount() {
+            return size;
+        }
+
+        @Override
+        public int size() {
+            return getLineCount();
+        }
+
+        @Override
+        public V get(Object key) {
+            int index = indexOf(key);
+            return index != -1 && index < getLineCount() ? getValue(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int index = indexOf(key);
+            return index != -1 && index < getLineCount();
+        }
+
+        @Override
+        public Set<Entry<Position, V>> entrySet() {
+            return new AbstractSet<Entry<Position, V>>() {
+                @Override
+                public Iterator<Entry<Position, V>> iterator() {
+                    return new Iterator<Entry<Position, V>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < getLineCount();
+                        }
+
+                        @Override
+                        public Entry<Position, V> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<Position, V> entry = new SimpleImmutableEntry<>(new Position(x[index], y[index]), getValue(index));
+                            ++index;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return getLineCount();
+                }
+            };
+        }
+    }
+}
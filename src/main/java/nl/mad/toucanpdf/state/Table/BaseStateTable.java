@@ -1,11 +1,14 @@
 package nl.mad.toucanpdf.state.Table;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import nl.mad.toucanpdf.api.AbstractTable;
 import nl.mad.toucanpdf.api.BaseCell;
+import nl.mad.toucanpdf.api.BaseText;
 import nl.mad.toucanpdf.model.Cell;
 import nl.mad.toucanpdf.model.DocumentPart;
 import nl.mad.toucanpdf.model.Page;
@@ -27,12 +30,18 @@ import org.slf4j.LoggerFactory;
 public class BaseStateTable extends AbstractTable implements StateTable {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseStateTable.class);
     private static final double MINIMUM_PAGE_HEIGHT_REQUIRED = 0.25;
+    //amount of rows pulled from the row source before the column widths are determined
+    private static final int ROW_SOURCE_SAMPLE_SIZE = 100;
     private DocumentPart originalObject;
     private List<StateCell> content = new LinkedList<StateCell>();
     private StateTableRow header = null;
     private List<StateTableRow> rows;
     private boolean original = true;
     private double[] originalColumnWidths;
+    private Iterator<? extends Iterable<?>> rowCursor;
+    private List<List<StateCell>> sourceRows = new LinkedList<>();
+    private List<StateTableRow> rowModel;
+    private int startRow;
 
     /**
      * Creates a new instance of BaseStateTable.
@@ -51,11 +60,27 @@ public class BaseStateTable extends AbstractTable implements StateTable {
      */
     public BaseStateTable(Table table) {
         super(table);
+        if (table instanceof BaseStateTable) {
+            copyRemainingRows((BaseStateTable) table);
+        }
         if (table instanceof StateTable) {
             copyStateTable((StateTable) table);
+        } else if (table.getRowSource() != null) {
+            this.rowCursor = table.getRowSource().iterator();
         }
     }
 
+    /**
+     * Takes over the rows the given table has left to place, which are shared instead of copied.
+     * @param table Table to take the remaining rows from.
+     */
+    private void copyRemainingRows(BaseStateTable table) {
+        this.rowModel = table.rowModel;
+        this.startRow = table.startRow;
+        this.rowCursor = table.rowCursor;
+        this.sourceRows = new LinkedList<>(table.sourceRows);
+    }
+
     private void copyStateTable(StateTable table) {
         this.original = table.isOriginal();
         this.originalColumnWidths = table.getOriginalWidths();
@@ -136,8 +161,8 @@ public class BaseStateTable extends AbstractTable implements StateTable {
      */
     public StateTable processContentSize(StatePage page, boolean wrapping, boolean processAlignment, boolean processPositioning, boolean fixed,
             boolean ignoreOverflow) {
+        moveSourceRowToContent();
         List<StateCell> tableContent = copyContent();
-        rows = new LinkedList<>();
         int availableHeight = 0;
         height = marginBottom + marginTop;
 
@@ -154,7 +179,12 @@ public class BaseStateTable extends AbstractTable implements StateTable {
         }
 
         validateColumnSpans(tableContent);
-        placeContentInRows(tableContent);
+        if (rowModel != null) {
+            placeRemainingRows();
+        } else {
+            placeContentInRows(tableContent);
+            placeSourceRows();
+        }
 
         //finalize the cell widths, heights and execute positioning
         Position cellPos = new Position(this.getPosition());
@@ -163,7 +193,8 @@ public class BaseStateTable extends AbstractTable implements StateTable {
 
         //add cells to fill up empty columns in the table
         if (getDrawFiller()) {
-            fillEmptyCells(rows, tableContent);
+            //the remaining rows have already been filled by the table this table continues, except for a repeated header
+            fillEmptyCells(rowModel != null ? rows.subList(0, rows.size() - (rowModel.size() - startRow)) : rows, tableContent);
         }
 
         return applyCellSize(page, processPositioning, fixed, ignoreOverflow, availableHeight, cellPos, widths);
@@ -175,7 +206,7 @@ public class BaseStateTable extends AbstractTable implements StateTable {
         boolean overflowDetected = false;
         int index = 0;
         int overflowRow = rows.size();
-        while (!overflowDetected && index < rows.size()) {
+        while (!overflowDetected && (index < rows.size() || pullSourceRow())) {
             StateTableRow row = rows.get(index);
             //apply the calculated widths to the columns
             applyColumnWidths(widths, row.getContent());
@@ -183,7 +214,7 @@ public class BaseStateTable extends AbstractTable implements StateTable {
             positionCellsForRow(row.getContent(), cellPos, widths);
 
             //determine height for row and apply it to each column in this row
-            determineRowHeight(rows, rows.indexOf(row), page.getLeading());
+            determineRowHeight(rows, index, page.getLeading());
             if (!fixed) {
                 if (!ignoreOverflow) {
                     overflow = processOverflow(rows, index, availableHeight);
@@ -212,6 +243,7 @@ public class BaseStateTable extends AbstractTable implements StateTable {
 
         List<StateCell> cells = combineCellsFromRows(rows);
         if (processPositioning) {
+            releasePlacedRows(overflow);
             FinalizePositioning(page, cells);
         } else {
             this.height = Math.min((int) (MINIMUM_PAGE_HEIGHT_REQUIRED * page.getHeight()), this.height);
@@ -232,15 +264,122 @@ public class BaseStateTable extends AbstractTable implements StateTable {
         return this.originalColumnWidths;
     }
 
+    /**
+     * Makes sure the content of the table is not empty as long as the row source has rows left, so the first row of the source is placed like
+     * any other content. This allows the first row to be used as header.
+     */
+    private void moveSourceRowToContent() {
+        if (rowModel == null && content.isEmpty() && (!sourceRows.isEmpty() || pullSourceRowToBuffer())) {
+            content.addAll(sourceRows.remove(0));
+        }
+    }
+
+    /**
+     * Adds the rows from the row source that have already been pulled to the rows of this table. If this is the original table, rows are pulled
+     * until enough rows are available to determine the column widths with.
+     */
+    private void placeSourceRows() {
+        for (List<StateCell> sourceRow : sourceRows) {
+            rows.add(createSourceRow(sourceRow));
+        }
+        if (original) {
+            while (sourceRows.size() < ROW_SOURCE_SAMPLE_SIZE && pullSourceRow()) {
+                //rows are added by pullSourceRow
+            }
+        }
+    }
+
+    /**
+     * Pulls the next row from the row source and adds it to the rows of this table.
+     * @return true if a row was added, false if the row source has no rows left.
+     */
+    private boolean pullSourceRow() {
+        if (pullSourceRowToBuffer()) {
+            rows.add(createSourceRow(sourceRows.get(sourceRows.size() - 1)));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean pullSourceRowToBuffer() {
+        if (rowCursor == null || !rowCursor.hasNext()) {
+            return false;
+        }
+        List<StateCell> cells = new LinkedList<>();
+        for (Object value : rowCursor.next()) {
+            cells.add(createSourceCell(value));
+        }
+        sourceRows.add(cells);
+        return true;
+    }
+
+    private StateCell createSourceCell(Object value) {
+        if (value instanceof Cell) {
+            return new BaseStateCell((Cell) value);
+        } else if (value instanceof PlaceableDocumentPart) {
+            return new BaseStateCell(new BaseCell((PlaceableDocumentPart) value));
+        }
+        return new BaseStateCell(new BaseCell(new BaseText(String.valueOf(value))));
+    }
+
+    /**
+     * Creates a table row containing copies of the given cells. The cells are placed in consecutive columns.
+     * @param sourceRow Cells to place.
+     * @return the new row.
+     */
+    private StateTableRow createSourceRow(List<StateCell> sourceRow) {
+        StateTableRow row = new StateTableRow(this.columnAmount);
+        Cell[] rowContent = row.getContent();
+        int column = 0;
+        for (StateCell sourceCell : sourceRow) {
+            StateCell c = new BaseStateCell(sourceCell);
+            c.columnSpan(Math.min(c.getColumnSpan(), this.columnAmount));
+            if (column + c.getColumnSpan() <= this.columnAmount) {
+                applyDefaultBorderAndPadding(c);
+                rowContent[column] = c;
+                column += c.getColumnSpan();
+                if (c.getStateCellContent() != null && c.getStateCellContent().getSpecifiedWidth() == 0) {
+                    row.addNoWidthSpecifiedCell(c);
+                }
+            }
+        }
+        if (getDrawFiller()) {
+            for (; column < this.columnAmount; ++column) {
+                StateCell c = new BaseStateCell();
+                c.border(this.borderWidth).padding(this.padding);
+                rowContent[column] = c;
+            }
+        }
+        return row;
+    }
+
+    private void applyDefaultBorderAndPadding(StateCell c) {
+        if (c.getBorderWidth() == null) {
+            c.border(this.borderWidth);
+        }
+        if (c.getPadding() == null) {
+            c.padding(this.padding);
+        }
+    }
+
     private void placeContentInRows(List<StateCell> tableContent) {
-        addHeaderToRows(rows);
+        List<StateTableRow> placedRows = new ArrayList<>();
+        addHeaderToRows(placedRows);
         StateTableCellPlacer cellPlacer = new StateTableCellPlacer(tableContent, this.columnAmount);
-        rows = cellPlacer.divideColumnsOverRows(rows);
+        rows = new StateTableRowRange(null, cellPlacer.divideColumnsOverRows(placedRows), 0);
         if (this.header == null && rows.size() > 0) {
             this.setNewHeaderBasedOnContent(tableContent);
         }
     }
 
+    /**
+     * Continues with the rows that the table this table continues could not place.
+     */
+    private void placeRemainingRows() {
+        StateTableRow repeatedHeader = (header != null && this.isRepeatingHeader()) ? header : null;
+        rows = new StateTableRowRange(repeatedHeader, rowModel, startRow);
+    }
+
     private void addHeaderToRows(List<StateTableRow> rows) {
         if (header != null && (original || this.isRepeatingHeader())) {
             rows.add(0, header);
@@ -294,9 +433,36 @@ public class BaseStateTable extends AbstractTable implements StateTable {
             }
         }
         this.content = cells;
+        //the rows pulled from the source and the remaining rows are now part of the content
+        this.sourceRows = new LinkedList<>();
+        this.rowCursor = null;
+        this.rowModel = null;
         this.adjustFilledHeight(page);
     }
 
+    /**
+     * Releases the rows placed by this table from the rows it shares with the table that continues it, so the rows of a completed page are
+     * only referenced by the table on that page. The shared rows are compacted once more rows have been released than are left,
+     * which keeps the shared rows bounded while each row is copied at most once on average.
+     * @param overflow Table continuing this table, can be null.
+     */
+    private void releasePlacedRows(StateTable overflow) {
+        if (!(overflow instanceof BaseStateTable) || ((BaseStateTable) overflow).rowModel == null) {
+            return;
+        }
+        BaseStateTable next = (BaseStateTable) overflow;
+        List<StateTableRow> sharedRows = next.rowModel;
+        //the rows before the start of this table have already been released by the tables before it
+        int from = rowModel == sharedRows ? startRow : 0;
+        for (int i = from; i < next.startRow; ++i) {
+            sharedRows.set(i, null);
+        }
+        if (next.startRow > sharedRows.size() - next.startRow) {
+            next.rowModel = new ArrayList<>(sharedRows.subList(next.startRow, sharedRows.size()));
+            next.startRow = 0;
+        }
+    }
+
     private void determineCellPadding(List<StateCell> tableContent) {
         for (StateCell stateCell : tableContent) {
             Double padding = stateCell.getPadding();
@@ -333,31 +499,20 @@ public class BaseStateTable extends AbstractTable implements StateTable {
         StateTableRow current = rows.get(index);
         StateTable overflow = null;
         if (isHeightCausingOverflow(current, availableHeight)) {
-            overflow = new BaseStateTable(this, originalColumnWidths);
-            overflow.setOriginal(false);
-            overflow.setHeader(this.header);
-
-            int rowSize = rows.size();
-            for (int i = index; i < rowSize; ++i) {
-                for (Cell cell : rows.get(i).getContent()) {
-                    overflow.addCell(cell);
-                }
-            }
-
-            for (int i = rowSize - 1; i >= index; --i) {
-                removeRow(rows, i);
-            }
+            BaseStateTable overflowTable = new BaseStateTable(this, originalColumnWidths);
+            overflowTable.setHeader(this.header);
+            //the remaining rows are shared with the overflow table, together with the remainder of the row source
+            StateTableRowRange range = (StateTableRowRange) rows;
+            overflowTable.rowModel = range.getRows();
+            overflowTable.startRow = range.toRowIndex(index);
+            overflowTable.rowCursor = this.rowCursor;
+            this.rowCursor = null;
+            this.rows = new ArrayList<>(rows.subList(0, index));
+            overflow = overflowTable;
         }
         return overflow;
     }
 
-    private void removeRow(List<StateTableRow> rows, int i) {
-        for (Cell cell : rows.get(i).getContent()) {
-            this.content.remove(cell);
-        }
-        rows.remove(i);
-    }
-
     private boolean isHeightCausingOverflow(StateTableRow current, int availableHeight) {
         return (current.getMaxHeight() + this.height > availableHeight);
     }
@@ -639,6 +794,25 @@ public class BaseStateTable extends AbstractTable implements StateTable {
     public List<Cell> getContent() {
         List<Cell> cells = new LinkedList<>();
         cells.addAll(this.content);
+        cells.addAll(getRemainingCells());
+        return cells;
+    }
+
+    /**
+     * Returns the cells of the rows this table continues with that have not been placed yet.
+     * @return list of cells.
+     */
+    private List<StateCell> getRemainingCells() {
+        List<StateCell> cells = new LinkedList<>();
+        if (rowModel != null) {
+            for (StateTableRow row : rowModel.subList(startRow, rowModel.size())) {
+                for (Cell c : row.getContent()) {
+                    if (c != null) {
+                        cells.add((StateCell) c);
+                    }
+                }
+            }
+        }
         return cells;
     }
 
@@ -651,6 +825,7 @@ public class BaseStateTable extends AbstractTable implements StateTable {
     public List<StateCell> getStateCellCollection() {
         LinkedList<StateCell> cells = new LinkedList<>();
         cells.addAll(this.content);
+        cells.addAll(getRemainingCells());
         return cells;
     }
 
@@ -0,0 +1,154 @@
+package nl.mad.toucanpdf.state.Table;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import nl.mad.toucanpdf.model.Cell;
+import nl.mad.toucanpdf.model.state.StateCell;
+
+/**
+ * Measures the cells of a range of table rows and stores the widths required by each column in primitive arrays.
+ * Each cell is measured once. Large ranges are split in halves that are measured in parallel.
+ * Columns that contain no cells have a minimum and total width of NaN.
+ * @author Dylan de Wolff
+ * @see StateTableColumnWidthCalculator
+ */
+public class StateTableCellMeasurer extends RecursiveTask<StateTableCellMeasurer> {
+    private static final long serialVersionUID = 1L;
+    //ranges containing at most this amount of rows are measured on a single thread
+    private static final int ROW_THRESHOLD = 64;
+    private final transient StateTableRow[] rows;
+    private final int from;
+    private final int to;
+    private final boolean measureMinimumWidths;
+    private final double[] requiredWidths;
+    private final double[] minimumWidths;
+    private final double[] totalWidths;
+
+    /**
+     * Creates a new measurer for the given rows.
+     * @param rows Rows to measure.
+     * @param columnAmount Amount of columns of the table.
+     * @param measureMinimumWidths Whether the minimum widths should be measured.
+     */
+    public StateTableCellMeasurer(StateTableRow[] rows, int columnAmount, boolean measureMinimumWidths) {
+        this(rows, 0, rows.length, columnAmount, measureMinimumWidths);
+    }
+
+    private StateTableCellMeasurer(StateTableRow[] rows, int from, int to, int columnAmount, boolean measureMinimumWidths) {
+        this.rows = rows;
+        this.from = from;
+        this.to = to;
+        this.measureMinimumWidths = measureMinimumWidths;
+        this.requiredWidths = new double[columnAmount];
+        this.minimumWidths = new double[columnAmount];
+        this.totalWidths = new double[columnAmount];
+        Arrays.fill(minimumWidths, Double.NaN);
+        Arrays.fill(totalWidths, Double.NaN);
+    }
+
+    @Override
+    protected StateTableCellMeasurer compute() {
+        if (to - from <= ROW_THRESHOLD) {
+            for (int i = from; i < to; ++i) {
+                measureRow(rows[i].getContent());
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            StateTableCellMeasurer first = new StateTableCellMeasurer(rows, from, middle, requiredWidths.length, measureMinimumWidths);
+            StateTableCellMeasurer second = new StateTableCellMeasurer(rows, middle, to, requiredWidths.length, measureMinimumWidths);
+            invokeAll(first, second);
+            merge(first.join());
+            merge(second.join());
+        }
+        return this;
+    }
+
+    private void measureRow(Cell[] content) {
+        for (int i = 0; i < content.length; ++i) {
+            StateCell cell = (StateCell) content[i];
+            if (cell != null) {
+                int span = cell.getColumnSpan();
+                requiredWidths[i] = Math.max(cell.getRequiredWidth() / span, requiredWidths[i]);
+                if (measureMinimumWidths) {
+                    minimumWidths[i] = max(minimumWidths[i], getMinimumWidth(cell) / span);
+                }
+                totalWidths[i] = max(totalWidths[i], getTotalRequiredWidth(cell) / span);
+            }
+        }
+    }
+
+    /**
+     * Measures the minimum widths of the given row only. This is used when the header row is prioritized.
+     * @param content Content of the row.
+     * @return the minimum width of each column in the row.
+     */
+    public static double[] measureMinimumWidths(Cell[] content) {
+        double[] widths = new double[content.length];
+        Arrays.fill(widths, Double.NaN);
+        for (int i = 0; i < content.length; ++i) {
+            StateCell cell = (StateCell) content[i];
+            if (cell != null) {
+                widths[i] = max(widths[i], getMinimumWidth(cell) / cell.getColumnSpan());
+            }
+        }
+        return widths;
+    }
+
+    private static double getMinimumWidth(StateCell cell) {
+        double minWidth = cell.getWidth();
+        if (minWidth == 0) {
+            minWidth = cell.getStateCellContent() != null ? cell.getStateCellContent().getMinimumWidth() + (cell.getPadding() * 2) + cell.getBorderWidth()
+                    : 0;
+        }
+        return minWidth;
+    }
+
+    private static double getTotalRequiredWidth(StateCell cell) {
+        double totalWidthRequired = cell.getWidth();
+        if (totalWidthRequired == 0) {
+            totalWidthRequired = cell.getStateCellContent() != null ? cell.getStateCellContent().getTotalRequiredWidth() + (cell.getPadding() * 2)
+                    + cell.getBorderWidth() : 0;
+        }
+        return totalWidthRequired;
+    }
+
+    private void merge(StateTableCellMeasurer other) {
+        for (int i = 0; i < requiredWidths.length; ++i) {
+            requiredWidths[i] = Math.max(requiredWidths[i], other.requiredWidths[i]);
+            minimumWidths[i] = max(minimumWidths[i], other.minimumWidths[i]);
+            totalWidths[i] = max(totalWidths[i], other.totalWidths[i]);
+        }
+    }
+
+    /**
+     * Returns the largest of the given values, NaN values are ignored unless both values are NaN.
+     */
+    private static double max(double current, double value) {
+        if (Double.isNaN(current) || value > current) {
+            return value;
+        }
+        return current;
+    }
+
+    /**
+     * @return the width each column requires at least.
+     */
+    public double[] getRequiredWidths() {
+        return requiredWidths;
+    }
+
+    /**
+     * @return the minimum width of each column, NaN for columns without cells or if minimum widths were not measured.
+     */
+    public double[] getMinimumWidths() {
+        return minimumWidths;
+    }
+
+    /**
+     * @return the width each column needs to place the content of its cells on a single line, NaN for columns without cells.
+     */
+    public double[] getTotalWidths() {
+        return totalWidths;
+    }
+}
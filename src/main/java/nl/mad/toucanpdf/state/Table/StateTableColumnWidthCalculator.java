@@ -6,15 +6,13 @@ import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-import nl.mad.toucanpdf.model.Cell;
-import nl.mad.toucanpdf.model.state.StateCell;
-
 public class StateTableColumnWidthCalculator {
     //columns that require a width less than the table width * this percentage will be prioritized during the dividing of width
     private static final double PRIORITY_COLUMN_WIDTH_PERCENTAGE = 0.2;
     private int columnAmount;
     private double width;
     private List<StateTableRow> rows;
+    private StateTableCellMeasurer measurer;
 
     public StateTableColumnWidthCalculator(int columnAmount, double width) {
         this.columnAmount = columnAmount;
@@ -24,6 +22,9 @@ public class StateTableColumnWidthCalculator {
     public double[] calculateColumnWidths(List<StateTableRow> rowList, boolean prioritizeHeaderWidth) {
         double[] columnWidths = getDefaultWidths();
         this.rows = rowList;
+        //every cell is measured once, the width distribution below only uses the measured widths
+        this.measurer = new StateTableCellMeasurer(rowList.toArray(new StateTableRow[rowList.size()]), columnAmount, !prioritizeHeaderWidth);
+        this.measurer.invoke();
 
         determineMaxWidths(columnWidths);
         double remainingWidth = width - determineWidthUsed(columnWidths);
@@ -35,7 +36,10 @@ public class StateTableColumnWidthCalculator {
     }
 
     private void determineMaxWidths(double[] columnWidths) {
-        rows.stream().forEach(row -> determineMaxWidthsForRow(columnWidths, row.getContent()));
+        double[] requiredWidths = measurer.getRequiredWidths();
+        for (int i = 0; i < this.columnAmount; ++i) {
+            columnWidths[i] = Math.max(requiredWidths[i], columnWidths[i]);
+        }
     }
 
     private double[] getDefaultWidths() {
@@ -79,9 +83,9 @@ public class StateTableColumnWidthCalculator {
 
     private void determineMinWidthsForTable(List<StateTableRow> rows, boolean prioritizeHeaderWidth, ColumnPossibleWidth[] minColumnWidths) {
         if(prioritizeHeaderWidth) {
-            determineMinWidthsForRow(minColumnWidths, rows.get(0).getContent());
+            toPossibleWidths(StateTableCellMeasurer.measureMinimumWidths(rows.get(0).getContent()), minColumnWidths);
         } else {
-            rows.stream().forEach(row -> determineMinWidthsForRow(minColumnWidths, row.getContent()));
+            toPossibleWidths(measurer.getMinimumWidths(), minColumnWidths);
         }
     }
 
@@ -124,16 +128,10 @@ public class StateTableColumnWidthCalculator {
         return totalColumnWidthRequired <= remainingWidth;
     }
 
-    private void determineMinWidthsForRow(ColumnPossibleWidth[] minColumnWidths, Cell[] content) {
-        for (int i = 0; i < content.length; ++i) {
-            StateCell cell = (StateCell) content[i];
-            if (cell != null) {
-                double minWidth = cell.getWidth();
-                if (minWidth == 0) {
-                    minWidth = cell.getStateCellContent() != null ? cell.getStateCellContent().getMinimumWidth() + (cell.getPadding() * 2)
-                            + cell.getBorderWidth() : 0;
-                }
-                ReplaceWidthIfNewWidthIsLarger(minColumnWidths, i, cell, minWidth);
+    private void toPossibleWidths(double[] widths, ColumnPossibleWidth[] possibleWidths) {
+        for (int i = 0; i < widths.length; ++i) {
+            if (!Double.isNaN(widths[i])) {
+                possibleWidths[i] = new ColumnPossibleWidth(widths[i], i);
             }
         }
     }
@@ -141,7 +139,7 @@ public class StateTableColumnWidthCalculator {
     private void matchTotalRequiredWidths(double[] columnWidths, double remainingWidth) {
         ColumnPossibleWidth[] maxColumnWidthsPossible = new ColumnPossibleWidth[this.columnAmount];
         //determine the max possible column width (how long would it need to be in order to get all text on one line, this will always return required weight in case of an image)
-        rows.stream().forEach(row -> determineTotalRequiredWidthsForRow(maxColumnWidthsPossible, row.getContent()));
+        toPossibleWidths(measurer.getTotalWidths(), maxColumnWidthsPossible);
 
         List<ColumnPossibleWidth> allMaxPossibleWidths = new ArrayList<>();
         Collections.addAll(allMaxPossibleWidths, maxColumnWidthsPossible);
@@ -202,37 +200,6 @@ public class StateTableColumnWidthCalculator {
                 .collect(Collectors.toList());
     }
 
-    private void ReplaceWidthIfNewWidthIsLarger(ColumnPossibleWidth[] possibleWidths, int column, StateCell cell, double newWidth) {
-        newWidth = newWidth / cell.getColumnSpan();
-        ColumnPossibleWidth possibleWidth = possibleWidths[column];
-        if (possibleWidth == null || newWidth > possibleWidth.getWidth()) {
-            possibleWidths[column] = new ColumnPossibleWidth(newWidth, column);
-        }
-    }
-
-    private void determineMaxWidthsForRow(double[] columnWidths, Cell[] content) {
-        for (int i = 0; i < content.length; ++i) {
-            StateCell cell = (StateCell) content[i];
-            if (cell != null) {
-                columnWidths[i] = Math.max(cell.getRequiredWidth() / cell.getColumnSpan(), columnWidths[i]);
-            }
-        }
-    }
-
-    private void determineTotalRequiredWidthsForRow(ColumnPossibleWidth[] maxColumnWidthPossible, Cell[] content) {
-        for (int i = 0; i < content.length; ++i) {
-            StateCell cell = (StateCell) content[i];
-            if (cell != null) {
-                double totalWidthRequired = cell.getWidth();
-                if (totalWidthRequired == 0) {
-                    totalWidthRequired = cell.getStateCellContent() != null ? cell.getStateCellContent().getTotalRequiredWidth() + (cell.getPadding() * 2)
-                            + cell.getBorderWidth() : 0;
-                }
-                ReplaceWidthIfNewWidthIsLarger(maxColumnWidthPossible, i, cell, totalWidthRequired);
-            }
-        }
-    }
-
     private double addExtraWidthToColumns(double[] columnWidths, double remainingWidth, List<ColumnPossibleWidth> maxPossibleWidths) {
         int i = 0;
         while (remainingWidth > 0 && i < maxPossibleWidths.size()) {
@@ -0,0 +1,78 @@
+package nl.mad.toucanpdf.state.Table;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * View on the rows of a table starting at a specific row, optionally preceded by a header row.
+ * The fragments of a table that is spread over multiple pages share the same list of rows through this view,
+ * which means the remaining rows do not have to be copied and placed again for every page.
+ * Rows added to the view are appended to the shared rows, which is only allowed if the view reaches the end of the shared rows.
+ * @author Dylan de Wolff
+ * @see BaseStateTable
+ */
+public class StateTableRowRange extends AbstractList<StateTableRow> {
+    private final StateTableRow header;
+    private final List<StateTableRow> rows;
+    private final int from;
+    private int to;
+
+    /**
+     * Creates a new view on the rows from the given start row up to the current end of the rows.
+     * @param header Header row to place before the rows, can be null.
+     * @param rows Rows of the table, should offer constant time access by index.
+     * @param from Index of the first row in the view.
+     */
+    public StateTableRowRange(StateTableRow header, List<StateTableRow> rows, int from) {
+        this.header = header;
+        this.rows = rows;
+        this.from = from;
+        this.to = rows.size();
+    }
+
+    private int getHeaderOffset() {
+        return header != null ? 1 : 0;
+    }
+
+    @Override
+    public StateTableRow get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (index < getHeaderOffset()) {
+            return header;
+        }
+        return rows.get(toRowIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return getHeaderOffset() + to - from;
+    }
+
+    @Override
+    public void add(int index, StateTableRow row) {
+        if (index != size() || to != rows.size()) {
+            throw new UnsupportedOperationException("Rows can only be added to the end of the table.");
+        }
+        rows.add(row);
+        ++to;
+        ++modCount;
+    }
+
+    /**
+     * Converts the given index in this view to the index in the shared rows.
+     * @param index Index in this view.
+     * @return index in the shared rows.
+     */
+    public int toRowIndex(int index) {
+        return from + index - getHeaderOffset();
+    }
+
+    /**
+     * @return the shared rows this view is based on.
+     */
+    public List<StateTableRow> getRows() {
+        return rows;
+    }
+}
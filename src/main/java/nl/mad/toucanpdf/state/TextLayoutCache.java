@@ -0,0 +1,363 @@
+package nl.mad.toucanpdf.state;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import nl.mad.toucanpdf.model.Alignment;
+import nl.mad.toucanpdf.model.FontMetrics;
+
+/**
+ * Bounded cache for the line breaks of texts, which allows texts that occur in several documents to skip the line breaking.
+ * An entry is keyed by the text, the word it starts at, the font, size and alignment of the text and the width available for the first line.
+ * Each line of an entry stores the width of the open space it was created for, the range of the text it contains and its horizontal offset
+ * within the open space. Lines are only taken from the cache as long as the open spaces of the page have the same widths,
+ * the vertical positions are always determined by the page.
+ * The cache is disabled by default and can be enabled for the shared instance, which is used by the layout code of all documents.
+ * The memory used by the cache is bounded by an estimate of the size of its entries in bytes, which includes the characters of the texts
+ * the keys refer to. An entry that does not fit the cache on its own is not stored.
+ * @author Dylan de Wolff
+ * @see BaseStateText
+ */
+public final class TextLayoutCache {
+    /**
+     * Default maximum size of the cache in bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 4 * 1024 * 1024;
+    private static final int SEGMENT_AMOUNT = 16;
+    private static final TextLayoutCache SHARED_CACHE = new TextLayoutCache(DEFAULT_MAXIMUM_SIZE);
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean enabled = false;
+
+    /**
+     * Creates a new instance of TextLayoutCache. The cache is disabled until {@link #setEnabled(boolean)} is called.
+     * @param maximumSize Maximum size of the cache in bytes, see {@link #getEstimatedSize()}.
+     */
+    public TextLayoutCache(long maximumSize) {
+        long segmentSize = Math.max(1, maximumSize / SEGMENT_AMOUNT);
+        segments = new Segment[SEGMENT_AMOUNT];
+        for (int i = 0; i < SEGMENT_AMOUNT; ++i) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Returns the cache that is shared by all documents.
+     * @return the shared cache.
+     */
+    public static TextLayoutCache getSharedCache() {
+        return SHARED_CACHE;
+    }
+
+    /**
+     * @return true if line breaks are stored and looked up, false otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the cache. Disabling the cache does not remove the stored entries.
+     * @param enabled Whether line breaks should be stored and looked up.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the stored lines for the given key.
+     * @param key Key of the lines.
+     * @return the lines or null if there are no stored lines for the given key.
+     */
+    TextLayout get(LayoutKey key) {
+        Segment segment = getSegment(key);
+        TextLayout layout;
+        synchronized (segment) {
+            layout = segment.get(key);
+        }
+        if (layout != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return layout;
+    }
+
+    /**
+     * Stores the given lines, unless the cache already holds more lines for the same key or the entry is too large for the cache.
+     * @param key Key of the lines.
+     * @param layout Lines to store.
+     */
+    void put(LayoutKey key, TextLayout layout) {
+        Segment segment = getSegment(key);
+        synchronized (segment) {
+            TextLayout current = segment.get(key);
+            if ((current == null || current.size() < layout.size()) && getSize(key, layout) <= segment.maximumSize) {
+                segment.put(key, layout);
+            }
+        }
+    }
+
+    private static long getSize(LayoutKey key, TextLayout layout) {
+        return key.getSize() + layout.getSize();
+    }
+
+    private Segment getSegment(LayoutKey key) {
+        return segments[(key.hashCode() & Integer.MAX_VALUE) % SEGMENT_AMOUNT];
+    }
+
+    /**
+     * @return the amount of lookups that were answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the amount of lookups that required the text to be broken into lines.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups that were answered from the cache.
+     * @return double between 0 and 1, 0 if no lookups have been done yet.
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hitCount / total;
+    }
+
+    /**
+     * @return the amount of entries currently in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated size of the entries in the cache. This covers the characters of the texts in the keys and the arrays holding the lines,
+     * the fixed overhead of the objects is approximated.
+     * @return the estimated size in bytes.
+     */
+    public long getEstimatedSize() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.currentSize;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all entries from the cache and resets the hit and miss counters.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.currentSize = 0;
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Least recently used map holding part of the cache entries. The least recently used entries are removed until the estimated size
+     * of the entries fits the maximum.
+     * @author Dylan de Wolff
+     */
+    private static class Segment extends LinkedHashMap<LayoutKey, TextLayout> {
+        private static final long serialVersionUID = 1L;
+        private final long maximumSize;
+        private long currentSize = 0;
+
+        Segment(long maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        public TextLayout put(LayoutKey key, TextLayout layout) {
+            TextLayout previous = super.put(key, layout);
+            //the stored key is kept when an entry is replaced
+            currentSize += previous != null ? layout.getSize() - previous.getSize() : getSize(key, layout);
+            Iterator<Map.Entry<LayoutKey, TextLayout>> iterator = entrySet().iterator();
+            while (currentSize > maximumSize && size() > 1) {
+                Map.Entry<LayoutKey, TextLayout> eldest = iterator.next();
+                currentSize -= getSize(eldest.getKey(), eldest.getValue());
+                iterator.remove();
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Used as key for the cache. Contains the text and the first word that has not been laid out yet, the font, size and alignment of the text,
+     * the width available for the first line and the width of the page used to determine whether words can be cut off.
+     * @author Dylan de Wolff
+     */
+    static final class LayoutKey {
+        //approximate size of the key and the text object, excluding the characters of the text
+        private static final int FIXED_SIZE = 96;
+        private final String text;
+        private final int word;
+        private final int start;
+        private final FontMetrics metrics;
+        private final int textSize;
+        private final Alignment alignment;
+        private final int firstLineWidth;
+        private final int cutOffLimit;
+        private final int hash;
+
+        LayoutKey(String text, int word, int start, FontMetrics metrics, int textSize, Alignment alignment, int firstLineWidth, int cutOffLimit) {
+            this.text = text;
+            this.word = word;
+            this.start = start;
+            this.metrics = metrics;
+            this.textSize = textSize;
+            this.alignment = alignment;
+            this.firstLineWidth = firstLineWidth;
+            this.cutOffLimit = cutOffLimit;
+            int h = text.hashCode();
+            h = h * 31 + word;
+            h = h * 31 + start;
+            h = h * 31 + System.identityHashCode(metrics);
+            h = h * 31 + textSize;
+            h = h * 31 + (alignment != null ? alignment.hashCode() : 0);
+            h = h * 31 + firstLineWidth;
+            this.hash = h * 31 + cutOffLimit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof LayoutKey) {
+                LayoutKey other = (LayoutKey) o;
+                return hash == other.hash && metrics == other.metrics && word == other.word && start == other.start && textSize == other.textSize
+                        && alignment == other.alignment && firstLineWidth == other.firstLineWidth && cutOffLimit == other.cutOffLimit
+                        && text.equals(other.text);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * @return the estimated size of the key in bytes, including the characters of the text.
+         */
+        long getSize() {
+            return FIXED_SIZE + (long) text.length() * Character.BYTES;
+        }
+    }
+
+    /**
+     * The stored lines of a text. Each line contains the width of the open space it was created for, its range in the text,
+     * its offset within the open space, its word spacing and the position of the word cursor after the line.
+     * Instances are built by adding lines and should not be changed once they are stored.
+     * @author Dylan de Wolff
+     */
+    static final class TextLayout {
+        private static final int INITIAL_CAPACITY = 8;
+        //approximate size of the layout object and its arrays, excluding the content of the arrays
+        private static final int FIXED_SIZE = 160;
+        private static final int LINE_SIZE = 5 * Integer.BYTES + Character.BYTES + 2 * Double.BYTES;
+        private int[] spaceWidths = new int[INITIAL_CAPACITY];
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        private char[] suffixes = new char[INITIAL_CAPACITY];
+        private double[] offsets = new double[INITIAL_CAPACITY];
+        private double[] wordSpacing = new double[INITIAL_CAPACITY];
+        private int[] nextWords = new int[INITIAL_CAPACITY];
+        private int[] nextWordStarts = new int[INITIAL_CAPACITY];
+        private int size = 0;
+
+        void add(int spaceWidth, int start, int end, char suffix, double offset, double spacing, int nextWord, int nextWordStart) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                spaceWidths = Arrays.copyOf(spaceWidths, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                suffixes = Arrays.copyOf(suffixes, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                wordSpacing = Arrays.copyOf(wordSpacing, capacity);
+                nextWords = Arrays.copyOf(nextWords, capacity);
+                nextWordStarts = Arrays.copyOf(nextWordStarts, capacity);
+            }
+            spaceWidths[size] = spaceWidth;
+            starts[size] = start;
+            ends[size] = end;
+            suffixes[size] = suffix;
+            offsets[size] = offset;
+            wordSpacing[size] = spacing;
+            nextWords[size] = nextWord;
+            nextWordStarts[size] = nextWordStart;
+            ++size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the estimated size of the layout in bytes, based on the capacity of the arrays.
+         */
+        long getSize() {
+            return FIXED_SIZE + (long) starts.length * LINE_SIZE;
+        }
+
+        /**
+         * @return true if the given line is stored and was created for an open space with the given width, false otherwise.
+         */
+        boolean matches(int line, int spaceWidth) {
+            return line < size && spaceWidths[line] == spaceWidth;
+        }
+
+        int getStart(int line) {
+            return starts[line];
+        }
+
+        int getEnd(int line) {
+            return ends[line];
+        }
+
+        char getSuffix(int line) {
+            return suffixes[line];
+        }
+
+        double getOffset(int line) {
+            return offsets[line];
+        }
+
+        double getWordSpacing(int line) {
+            return wordSpacing[line];
+        }
+
+        int getNextWord(int line) {
+            return nextWords[line];
+        }
+
+        int getNextWordStart(int line) {
+            return nextWordStarts[line];
+        }
+    }
+}
@@ -5,8 +5,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 
@@ -15,17 +18,37 @@ import org.slf4j.LoggerFactory;
 
 /**
  * UnicodeConverter allows you to get the postscript name of a unicode character. This is needed for accessing the metric data of certain font types.
+ * Every postscript name in the glyph list is given a glyph id. Unicode character codes are converted to these ids through a two-level table,
+ * which allows font metrics and encodings to work with int ids and only look up the name when it has to be written.
  * @author Dylan de Wolff
  *
  */
 public final class UnicodeConverter {
     private static final Logger LOGGER = LoggerFactory.getLogger(UnicodeConverter.class);
-    private static final Map<Integer, String> UNICODE_TO_POSTSCRIPT;
     private static final String FILENAME = "glyphlist.txt";
     private static final int KEY_RADIX = 16;
+    /**
+     * Value used to indicate that a character or name has no glyph id.
+     */
+    public static final int NO_GLYPH = -1;
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+    /**
+     * Contains the glyph ids for each unicode character, split into pages of 256 characters. Pages without any glyphs are null.
+     */
+    private static final int[][] UNICODE_TO_GLYPH = new int[(MAX_CODE_POINT >> PAGE_BITS) + 1][];
+    private static final String[] GLYPH_NAMES;
+    private static final Map<String, Integer> NAME_TO_GLYPH;
+    /**
+     * Contains the first unicode character code of each glyph id.
+     */
+    private static final int[] GLYPH_TO_UNICODE;
 
     static {
-        Map<Integer, String> unicodeToPostscriptTemp = new HashMap<Integer, String>();
+        List<String> glyphNamesTemp = new ArrayList<String>();
+        Map<String, Integer> nameToGlyphTemp = new HashMap<String, Integer>();
         InputStream in;
         try {
             in = UnicodeConverter.class.getResourceAsStream(Constants.RESOURCES + FILENAME);
@@ -33,7 +56,7 @@ public final class UnicodeConverter {
                 in = UnicodeConverter.class.getClassLoader().getResourceAsStream(FILENAME);
             }
             if (in != null) {
-                unicodeToPostscriptTemp = UnicodeConverter.processGlyphlist(unicodeToPostscriptTemp, in);
+                UnicodeConverter.processGlyphlist(glyphNamesTemp, nameToGlyphTemp, in);
                 in.close();
             }
         } catch (FileNotFoundException e) {
@@ -41,7 +64,20 @@ public final class UnicodeConverter {
         } catch (IOException e) {
             LOGGER.error("IOException ocurred while reading glyphlist.txt! UnicodeConverter will not be able to function normally.");
         }
-        UNICODE_TO_POSTSCRIPT = Collections.unmodifiableMap(unicodeToPostscriptTemp);
+        GLYPH_NAMES = glyphNamesTemp.toArray(new String[glyphNamesTemp.size()]);
+        NAME_TO_GLYPH = Collections.unmodifiableMap(nameToGlyphTemp);
+        GLYPH_TO_UNICODE = new int[GLYPH_NAMES.length];
+        Arrays.fill(GLYPH_TO_UNICODE, NO_GLYPH);
+        for (int page = 0; page < UNICODE_TO_GLYPH.length; ++page) {
+            if (UNICODE_TO_GLYPH[page] != null) {
+                for (int i = 0; i < PAGE_SIZE; ++i) {
+                    int glyphId = UNICODE_TO_GLYPH[page][i];
+                    if (glyphId != NO_GLYPH && GLYPH_TO_UNICODE[glyphId] == NO_GLYPH) {
+                        GLYPH_TO_UNICODE[glyphId] = (page << PAGE_BITS) | i;
+                    }
+                }
+            }
+        }
     }
 
     private UnicodeConverter() {
@@ -53,16 +89,77 @@ public final class UnicodeConverter {
      * @return String containing the postscript name. Will be null if the character could not be found.
      */
     public static String getPostscriptForUnicode(int code) {
-        return UNICODE_TO_POSTSCRIPT.get(code);
+        return getGlyphName(getGlyphId(code));
+    }
+
+    /**
+     * Returns the glyph id of the given unicode character code.
+     * @param code Code of the character.
+     * @return int containing the glyph id, {@link #NO_GLYPH} if the character could not be found.
+     */
+    public static int getGlyphId(int code) {
+        if (code >= 0 && code <= MAX_CODE_POINT) {
+            int[] page = UNICODE_TO_GLYPH[code >> PAGE_BITS];
+            if (page != null) {
+                return page[code & PAGE_MASK];
+            }
+        }
+        return NO_GLYPH;
+    }
+
+    /**
+     * Returns the glyph id of the given postscript name.
+     * @param name Postscript name of the glyph.
+     * @return int containing the glyph id, {@link #NO_GLYPH} if the name is not in the glyph list.
+     */
+    public static int getGlyphId(String name) {
+        Integer glyphId = NAME_TO_GLYPH.get(name);
+        if (glyphId != null) {
+            return glyphId;
+        }
+        return NO_GLYPH;
+    }
+
+    /**
+     * Returns the postscript name of the given glyph id.
+     * @param glyphId Id of the glyph.
+     * @return String containing the postscript name. Will be null if the id is unknown.
+     */
+    public static String getGlyphName(int glyphId) {
+        if (glyphId >= 0 && glyphId < GLYPH_NAMES.length) {
+            return GLYPH_NAMES[glyphId];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the unicode character code of the given glyph id. If several characters share the glyph, the lowest character code is returned.
+     * @param glyphId Id of the glyph.
+     * @return int containing the character code, {@link #NO_GLYPH} if the id is unknown.
+     */
+    public static int getCodePoint(int glyphId) {
+        if (glyphId >= 0 && glyphId < GLYPH_TO_UNICODE.length) {
+            return GLYPH_TO_UNICODE[glyphId];
+        }
+        return NO_GLYPH;
+    }
+
+    /**
+     * Returns the amount of glyph ids. Glyph ids range from zero up to (but not including) this amount.
+     * @return int containing the amount of glyphs.
+     */
+    public static int getGlyphCount() {
+        return GLYPH_NAMES.length;
     }
 
     /**
      * Processes the file containing the list of unicode character codes and the corresponding postscript names.
-     * @param Map<Integer, String> Map to store the read values in.
+     * @param glyphNames List to store the postscript names in, the index of a name is its glyph id.
+     * @param nameToGlyph Map to store the glyph id of each name in.
      * @param in InputStream for the glyph conversion list.
      * @throws IOException
      */
-    private static Map<Integer, String> processGlyphlist(Map<Integer, String> unicodeToPostscriptTemp, InputStream in) throws IOException {
+    private static void processGlyphlist(List<String> glyphNames, Map<String, Integer> nameToGlyph, InputStream in) throws IOException {
         String currentLine;
         BufferedReader reader = new BufferedReader(new InputStreamReader(in));
         while ((currentLine = reader.readLine()) != null) {
@@ -70,11 +167,28 @@ public final class UnicodeConverter {
                 StringTokenizer st = new StringTokenizer(currentLine, " ;\r\n\t\f");
                 String value = st.nextToken();
                 int key = Integer.parseInt(st.nextToken(), KEY_RADIX);
-                if (unicodeToPostscriptTemp.get(key) == null) {
-                    unicodeToPostscriptTemp.put(key, value);
+                Integer glyphId = nameToGlyph.get(value);
+                if (glyphId == null) {
+                    glyphId = glyphNames.size();
+                    glyphNames.add(value);
+                    nameToGlyph.put(value, glyphId);
                 }
+                if (getGlyphId(key) == NO_GLYPH) {
+                    setGlyphId(key, glyphId);
+                }
+            }
+        }
+    }
+
+    private static void setGlyphId(int code, int glyphId) {
+        int[] page = UNICODE_TO_GLYPH[code >> PAGE_BITS];
+        if (page == null) {
+            page = new int[PAGE_SIZE];
+            for (int i = 0; i < PAGE_SIZE; ++i) {
+                page[i] = NO_GLYPH;
             }
+            UNICODE_TO_GLYPH[code >> PAGE_BITS] = page;
         }
-        return unicodeToPostscriptTemp;
+        page[code & PAGE_MASK] = glyphId;
     }
 }
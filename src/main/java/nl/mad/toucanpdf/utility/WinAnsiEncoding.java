@@ -0,0 +1,82 @@
+package nl.mad.toucanpdf.utility;
+
+import java.util.Arrays;
+
+/**
+ * Contains the character codes of the WinAnsiEncoding, one of the predefined encodings of the PDF specification.
+ * The codes are mapped to the glyph ids of the {@link UnicodeConverter} in both directions.
+ * @author Dylan de Wolff
+ */
+public final class WinAnsiEncoding {
+    /**
+     * Value returned for glyphs that have no code in this encoding.
+     */
+    public static final int NO_CODE = -1;
+    private static final int CODE_AMOUNT = 256;
+    private static final int FIRST_ASCII_CODE = 32;
+    private static final int LAST_ASCII_CODE = 126;
+    private static final int FIRST_LATIN_CODE = 160;
+    private static final int NON_BREAKING_SPACE_CODE = 160;
+    private static final int SOFT_HYPHEN_CODE = 173;
+    private static final int FIRST_WINDOWS_CODE = 128;
+    /**
+     * Unicode values for the codes 128 to 159, 0 for codes that are not used by the encoding.
+     */
+    private static final int[] WINDOWS_CODES = { 0x20AC, 0, 0x201A, 0x0192, 0x201E, 0x2026, 0x2020, 0x2021, 0x02C6, 0x2030, 0x0160, 0x2039, 0x0152, 0,
+            0x017D, 0, 0, 0x2018, 0x2019, 0x201C, 0x201D, 0x2022, 0x2013, 0x2014, 0x02DC, 0x2122, 0x0161, 0x203A, 0x0153, 0, 0x017E, 0x0178 };
+    private static final int[] CODE_TO_GLYPH = new int[CODE_AMOUNT];
+    private static final int[] GLYPH_TO_CODE = new int[Math.max(1, UnicodeConverter.getGlyphCount())];
+
+    static {
+        Arrays.fill(CODE_TO_GLYPH, UnicodeConverter.NO_GLYPH);
+        Arrays.fill(GLYPH_TO_CODE, NO_CODE);
+        for (int code = FIRST_ASCII_CODE; code <= LAST_ASCII_CODE; ++code) {
+            CODE_TO_GLYPH[code] = UnicodeConverter.getGlyphId(code);
+        }
+        for (int i = 0; i < WINDOWS_CODES.length; ++i) {
+            if (WINDOWS_CODES[i] != 0) {
+                CODE_TO_GLYPH[FIRST_WINDOWS_CODE + i] = UnicodeConverter.getGlyphId(WINDOWS_CODES[i]);
+            }
+        }
+        for (int code = FIRST_LATIN_CODE; code < CODE_AMOUNT; ++code) {
+            CODE_TO_GLYPH[code] = UnicodeConverter.getGlyphId(code);
+        }
+        //the PDF specification maps these codes to the normal space and hyphen glyphs
+        CODE_TO_GLYPH[NON_BREAKING_SPACE_CODE] = UnicodeConverter.getGlyphId("space");
+        CODE_TO_GLYPH[SOFT_HYPHEN_CODE] = UnicodeConverter.getGlyphId("hyphen");
+        //iterate from the highest code, so glyphs with several codes (space and hyphen) are mapped to their lowest code
+        for (int code = CODE_AMOUNT - 1; code >= 0; --code) {
+            int glyphId = CODE_TO_GLYPH[code];
+            if (glyphId >= 0 && glyphId < GLYPH_TO_CODE.length) {
+                GLYPH_TO_CODE[glyphId] = code;
+            }
+        }
+    }
+
+    private WinAnsiEncoding() {
+    }
+
+    /**
+     * Returns the code of the given glyph.
+     * @param glyphId Id of the glyph.
+     * @return int containing the code or {@link #NO_CODE} if the glyph is not part of the encoding.
+     */
+    public static int getCode(int glyphId) {
+        if (glyphId >= 0 && glyphId < GLYPH_TO_CODE.length) {
+            return GLYPH_TO_CODE[glyphId];
+        }
+        return NO_CODE;
+    }
+
+    /**
+     * Returns the glyph of the given code.
+     * @param code The character code.
+     * @return int containing the glyph id or {@link UnicodeConverter#NO_GLYPH} if the code is not used by the encoding.
+     */
+    public static int getGlyphId(int code) {
+        if (code >= 0 && code < CODE_AMOUNT) {
+            return CODE_TO_GLYPH[code];
+        }
+        return UnicodeConverter.NO_GLYPH;
+    }
+}
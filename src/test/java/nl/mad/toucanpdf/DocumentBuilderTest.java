@@ -150,6 +150,32 @@ public class DocumentBuilderTest {
         assertEquals(1, p2.getContent().size());
     }
 
+    @Test
+    public void testSections() {
+        builder.addPage();
+        assertEquals(1, builder.getSectionAmount());
+        Page section = builder.addSection();
+        builder.addText("Test");
+        assertEquals("The section should start on a new page. ", 2, builder.getPageAmount());
+        assertEquals(1, section.getContent().size());
+        builder.addPage();
+        builder.addSection();
+        assertEquals("The amount of sections is incorrect. ", 3, builder.getSectionAmount());
+        assertEquals(4, builder.getPreview().getPages().size());
+    }
+
+    @Test
+    public void testPreviewDisabled() {
+        Text text = builder.addText("Test");
+        assertTrue(builder.isPreviewEnabled());
+        assertEquals(1, builder.getPreview().getPreviewFor(text).size());
+        builder.setPreviewEnabled(false);
+        assertTrue("Preview objects should not be tracked. ", builder.getPreview().getPreviewFor(text).isEmpty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        builder.finish(output);
+        assertTrue("The document should still be written. ", output.size() > 0);
+    }
+
     @Test
     public void testPreviewRetrieval() {
         assertEquals(true, builder.getPreview() != null);
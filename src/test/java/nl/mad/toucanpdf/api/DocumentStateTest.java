@@ -3,15 +3,30 @@ package nl.mad.toucanpdf.api;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import nl.mad.toucanpdf.model.DocumentPart;
 import nl.mad.toucanpdf.model.DocumentPartType;
 import nl.mad.toucanpdf.model.Image;
 import nl.mad.toucanpdf.model.ImageType;
 import nl.mad.toucanpdf.model.Page;
+import nl.mad.toucanpdf.model.PageArea;
 import nl.mad.toucanpdf.model.Paragraph;
+import nl.mad.toucanpdf.model.Table;
 import nl.mad.toucanpdf.model.Text;
+import nl.mad.toucanpdf.model.state.StateCell;
+import nl.mad.toucanpdf.model.state.StateTable;
+import nl.mad.toucanpdf.model.state.StateText;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -75,4 +90,289 @@ public class DocumentStateTest {
         assertEquals(1, state.getPreviewFor(i).size());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSections() {
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            longText.append("Overflowing section text ");
+        }
+        page1.add(new BaseText(longText.toString()));
+        page2.add(new BaseText("Test"));
+        state.updateState(builderState);
+        List<Page> sequential = new LinkedList<Page>(state.getPages());
+
+        List<Page> sectionStarts = new LinkedList<Page>();
+        sectionStarts.add(page2);
+        state.updateState(builderState, sectionStarts);
+        List<Page> pages = state.getPages();
+        assertEquals("Sections should result in the same amount of pages. ", sequential.size(), pages.size());
+        assertTrue("The first section should overflow onto multiple pages. ", pages.size() > 2);
+        assertEquals("The second section should be placed after the first. ", state.getPreviewFor(page2).get(0), pages.get(pages.size() - 1));
+        for (int i = 0; i < pages.size(); ++i) {
+            assertEquals(sequential.get(i).getContent().size(), pages.get(i).getContent().size());
+        }
+    }
+
+    @Test
+    public void testSectionsRunInParallel() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final AtomicInteger parallelSections = new AtomicInteger();
+        Iterable<List<String>> rowSource = () -> new Iterator<List<String>>() {
+            private boolean pulled = false;
+
+            @Override
+            public boolean hasNext() {
+                return !pulled;
+            }
+
+            @Override
+            public List<String> next() {
+                pulled = true;
+                try {
+                    //both sections have to reach this point at the same time
+                    barrier.await(10, TimeUnit.SECONDS);
+                    parallelSections.incrementAndGet();
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    barrier.reset();
+                }
+                return Arrays.asList("Row", "Test");
+            }
+        };
+        Page second = new BasePage(200, 200).add(new BaseTable(100).columns(2).rows(rowSource));
+        page1.add(new BaseTable(100).columns(2).rows(rowSource));
+        builderState.clear();
+        builderState.add(page1);
+        builderState.add(second);
+        List<Page> sectionStarts = Arrays.asList(second);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            pool.submit(() -> state.updateState(builderState, sectionStarts)).get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("The sections should be laid out at the same time. ", 2, parallelSections.get());
+        assertEquals(2, state.getPages().size());
+    }
+
+    @Test
+    public void testSectionsSharingMasterPage() {
+        Text masterText = new BaseText("Shared master");
+        Page master = new BasePage(200, 200).add(masterText);
+        List<Page> sectionStarts = new LinkedList<Page>();
+        List<Text> texts = new LinkedList<Text>();
+        builderState.clear();
+        for (int i = 0; i < 3; ++i) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < 60 * (i + 1); ++j) {
+                sb.append("Section ").append(i).append(' ');
+            }
+            Text text = new BaseText(sb.toString());
+            texts.add(text);
+            Page page = new BasePage(200, 200).master(master).add(text);
+            builderState.add(page);
+            if (i > 0) {
+                sectionStarts.add(page);
+            }
+        }
+        state.updateState(builderState);
+        List<Integer> sequentialMasterPages = getPageIndices(state.getPreviewFor(masterText));
+        List<List<Integer>> sequentialTextPages = new LinkedList<List<Integer>>();
+        for (Text text : texts) {
+            sequentialTextPages.add(getPageIndices(state.getPreviewFor(text)));
+        }
+
+        state.updateState(builderState, sectionStarts);
+        List<Page> pages = state.getPages();
+        assertTrue("Each section should overflow onto several pages. ", pages.size() > 6);
+        List<Integer> masterPages = getPageIndices(state.getPreviewFor(masterText));
+        assertEquals("The master content of all sections should be merged in page order. ", sequentialMasterPages, masterPages);
+        assertEquals("Each page using the master page should show its content. ", builderState.size(), masterPages.size());
+        assertTrue(state.getPageFor(masterText) == pages.get(0));
+        for (int i = 0; i < texts.size(); ++i) {
+            Text text = texts.get(i);
+            assertEquals("The text should be placed like it is without sections. ", sequentialTextPages.get(i), getPageIndices(state.getPreviewFor(text)));
+            assertTrue("The text should start on the first page of its section. ",
+                    state.getPageFor(text) == state.getPreviewFor(builderState.get(i)).get(0));
+        }
+    }
+
+    private List<Integer> getPageIndices(List<Text> previews) {
+        List<Page> pages = state.getPages();
+        List<Integer> indices = new ArrayList<Integer>();
+        for (Text preview : previews) {
+            int index = -1;
+            Page page = state.getPageFor(preview);
+            for (int i = 0; i < pages.size(); ++i) {
+                if (pages.get(i) == page) {
+                    index = i;
+                }
+            }
+            indices.add(index);
+        }
+        return indices;
+    }
+
+    @Test
+    public void testPageAreas() {
+        Page first = new BasePage(200, 200);
+        PageArea header = first.addHeader();
+        header.add(new BaseText("Static header").on(10, 190));
+        header.add(new BaseText("Page %pageNumber of %totalPages").on(100, 190));
+        builderState.clear();
+        builderState.add(new BasePage(200, 200));
+        for (int i = 0; i < 3; ++i) {
+            builderState.add(new BasePage(first));
+        }
+        state.updateState(builderState);
+        List<Page> pages = state.getPages();
+        for (int i = 1; i < pages.size(); ++i) {
+            List<DocumentPart> content = pages.get(i).getContent();
+            assertEquals(2, content.size());
+            assertTrue("Static content should be laid out once. ", content.get(0) == pages.get(1).getContent().get(0));
+            StateText pageNumber = (StateText) content.get(1);
+            assertEquals("Page " + i + " of 3", pageNumber.getText());
+            assertEquals("The total should be filled in when the document is written. ", 1, pageNumber.getTotalPagesPositions().size());
+            assertEquals("The space of the digits of the expected total should be reserved. ",
+                    pageNumber.getFont().getMetrics().getWidthPointOfString("000", pageNumber.getTextSize(), true), pageNumber.getTotalPagesWidth(), 0.001);
+        }
+        assertEquals(3, state.getTotalPages());
+    }
+
+    @Test
+    public void testPageAreasWithExpectedTotal() {
+        Page first = new BasePage(200, 200);
+        PageArea footer = first.addFooter();
+        footer.add(new BaseText("%totalPages pages").on(10, 10));
+        Table table = new BaseTable(100).columns(1).on(100, 20);
+        table.addCell("Of %totalPages");
+        footer.add(table);
+        builderState.clear();
+        builderState.add(new BasePage(200, 200));
+        for (int i = 0; i < 12; ++i) {
+            builderState.add(new BasePage(first));
+        }
+        state.setExpectedTotalPages(9);
+        state.updateState(builderState);
+        List<Page> pages = state.getPages();
+        for (int i = 1; i < pages.size(); ++i) {
+            List<DocumentPart> content = pages.get(i).getContent();
+            assertEquals(2, content.size());
+            StateText total = (StateText) content.get(0);
+            assertEquals("12 pages", total.getText());
+            assertEquals("The space of a single digit should be reserved. ", total.getFont().getMetrics().getWidthPointOfString("0", total.getTextSize(), true),
+                    total.getTotalPagesWidth(), 0.001);
+            Text cellText = (Text) ((StateTable) content.get(1)).getContent().get(0).getContent();
+            assertEquals("Tables should show the total once it is known. ", "Of 12", cellText.getText());
+        }
+    }
+
+    @Test
+    public void testOverflowPages() {
+        List<Text> texts = new LinkedList<Text>();
+        for (int i = 0; i < 200; ++i) {
+            Text text = new BaseText("Text " + i);
+            texts.add(text);
+            page1.add(text);
+        }
+        state.updateState(builderState);
+        List<Page> pages = state.getPages();
+        assertTrue("The content of page1 should overflow onto several pages. ", pages.size() > 3);
+        assertEquals("Overflow should be placed before the next page. ", state.getPreviewFor(page2).get(0), pages.get(pages.size() - 1));
+
+        int previousPage = 0;
+        for (Text text : texts) {
+            Page page = state.getPageFor(text);
+            int pageIndex = pages.indexOf(page);
+            assertTrue("Texts should stay in their original order. ", pageIndex >= previousPage);
+            assertEquals(page, state.getPageFor(state.getPreviewFor(text).get(0)));
+            previousPage = pageIndex;
+        }
+
+        Text last = texts.get(texts.size() - 1);
+        Page lastPage = state.getPageFor(last);
+        state.removeFirstPage();
+        assertEquals(lastPage, state.getPageFor(last));
+        assertEquals("Removed pages should no longer be found. ", null, state.getPageFor(texts.get(0)));
+    }
+
+    @Test
+    public void testPreviewDisabled() {
+        Text text = new BaseText("Test");
+        page1.add(text);
+        state.setPreviewEnabled(false);
+        state.updateState(builderState);
+        assertEquals("The state should still be created. ", builderState.size(), state.getPages().size());
+        assertTrue("Preview objects should not be tracked. ", state.getPreviewFor(text).isEmpty());
+        assertEquals(null, state.getPageFor(text));
+
+        Page first = state.getPages().get(0);
+        assertEquals(first, state.removeFirstPage());
+        assertEquals(builderState.size() - 1, state.getPages().size());
+        for (int i = 1; i < builderState.size(); ++i) {
+            state.removeFirstPage();
+        }
+        assertEquals("No pages should be left. ", null, state.removeFirstPage());
+    }
+
+    @Test
+    public void testTableRowSource() {
+        List<List<String>> rowSource = new LinkedList<>();
+        for (int i = 0; i < 300; ++i) {
+            rowSource.add(Arrays.asList("Row " + i, "Test"));
+        }
+        Table table = new BaseTable(400).columns(2).rows(rowSource);
+        Page page = new BasePage(500, 500).add(table);
+        builderState.add(page);
+        state.updateState(builderState);
+        assertTrue("The table should be spread over multiple pages. ", state.getPages().size() > builderState.size() + 1);
+        int cells = 0;
+        for (Page p : state.getPages()) {
+            for (DocumentPart part : p.getContent()) {
+                if (part instanceof StateTable) {
+                    cells += ((StateTable) part).getStateCellCollection().size();
+                }
+            }
+        }
+        assertEquals("Every row of the source should be placed. ", 600, cells);
+    }
+
+    @Test
+    public void testTableRowSourceSpanningPages() {
+        final int rowAmount = 2000;
+        final int[] pulled = new int[1];
+        Iterable<List<String>> rowSource = () -> new Iterator<List<String>>() {
+            @Override
+            public boolean hasNext() {
+                return pulled[0] < rowAmount;
+            }
+
+            @Override
+            public List<String> next() {
+                return Arrays.asList("Row " + pulled[0]++, "Test");
+            }
+        };
+        Table table = new BaseTable(400).columns(2).rows(rowSource);
+        builderState.add(new BasePage(500, 500).add(table));
+        state.updateState(builderState);
+        assertTrue("The table should be spread over several pages. ", state.getPages().size() > builderState.size() + 10);
+        assertEquals("Every row should be pulled once. ", rowAmount, pulled[0]);
+        List<String> rows = new ArrayList<>();
+        for (Page p : state.getPages()) {
+            for (DocumentPart part : p.getContent()) {
+                if (part instanceof StateTable) {
+                    for (StateCell cell : ((StateTable) part).getStateCellCollection()) {
+                        String text = ((Text) cell.getContent()).getText();
+                        if (text.startsWith("Row ")) {
+                            rows.add(text);
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals("Every row of the source should be placed once. ", rowAmount, rows.size());
+        for (int i = 0; i < rowAmount; ++i) {
+            assertEquals("Rows should be placed in the order of the source. ", "Row " + i, rows.get(i));
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import nl.mad.toucanpdf.api.BaseFont;
 import nl.mad.toucanpdf.model.DocumentPartType;
 import nl.mad.toucanpdf.model.Font;
+import nl.mad.toucanpdf.model.FontEmbedding;
 import nl.mad.toucanpdf.model.FontFamily;
 import nl.mad.toucanpdf.model.FontFamilyType;
 import nl.mad.toucanpdf.model.FontStyle;
@@ -67,6 +68,14 @@ public class FontTest {
         assertEquals("The font style was incorrectly copied from the default font. ", Constants.DEFAULT_FONT.getStyle(), font.getStyle());
     }
 
+    @Test
+    public void testEmbedding() {
+        assertEquals("Fonts should use the default embedding of the document. ", null, font.getEmbedding());
+        font.embedding(FontEmbedding.REFERENCE);
+        assertEquals("The font embedding was set incorrectly. ", FontEmbedding.REFERENCE, font.getEmbedding());
+        assertEquals("The font embedding was not copied. ", FontEmbedding.REFERENCE, new BaseFont(font).getEmbedding());
+    }
+
     @Test
     public void testLineHeightCalculation() {
         assertEquals(11.1, font.getLineHeight(12), FloatEqualityTester.EPSILON);
@@ -0,0 +1,34 @@
+package nl.mad.toucanpdf.font;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class KerningTableTest {
+
+    @Test
+    public void testPutAndGet() {
+        KerningTable table = new KerningTable();
+        table.put(1, 2, -30);
+        table.put(2, 1, 15);
+        assertEquals(-30, table.get(1, 2));
+        assertEquals(15, table.get(2, 1));
+        assertEquals(0, table.get(1, 1));
+        assertEquals(0, table.get(-1, 2));
+        table.put(1, 2, -40);
+        assertEquals("Existing pair was not overwritten. ", -40, table.get(1, 2));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testGrowth() {
+        KerningTable table = new KerningTable();
+        for (int i = 0; i < 500; ++i) {
+            table.put(i, i + 1, i % 100);
+        }
+        assertEquals(500, table.size());
+        for (int i = 0; i < 500; ++i) {
+            assertEquals(i % 100, table.get(i, i + 1));
+        }
+    }
+}
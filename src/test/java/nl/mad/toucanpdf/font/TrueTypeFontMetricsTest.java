@@ -0,0 +1,58 @@
+package nl.mad.toucanpdf.font;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+import nl.mad.toucanpdf.model.FontMetricsFlagValues;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrueTypeFontMetricsTest {
+    private TrueTypeFontMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new TrueTypeFontMetrics(new File(TrueTypeFontMetricsTest.class.getResource("/fonts/DejaVuSans-Subset.ttf").toURI()).getPath());
+    }
+
+    @Test
+    public void testMetrics() {
+        assertEquals("DejaVuSans", metrics.getFontName());
+        assertEquals("DejaVu Sans", metrics.getFontFamily());
+        assertEquals(false, metrics.isCFF());
+        assertEquals(metrics.getWidth((int) 'A'), metrics.getWidth("A"));
+        assertEquals(metrics.getWidth((int) 'A'), metrics.getGlyphWidth(metrics.getGlyphId('A')));
+        assertEquals(metrics.getWidth((int) 'i'), metrics.getWidth((int) 'l'));
+        assertTrue("Ascent should be positive. ", metrics.getAscent() > 0);
+        assertTrue("Descent should be negative. ", metrics.getDescent() < 0);
+        assertEquals("Identity-H", metrics.getEncodingScheme());
+        assertEquals(FontMetricsFlagValues.SYMBOLIC.getBitValue(), metrics.getFlags() & FontMetricsFlagValues.SYMBOLIC.getBitValue());
+    }
+
+    @Test
+    public void testGlyphIds() {
+        assertNotEquals(0, metrics.getGlyphId('A'));
+        assertNotEquals(0, metrics.getGlyphId(0x416));
+        assertNotEquals(metrics.getGlyphId('A'), metrics.getGlyphId('B'));
+        assertEquals("Unknown characters should use the missing glyph. ", 0, metrics.getGlyphId(0xE000));
+    }
+
+    @Test
+    public void testKerning() {
+        int kerning = metrics.getKerning('A', 'V');
+        assertTrue("A and V should be kerned closer together. ", kerning > 0);
+        assertEquals(kerning, metrics.getGlyphKerning(metrics.getGlyphId('A'), metrics.getGlyphId('V')));
+        assertEquals(metrics.getWidth((int) 'A') + metrics.getWidth((int) 'V') - kerning, metrics.getWidthOfString("AV", 1, true));
+        assertEquals(metrics.getWidth((int) 'A') + metrics.getWidth((int) 'V'), metrics.getWidthOfString("AV", 1, false));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testMissingFont() throws Exception {
+        new TrueTypeFontMetrics("nonexistent.ttf");
+    }
+}
@@ -0,0 +1,62 @@
+package nl.mad.toucanpdf.font;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import nl.mad.toucanpdf.font.parser.TrueTypeParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrueTypeFontSubsetterTest {
+    private TrueTypeFontMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new TrueTypeFontMetrics(new File(TrueTypeFontSubsetterTest.class.getResource("/fonts/DejaVuSans-Subset.ttf").toURI()).getPath());
+    }
+
+    @Test
+    public void testSubset() throws Exception {
+        List<Integer> glyphs = Arrays.asList(metrics.getGlyphId('A'), metrics.getGlyphId('b'), metrics.getGlyphId(0xE9));
+        byte[] subset = metrics.getFontFileSubset(glyphs);
+        assertTrue("Subset did not shrink. ", subset.length < metrics.getFontFile().length / 4);
+        TrueTypeParser parser = new TrueTypeParser(ByteBuffer.wrap(subset));
+        int highestGlyph = glyphs.stream().mapToInt(Integer::intValue).max().getAsInt();
+        assertEquals(highestGlyph + 1, parser.getNumGlyphs());
+        for (int glyph : glyphs) {
+            assertTrue("Outline of used glyph was removed. ", parser.getGlyphLength(glyph) > 0);
+            assertEquals(metrics.getGlyphWidth(glyph), Math.round(parser.getAdvanceWidth(glyph) * 1000.0 / parser.getUnitsPerEm()));
+        }
+        assertEquals("Outline of unused glyph was kept. ", 0, parser.getGlyphLength(metrics.getGlyphId('B')));
+        assertTrue("Missing glyph was removed. ", parser.getGlyphLength(0) > 0);
+    }
+
+    @Test
+    public void testChecksum() throws Exception {
+        byte[] subset = metrics.getFontFileSubset(Arrays.asList(metrics.getGlyphId('A')));
+        ByteBuffer buffer = ByteBuffer.wrap(subset);
+        int sum = 0;
+        for (int i = 0; i < subset.length; i += 4) {
+            sum += buffer.getInt(i);
+        }
+        assertEquals(0xB1B0AFBA, sum);
+    }
+
+    @Test
+    public void testReuseSubsetter() throws Exception {
+        TrueTypeFontSubsetter subsetter = metrics.createSubsetter();
+        List<Integer> large = Arrays.asList(metrics.getGlyphId('z'), metrics.getGlyphId('A'));
+        byte[] first = subsetter.subset(large);
+        byte[] second = subsetter.subset(Arrays.asList(metrics.getGlyphId('A')));
+        assertTrue("Second subset contains the glyphs of the first. ", second.length < first.length);
+        assertArrayEquals(metrics.getFontFileSubset(large), first);
+        assertArrayEquals("Subsetter tables were changed by a subset. ", metrics.getFontFileSubset(large), subsetter.subset(large));
+    }
+}
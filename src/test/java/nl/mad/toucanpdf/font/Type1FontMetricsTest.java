@@ -16,6 +16,7 @@ public class Type1FontMetricsTest {
     private final int spaceWidth = 278;
     private final int aWidth = 556;
     private final int capitalAWidth = 667;
+    private final int lslashWidth = 556;
     private final int capitalCWidth = 722;
     private final int capitalACKerningOffset = -30;
     private final int textSize = 11;
@@ -50,6 +51,9 @@ public class Type1FontMetricsTest {
         assertEquals("Width of the metric was incorrect. ", aWidth, width);
         width = metrics.getWidth("ikbestaniet");
         assertEquals(0, width);
+        //code points outside of Latin-1 are looked up in the sparse table
+        assertEquals("Width of the Lslash metric was incorrect. ", lslashWidth, metrics.getWidth(0x0141));
+        assertEquals(0, metrics.getWidth(0x4E00));
     }
 
     @Test
@@ -64,6 +68,7 @@ public class Type1FontMetricsTest {
         assertEquals("Width of string is incorrect. ", expectedWidth, metrics.getWidthOfString(" A ", textSize, false));
         assertEquals("Width of string in points is incorrect. ", expectedWidth * metrics.getConversionToPointsValue(),
                 metrics.getWidthPointOfString(" A ", textSize, false), FloatEqualityTester.EPSILON);
+        assertEquals("Width of char sequence is incorrect. ", expectedWidth, metrics.getWidthOfString(new StringBuilder(" A "), textSize, false));
     }
 
     @Test
@@ -0,0 +1,67 @@
+package nl.mad.toucanpdf.font;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class Type1FontSubsetterTest {
+    private Type1FontMetrics metrics;
+    private final List<String> glyphs = Arrays.asList("A", "b", "space", "eacute");
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new Type1FontMetrics("Times-Bold");
+    }
+
+    @Test
+    public void testSubset() {
+        byte[] fontProgram = metrics.getFontFile();
+        int[] lengths = metrics.getFontProgramLengths();
+        Type1FontSubsetter subsetter = new Type1FontSubsetter(fontProgram, lengths);
+        assertTrue("Subset could not be created. ", subsetter.subset(glyphs));
+        int[] subsetLengths = subsetter.getLengths();
+        assertEquals("Clear text part was changed. ", lengths[0], subsetLengths[0]);
+        assertEquals("Trailing part was changed. ", lengths[2], subsetLengths[2]);
+        assertTrue("Encrypted part did not shrink. ", subsetLengths[1] < lengths[1] / 4);
+        assertEquals(subsetLengths[0] + subsetLengths[1] + subsetLengths[2], subsetter.getFontProgram().length);
+    }
+
+    @Test
+    public void testSubsetOfSubset() {
+        byte[] fontProgram = metrics.getFontFile();
+        Type1FontSubsetter subsetter = new Type1FontSubsetter(fontProgram, metrics.getFontProgramLengths());
+        subsetter.subset(glyphs);
+        Type1FontSubsetter secondSubsetter = new Type1FontSubsetter(subsetter.getFontProgram(), subsetter.getLengths());
+        assertTrue("Subset could not be parsed again. ", secondSubsetter.subset(glyphs));
+        assertEquals("Subset lost characters that were requested. ", subsetter.getLengths()[1], secondSubsetter.getLengths()[1]);
+    }
+
+    @Test
+    public void testCreateSubsets() {
+        byte[] fontProgram = metrics.getFontFile();
+        int[] lengths = metrics.getFontProgramLengths();
+        Type1FontSubsetter subsetter = new Type1FontSubsetter(fontProgram, lengths);
+        Type1FontSubsetter small = subsetter.createSubset(Arrays.asList("A"));
+        Type1FontSubsetter large = subsetter.createSubset(glyphs);
+        assertTrue("Second subset was created from the first subset. ", small.getLengths()[1] < large.getLengths()[1]);
+        assertArrayEquals("Subsetter was changed. ", fontProgram, subsetter.getFontProgram());
+        Type1FontSubsetter other = new Type1FontSubsetter(fontProgram, lengths);
+        other.subset(glyphs);
+        assertArrayEquals(other.getFontProgram(), large.getFontProgram());
+    }
+
+    @Test
+    public void testInvalidProgram() {
+        Type1FontSubsetter subsetter = new Type1FontSubsetter(new byte[] { 1, 2, 3 }, new int[] { 1, 1, 1 });
+        assertEquals(false, subsetter.subset(glyphs));
+        assertEquals(3, subsetter.getFontProgram().length);
+        assertNull(subsetter.createSubset(glyphs));
+    }
+}
@@ -0,0 +1,48 @@
+package nl.mad.toucanpdf.font;
+
+import static org.junit.Assert.assertEquals;
+
+import nl.mad.toucanpdf.utility.FloatEqualityTester;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WordWidthCacheTest {
+    private Type1FontMetrics metrics;
+    private WordWidthCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new Type1FontMetrics("Helvetica");
+        cache = new WordWidthCache(64);
+    }
+
+    @Test
+    public void testWidth() {
+        assertEquals(metrics.getWidthOfString("AC", 1, true), cache.getWidth(metrics, "AC", true));
+        assertEquals(metrics.getWidthOfString("AC", 1, false), cache.getWidth(metrics, "AC", false));
+        assertEquals(true, FloatEqualityTester.equals(metrics.getWidthPointOfString("Testing", 11, true), cache.getWidthPoint(metrics, "Testing", 11, true)));
+    }
+
+    @Test
+    public void testHitRate() {
+        cache.getWidth(metrics, "word", true);
+        cache.getWidth(metrics, "word", true);
+        cache.getWidthPoint(metrics, "word", 12, true);
+        cache.getWidth(metrics, "word", false);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(true, FloatEqualityTester.equals(0.5, cache.getHitRate()));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(true, FloatEqualityTester.equals(0, cache.getHitRate()));
+    }
+
+    @Test
+    public void testMaximumSize() {
+        for (int i = 0; i < 1000; ++i) {
+            cache.getWidth(metrics, "word" + i, true);
+        }
+        assertEquals("Cache grew beyond its maximum size. ", true, cache.size() <= 64);
+    }
+}
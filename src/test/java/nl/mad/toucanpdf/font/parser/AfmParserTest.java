@@ -207,5 +207,8 @@ public class AfmParserTest {
     public void testKerning() {
         //kerning will be inverted after the parsing
         assertEquals("Kerning is not as expected. ", Integer.valueOf(-expectedKerning), afm.getKerning(firstChar.getName(), lastChar.getName()));
+        assertEquals("Kerning by glyph index is not as expected. ", -expectedKerning,
+                afm.getKerning(afm.getGlyphIndex(firstChar.getName()), afm.getGlyphIndex(lastChar.getName())));
+        assertEquals(-1, afm.getGlyphIndex("unknown"));
     }
 }
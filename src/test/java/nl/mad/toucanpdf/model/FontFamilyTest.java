@@ -1,6 +1,8 @@
 package nl.mad.toucanpdf.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -25,4 +27,13 @@ public class FontFamilyTest {
         assertEquals(FontType.TRUETYPE, fam.getSubType());
     }
 
+    @Test
+    public void testDefaultFontFamily() {
+        assertTrue(FontFamily.getDefaultFontFamily(FontFamilyType.COURIER).isDefaultFontFamily());
+        assertFalse(fam.isDefaultFontFamily());
+        FontFamily courier = new FontFamily(FontType.TYPE1, "Courier", "Courier-Bold", "Courier-Oblique", "Courier-BoldOblique");
+        assertTrue("Separately created default family was not recognized. ", courier.isDefaultFontFamily());
+        courier.setBoldName("Courier-Bold2");
+        assertFalse(courier.isDefaultFontFamily());
+    }
 }
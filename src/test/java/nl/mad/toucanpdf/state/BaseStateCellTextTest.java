@@ -32,6 +32,27 @@ public class BaseStateCellTextTest {
         }
     }
 
+    @Test
+    public void testRepeatedCalculation() {
+        double height = text.calculateContentHeight(30, 10, new Position(50, 50), false);
+        assertEquals("No lines should be positioned. ", 0, text.getTextSplit().size());
+        assertEquals(height, text.calculateContentHeight(30, 10, new Position(50, 50), true), FloatEqualityTester.EPSILON);
+        assertEquals(4, text.getTextSplit().size());
+        assertEquals(new Position(50, 41.804), text.getTextSplit().keySet().iterator().next());
+
+        text.text("Test");
+        double expected = new BaseStateCellText("Test").calculateContentHeight(30, 10, new Position(50, 50), true);
+        assertEquals("Changing the text should change the content height. ", expected, text.calculateContentHeight(30, 10, new Position(50, 50), true),
+                FloatEqualityTester.EPSILON);
+        assertEquals(1, text.getTextSplit().size());
+        text.size(20);
+        BaseStateCellText largeText = new BaseStateCellText("Test");
+        largeText.size(20);
+        expected = largeText.calculateContentHeight(30, 10, new Position(50, 50), true);
+        assertEquals("Changing the text size should change the content height. ", expected,
+                text.calculateContentHeight(30, 10, new Position(50, 50), true), FloatEqualityTester.EPSILON);
+    }
+
     @Test
     public void testGettersSetters() {
         Text text2 = new BaseText("Test");
@@ -84,6 +84,16 @@ public class BaseStatePageTest {
         assertEquals(67, page.getTotalAvailableWidth(new Position(0, 110), 0.0, 0.0, text));
     }
 
+    @Test
+    public void testOccupancyIndexFollowsContent() {
+        page.add(text2);
+        assertEquals(67, page.getTotalAvailableWidth(new Position(0, 110), 0.0, 0.0, text));
+        assertEquals(67, page.getTotalAvailableWidth(new Position(0, 110), 0.0, 0.0, text));
+        assertEquals("Ignored part is still used by the index. ", 90, page.getTotalAvailableWidth(new Position(0, 110), 0.0, 0.0, text2));
+        page.getContent().remove(text2);
+        assertEquals("Removed part is still used by the index. ", 85, page.getTotalAvailableWidth(new Position(0, 110), 0.0, 0.0, text));
+    }
+
     @Test
     public void testOpenSpacesIncludingHeight(@Mocked final BaseStateText text3) {
         new NonStrictExpectations() {
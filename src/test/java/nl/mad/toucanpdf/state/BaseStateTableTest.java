@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import nl.mad.toucanpdf.api.BaseCell;
@@ -92,6 +93,97 @@ public class BaseStateTableTest {
         assertEquals(new Position(), text2.getPosition());
     }
 
+    @Test
+    public void testRowSource() {
+        List<List<String>> rowSource = new ArrayList<>();
+        StateTable cellTable = new BaseStateTable(300);
+        cellTable.columns(3);
+        for (int i = 0; i < 150; ++i) {
+            List<String> row = Arrays.asList("Row " + i, "Column 2", "Column 3 of row " + i);
+            rowSource.add(row);
+            row.forEach(cellTable::addCell);
+        }
+        List<StateTable> expected = layoutOnPages(cellTable);
+        List<StateTable> streamed = layoutOnPages(new BaseStateTable(new BaseTable(300).columns(3).rows(rowSource)));
+        assertEquals("The streamed table should be spread over the same amount of pages. ", expected.size(), streamed.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            List<StateCell> expectedCells = expected.get(i).getStateCellCollection();
+            List<StateCell> streamedCells = streamed.get(i).getStateCellCollection();
+            assertEquals(expectedCells.size(), streamedCells.size());
+            assertEquals(expected.get(i).getHeight(), streamed.get(i).getHeight(), FloatEqualityTester.EPSILON);
+            for (int j = 0; j < expectedCells.size(); ++j) {
+                assertEquals(expectedCells.get(j).getWidth(), streamedCells.get(j).getWidth(), FloatEqualityTester.EPSILON);
+                assertEquals(expectedCells.get(j).getPosition(), streamedCells.get(j).getPosition());
+            }
+        }
+    }
+
+    @Test
+    public void testRemainingRowsShared() {
+        StateTable cellTable = new BaseStateTable(300);
+        cellTable.columns(2);
+        for (int i = 0; i < 200; ++i) {
+            cellTable.addCell("Row " + i);
+            cellTable.addCell("Test");
+        }
+        StatePage page = new BaseStatePage(400, 400);
+        cellTable.updateHeight(page);
+        cellTable.on(page.getOpenPosition(cellTable.getRequiredSpaceAbove(), cellTable.getRequiredSpaceBelow(), cellTable));
+        StateTable overflow = cellTable.processContentSize(page);
+        Cell firstRemaining = overflow.getContent().get(0);
+        assertEquals(400 - cellTable.getContent().size(), overflow.getContent().size());
+
+        List<StateTable> fragments = layoutOnPages(overflow);
+        Assert.assertTrue("The remaining cells should be placed without being copied. ", fragments.get(0).getStateCellCollection().contains(firstRemaining));
+        int cells = cellTable.getContent().size();
+        for (StateTable fragment : fragments) {
+            cells += fragment.getStateCellCollection().size();
+        }
+        assertEquals("Every cell should be placed once. ", 400, cells);
+    }
+
+    @Test
+    public void testPlacedRowsReleased() {
+        StateTable current = new BaseStateTable(300);
+        current.columns(2);
+        for (int i = 0; i < 400; ++i) {
+            current.addCell("Row " + i);
+            current.addCell("Test");
+        }
+        int pages = 0;
+        while (current != null) {
+            StatePage page = new BaseStatePage(400, 400);
+            current.updateHeight(page);
+            current.on(page.getOpenPosition(current.getRequiredSpaceAbove(), current.getRequiredSpaceBelow(), current));
+            StateTable overflow = current.processContentSize(page);
+            if (overflow != null) {
+                List<?> sharedRows = Deencapsulation.getField(overflow, "rowModel");
+                int startRow = Deencapsulation.getField(overflow, "startRow");
+                for (int i = 0; i < startRow; ++i) {
+                    Assert.assertNull("Rows of completed pages should be released. ", sharedRows.get(i));
+                }
+                Assert.assertTrue("Released rows should be compacted. ", startRow <= sharedRows.size() - startRow);
+            }
+            current = overflow;
+            ++pages;
+        }
+        Assert.assertTrue(pages > 10);
+    }
+
+    private List<StateTable> layoutOnPages(StateTable stateTable) {
+        List<StateTable> fragments = new ArrayList<>();
+        StateTable current = stateTable;
+        while (current != null) {
+            StatePage page = new BaseStatePage(400, 400);
+            current.updateHeight(page);
+            current.on(page.getOpenPosition(current.getRequiredSpaceAbove(), current.getRequiredSpaceBelow(), current));
+            StateTable overflow = current.processContentSize(page);
+            fragments.add(current);
+            current = overflow;
+        }
+        return fragments;
+    }
+
     @Test
     public void testHeightUpdating() {
         StatePage page = new BaseStatePage(800, 800);
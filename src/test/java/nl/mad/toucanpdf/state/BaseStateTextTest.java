@@ -5,14 +5,17 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import mockit.Deencapsulation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import nl.mad.toucanpdf.api.BaseText;
+import nl.mad.toucanpdf.font.WordWidthCache;
 import nl.mad.toucanpdf.model.Alignment;
 import nl.mad.toucanpdf.model.Position;
 import nl.mad.toucanpdf.model.Space;
@@ -120,6 +123,134 @@ public class BaseStateTextTest {
         assertEquals("Thisis-", stateText.getTextSplit().get(new Position(0.0, -1.0)));
     }
 
+    @Test
+    public void testCutoffOverflow(@Mocked final StatePage page) {
+        final String word = "Thisisareallyreallyreallyreallyreallyreallyreallyreallyreallylongstring";
+        text.text(word + "  and more");
+        BaseStateText stateText = new BaseStateText(text);
+        new NonStrictExpectations() {
+            {
+                page.getOpenPosition(anyDouble, anyDouble, null, anyDouble);
+                returns(null);
+
+                page.getOpenSpacesOn(null, anyBoolean, anyDouble, anyDouble, null);
+                returns(new LinkedList<Space>(Arrays.asList(new Space(0, 110))));
+
+                page.getWidth();
+                returns(110);
+
+                page.getMarginRight();
+                returns(0);
+            }
+        };
+        StateText overflow = stateText.processContentSize(page, 0, false);
+        String line = stateText.getTextSplit().values().iterator().next();
+        assertTrue("The first line should contain the cut off part of the word. ", line.endsWith("-") && word.startsWith(line.substring(0, line.length() - 1)));
+        String remainder = word.substring(line.length() - 1);
+        assertEquals("The overflow should start with the remainder of the word. ", remainder + "  and more ", overflow.getText());
+    }
+
+    @Test
+    public void testRepeatedOverflow() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            sb.append("word").append(i).append(i % 7 == 0 ? "  " : " ");
+        }
+        text.text(sb.toString());
+        StateText overflow = layoutOnNewPage(new BaseStateText(text));
+        int pages = 1;
+        while (overflow != null) {
+            String remainder = overflow.getText();
+            StateText copy = new BaseStateText(overflow);
+            assertEquals("The copy should contain the same remaining text. ", remainder, copy.getText());
+            StateText expected = new BaseStateText(copy);
+            expected.text(remainder);
+            StateText expectedOverflow = layoutOnNewPage(expected);
+            overflow = layoutOnNewPage(copy);
+            assertEquals("The overflow should be split like the remaining text. ", expected.getTextSplit(), copy.getTextSplit());
+            assertEquals(expectedOverflow == null, overflow == null);
+            if (overflow != null) {
+                assertEquals(expectedOverflow.getText(), overflow.getText());
+            }
+            ++pages;
+        }
+        assertTrue("The text should span several pages. ", pages > 3);
+    }
+
+    @Test
+    public void testOverflowingTextKeepsRange() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            sb.append("word").append(i).append(' ');
+        }
+        String source = sb.toString();
+        text.text(source);
+        StateText first = new BaseStateText(text);
+        StateText overflow = layoutOnNewPage(first);
+        assertNotEquals(null, overflow);
+        assertEquals("The text of the page should only be created when it is requested. ", null, Deencapsulation.getField(first, "textString"));
+        String pageText = first.getText();
+        assertTrue("The text of the page should be a range of the source. ", source.startsWith(pageText));
+        assertEquals("The page and its overflow should cover the source. ", source.replace(" ", ""), (pageText + overflow.getText()).replace(" ", ""));
+    }
+
+    @Test
+    public void testOverflowWithDifferentSize() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            sb.append("word").append(i).append(' ');
+        }
+        text.text(sb.toString());
+        StateText overflow = layoutOnNewPage(new BaseStateText(text));
+        layoutOnNewPage(new BaseStateText(overflow));
+        StateText copy = new BaseStateText(overflow);
+        copy.size(6);
+        StateText expected = new BaseStateText(copy);
+        expected.text(overflow.getText());
+        layoutOnNewPage(expected);
+        layoutOnNewPage(copy);
+        assertEquals("Widths measured for another size should not be reused. ", expected.getTextSplit(), copy.getTextSplit());
+    }
+
+    @Test
+    public void testOnlyWordsCached() {
+        WordWidthCache.getSharedCache().clear();
+        text.text("alpha beta alpha beta gamma alpha beta gamma alpha beta gamma");
+        layoutOnNewPage(new BaseStateText(text));
+        assertTrue("Lines should not be stored in the word width cache. ", WordWidthCache.getSharedCache().size() <= 4);
+        assertTrue(WordWidthCache.getSharedCache().getHitCount() > 0);
+    }
+
+    private StateText layoutOnNewPage(StateText stateText) {
+        StatePage statePage = new BaseStatePage(110, 100);
+        stateText.setPosition(statePage.getOpenPosition(stateText.getRequiredSpaceAbove(), stateText.getRequiredSpaceBelow(), stateText, 10));
+        statePage.add(stateText);
+        return stateText.processContentSize(statePage, 0, false);
+    }
+
+    @Test
+    public void testTotalPagesReservation() {
+        StateText fixed = new BaseStateText("Page 12 of %totalPages pages");
+        fixed.setPosition(new Position(10, 90));
+        ((BaseStateText) fixed).reserveTotalPages("%totalPages", "000");
+        fixed.processContentSize(new BaseStatePage(200, 100), 10, true);
+        assertEquals("Page 12 of 000 pages", fixed.getText());
+        List<Position> positions = fixed.getTotalPagesPositions();
+        assertEquals(1, positions.size());
+        Iterator<Entry<Position, String>> lines = fixed.getTextSplit().entrySet().iterator();
+        Entry<Position, String> first = lines.next();
+        assertEquals("The reservation should be left out of the lines. ", "Page 12 of ", first.getValue());
+        assertEquals(new Position(10, 90), first.getKey());
+        double start = 10 + fixed.getFont().getMetrics().getWidthPointOfString("Page 12 of ", fixed.getTextSize(), true);
+        assertEquals(start, positions.get(0).getX(), FloatEqualityTester.EPSILON);
+        Entry<Position, String> second = lines.next();
+        assertEquals("The text after the reservation should follow the reserved space. ", " pages ", second.getValue());
+        double end = 10 + fixed.getFont().getMetrics().getWidthPointOfString("Page 12 of 000", fixed.getTextSize(), true);
+        assertEquals(end, second.getKey().getX(), FloatEqualityTester.EPSILON);
+        assertEquals(90, second.getKey().getY(), FloatEqualityTester.EPSILON);
+        assertEquals("The width of the reservation should be offered. ", end - start, fixed.getTotalPagesWidth(), FloatEqualityTester.EPSILON);
+    }
+
     @Test
     public void testAlignment(@Mocked final StatePage page) {
         text.text("Test");
@@ -0,0 +1,67 @@
+package nl.mad.toucanpdf.state;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import nl.mad.toucanpdf.model.Page;
+import nl.mad.toucanpdf.model.Position;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PageOccupancyIndexTest {
+    private Page page;
+    @Mocked
+    BaseStateText text;
+    @Mocked
+    BaseStateText text2;
+    @Mocked
+    BaseStateText text3;
+
+    @Before
+    public void setUp() {
+        new NonStrictExpectations() {
+            {
+                text.getPosition();
+                returns(new Position(0, 100));
+                text.getRequiredSpaceAbove();
+                returns(5.0);
+                text.getContentHeight((Page) any);
+                returns(50.0);
+                text2.getPosition();
+                returns(new Position(0, 20));
+                text2.getContentHeight((Page) any);
+                returns(20.0);
+                text3.getPosition();
+                returns(new Position(0, 60));
+                text3.getContentHeight((Page) any);
+                returns(10.0);
+            }
+        };
+        page = new BaseStatePage(200, 200);
+        page.add(text);
+        page.add(text2);
+        page.add(text3);
+    }
+
+    @Test
+    public void testPartsBetween() {
+        PageOccupancyIndex index = new PageOccupancyIndex(page, null);
+        assertEquals(3, index.size());
+        assertEquals("Only the first part occupies this range. ", Arrays.asList(text), index.getPartsBetween(70, 104));
+        assertEquals("Parts should be returned in the order of the page content. ", Arrays.asList(text, text2, text3), index.getPartsBetween(0, 200));
+        assertEquals(Arrays.asList(text2), index.getPartsBetween(0, 0));
+        assertEquals("The range should include the boundaries of the regions. ", Arrays.asList(text, text3), index.getPartsBetween(50, 50));
+        assertEquals(0, index.getPartsBetween(110, 200).size());
+    }
+
+    @Test
+    public void testIgnoredPart() {
+        PageOccupancyIndex index = new PageOccupancyIndex(page, text3);
+        assertEquals(2, index.size());
+        assertEquals(Arrays.asList(text), index.getPartsBetween(45, 55));
+    }
+}
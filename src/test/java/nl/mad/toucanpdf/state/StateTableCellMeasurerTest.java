@@ -0,0 +1,45 @@
+package nl.mad.toucanpdf.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import nl.mad.toucanpdf.api.BaseCell;
+import nl.mad.toucanpdf.api.BaseText;
+import nl.mad.toucanpdf.model.state.StateCell;
+import nl.mad.toucanpdf.state.Table.StateTableCellMeasurer;
+import nl.mad.toucanpdf.state.Table.StateTableRow;
+import nl.mad.toucanpdf.utility.FloatEqualityTester;
+
+import org.junit.Test;
+
+public class StateTableCellMeasurerTest {
+
+    @Test
+    public void testMeasurement() {
+        StateTableRow[] rows = new StateTableRow[500];
+        StateCell widest = null;
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = new StateTableRow(3);
+            StateCell cell = createCell(i == 321 ? "A much longer text in this row" : "Row " + i);
+            rows[i].getContent()[0] = cell;
+            rows[i].getContent()[1] = createCell("Test");
+            if (i == 321) {
+                widest = cell;
+            }
+        }
+        StateTableCellMeasurer measurer = new StateTableCellMeasurer(rows, 3, true);
+        measurer.invoke();
+
+        double expectedTotal = widest.getStateCellContent().getTotalRequiredWidth() + widest.getPadding() * 2 + widest.getBorderWidth();
+        assertEquals("The total width should be determined by the widest cell. ", expectedTotal, measurer.getTotalWidths()[0], FloatEqualityTester.EPSILON);
+        assertEquals(measurer.getMinimumWidths()[1], StateTableCellMeasurer.measureMinimumWidths(rows[0].getContent())[1], FloatEqualityTester.EPSILON);
+        assertTrue("Columns without cells should have no minimum width. ", Double.isNaN(measurer.getMinimumWidths()[2]));
+        assertEquals(0, measurer.getRequiredWidths()[2], FloatEqualityTester.EPSILON);
+    }
+
+    private StateCell createCell(String text) {
+        StateCell cell = new BaseStateCell(new BaseCell(new BaseText(text)));
+        cell.border(1).padding(5);
+        return cell;
+    }
+}
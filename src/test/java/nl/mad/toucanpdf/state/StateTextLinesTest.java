@@ -0,0 +1,55 @@
+package nl.mad.toucanpdf.state;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import nl.mad.toucanpdf.model.Position;
+
+import org.junit.Test;
+
+public class StateTextLinesTest {
+    private static final String SOURCE = "This is a test text";
+
+    @Test
+    public void testLines() {
+        StateTextLines lines = new StateTextLines(SOURCE, false);
+        lines.add(new Position(10, 100), 0, 7, ' ', 0);
+        lines.add(new Position(50, 100), 8, 12, '-', 0);
+        lines.add(new Position(10, 80), "separate", 0);
+        assertEquals(3, lines.size());
+        assertEquals("This is ", lines.getLine(0));
+        assertEquals("The line should end with the suffix. ", "a te-", lines.getLine(1));
+        assertEquals("separate", lines.getLine(2));
+
+        Map<Position, String> textSplit = lines.getTextSplit();
+        Iterator<Entry<Position, String>> iterator = textSplit.entrySet().iterator();
+        assertEquals(new Position(10, 100), iterator.next().getKey());
+        assertEquals("Lines should be returned in the order they have been added. ", new Position(50, 100), iterator.next().getKey());
+        assertEquals("a te-", textSplit.get(new Position(50, 100)));
+        assertEquals(null, textSplit.get(new Position(50, 80)));
+        assertTrue("The lines are not justified. ", lines.getJustificationOffset().isEmpty());
+    }
+
+    @Test
+    public void testLinesBetween() {
+        StateTextLines lines = new StateTextLines(SOURCE, true);
+        for (int i = 0; i < 20; ++i) {
+            lines.add(new Position(0, 200 - (i * 10)), 0, 4, ' ', i);
+        }
+        assertArrayEquals(new int[] { 5, 6, 7 }, lines.getLinesBetween(150, 130).toArray());
+        assertArrayEquals(new int[] { 0 }, lines.getLinesBetween(300, 195).toArray());
+        assertEquals(0, lines.getLinesBetween(0, -10).count());
+        assertEquals(Double.valueOf(12), lines.getJustificationOffset().get(new Position(0, 80)));
+
+        lines.adjustY(-5);
+        assertArrayEquals("Lines should have been moved. ", new int[] { 5, 6 }, lines.getLinesBetween(150, 130).toArray());
+
+        lines.add(new Position(0, 500), 0, 4, ' ', 0);
+        assertArrayEquals("Lines above the previous line should still be found. ", new int[] { 0, 20 }, lines.getLinesBetween(600, 195).toArray());
+    }
+}
@@ -0,0 +1,117 @@
+package nl.mad.toucanpdf.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import nl.mad.toucanpdf.api.BaseFont;
+import nl.mad.toucanpdf.model.Alignment;
+import nl.mad.toucanpdf.model.Position;
+import nl.mad.toucanpdf.model.state.StatePage;
+import nl.mad.toucanpdf.model.state.StateText;
+import nl.mad.toucanpdf.state.TextLayoutCache.LayoutKey;
+import nl.mad.toucanpdf.state.TextLayoutCache.TextLayout;
+import nl.mad.toucanpdf.utility.FloatEqualityTester;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextLayoutCacheTest {
+    private static final int MAXIMUM_SIZE = 16 * 1024;
+    private TextLayoutCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new TextLayoutCache(MAXIMUM_SIZE);
+        TextLayoutCache.getSharedCache().clear();
+    }
+
+    @After
+    public void tearDown() {
+        TextLayoutCache.getSharedCache().setEnabled(false);
+        TextLayoutCache.getSharedCache().clear();
+    }
+
+    private LayoutKey createKey(String text, int width) {
+        return new LayoutKey(text, 0, 0, new BaseFont().getMetrics(), 12, Alignment.LEFT, width, 500);
+    }
+
+    private TextLayout createLayout(int lineCount) {
+        TextLayout layout = new TextLayout();
+        for (int i = 0; i < lineCount; ++i) {
+            layout.add(100, i, i + 1, ' ', 0, 0, i + 1, i + 2);
+        }
+        return layout;
+    }
+
+    @Test
+    public void testHitRate() {
+        assertEquals(null, cache.get(createKey("Test", 100)));
+        cache.put(createKey("Test", 100), createLayout(2));
+        assertEquals(2, cache.get(createKey("Test", 100)).size());
+        assertEquals("The width of the first line should be part of the key. ", null, cache.get(createKey("Test", 90)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(true, FloatEqualityTester.equals(1.0 / 3, cache.getHitRate()));
+
+        cache.put(createKey("Test", 100), createLayout(1));
+        assertEquals("Stored lines should not be replaced by fewer lines. ", 2, cache.get(createKey("Test", 100)).size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEstimatedSize());
+        assertEquals(true, FloatEqualityTester.equals(0, cache.getHitRate()));
+    }
+
+    @Test
+    public void testMaximumSize() {
+        for (int i = 0; i < 1000; ++i) {
+            cache.put(createKey("Test " + i, 100), createLayout(3));
+        }
+        assertTrue("Cache grew beyond its maximum size. ", cache.getEstimatedSize() <= MAXIMUM_SIZE);
+        assertTrue(cache.size() > 0);
+        long size = cache.getEstimatedSize();
+
+        char[] text = new char[MAXIMUM_SIZE];
+        Arrays.fill(text, 'a');
+        for (int i = 0; i < 100; ++i) {
+            text[i] = (char) ('0' + i % 10);
+            cache.put(createKey(new String(text), 100), createLayout(1));
+        }
+        assertEquals("The characters of the text should count towards the size of an entry. ", size, cache.getEstimatedSize());
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            sb.append('a');
+            cache.put(createKey(sb.toString(), 100), createLayout(1));
+        }
+        assertTrue("Cache grew beyond its maximum size. ", cache.getEstimatedSize() <= MAXIMUM_SIZE);
+    }
+
+    @Test
+    public void testCachedLayout() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 60; ++i) {
+            sb.append("word").append(i).append(i % 5 == 0 ? "  " : " ");
+        }
+        StateText expected = layout(sb.toString());
+        TextLayoutCache.getSharedCache().setEnabled(true);
+        StateText first = layout(sb.toString());
+        StateText second = layout(sb.toString());
+        assertEquals(1, TextLayoutCache.getSharedCache().getHitCount());
+        assertEquals("Stored lines should be placed like newly split lines. ", expected.getTextSplit(), second.getTextSplit());
+        assertEquals(expected.getTextSplit(), first.getTextSplit());
+        assertEquals(expected.getJustificationOffset(), second.getJustificationOffset());
+    }
+
+    private StateText layout(String text) {
+        StatePage page = new BaseStatePage(200, 400);
+        StateText stateText = new BaseStateText(text);
+        stateText.align(Alignment.JUSTIFIED);
+        stateText.setPosition(new Position(10, 380));
+        page.add(stateText);
+        stateText.processContentSize(page, 0, false);
+        return stateText;
+    }
+}
@@ -1,32 +1,55 @@
 package nl.mad.toucanpdf.structure;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import mockit.Mock;
 import mockit.MockUp;
 import nl.mad.toucanpdf.api.BaseCell;
 import nl.mad.toucanpdf.api.BaseFont;
 import nl.mad.toucanpdf.api.BasePage;
+import nl.mad.toucanpdf.font.TrueTypeFontMetrics;
+import nl.mad.toucanpdf.font.parser.TrueTypeParser;
 import nl.mad.toucanpdf.model.DocumentPart;
 import nl.mad.toucanpdf.model.Font;
+import nl.mad.toucanpdf.model.FontEmbedding;
+import nl.mad.toucanpdf.model.FontFamily;
 import nl.mad.toucanpdf.model.FontFamilyType;
 import nl.mad.toucanpdf.model.FontStyle;
+import nl.mad.toucanpdf.model.FontType;
 import nl.mad.toucanpdf.model.Image;
 import nl.mad.toucanpdf.model.ImageType;
+import nl.mad.toucanpdf.model.PdfNameValue;
 import nl.mad.toucanpdf.model.Table;
 import nl.mad.toucanpdf.model.state.StateParagraph;
 import nl.mad.toucanpdf.model.state.StateTable;
 import nl.mad.toucanpdf.model.state.StateText;
 import nl.mad.toucanpdf.pdf.structure.PdfDocument;
+import nl.mad.toucanpdf.pdf.syntax.PdfFont;
 import nl.mad.toucanpdf.pdf.syntax.PdfIndirectObject;
+import nl.mad.toucanpdf.pdf.syntax.PdfName;
 import nl.mad.toucanpdf.pdf.syntax.PdfObjectType;
 import nl.mad.toucanpdf.pdf.syntax.PdfTable;
+import nl.mad.toucanpdf.pdf.syntax.PdfType0Font;
+import nl.mad.toucanpdf.utility.ByteEncoder;
 import nl.mad.toucanpdf.state.BaseStateImage;
+import nl.mad.toucanpdf.state.BaseStatePage;
 import nl.mad.toucanpdf.state.BaseStateParagraph;
 import nl.mad.toucanpdf.state.Table.BaseStateTable;
 import nl.mad.toucanpdf.state.BaseStateText;
@@ -76,6 +99,31 @@ public class PdfDocumentTest {
         assertTrue(ido.equals(ido2));
     }
 
+    @Test
+    public void testFontEmbedding() throws IOException {
+        document = new PdfDocument(FontEmbedding.REFERENCE);
+        Font referenced = new BaseFont(FontFamilyType.HELVETICA, FontStyle.NORMAL);
+        PdfFont referencedFont = (PdfFont) document.addFont(referenced).getObject();
+        referencedFont.getEncoding().updateDifferences("Test");
+        referencedFont.writeToFile(new ByteArrayOutputStream());
+        assertFalse("Referenced fonts should not have a font descriptor. ", referencedFont.containsKey(new PdfName(PdfNameValue.FONT_DESCRIPTOR)));
+        assertEquals("Referenced fonts should not have a subset tag. ", "/Helvetica", ((PdfName) referencedFont.get(PdfNameValue.BASE_FONT)).getName());
+        assertTrue("Referenced fonts should still contain the widths. ", referencedFont.containsKey(new PdfName(PdfNameValue.WIDTHS)));
+
+        Font embedded = new BaseFont(FontFamilyType.HELVETICA, FontStyle.BOLD).embedding(FontEmbedding.EMBED);
+        PdfFont embeddedFont = (PdfFont) document.addFont(embedded).getObject();
+        embeddedFont.getEncoding().updateDifferences("Test");
+        embeddedFont.writeToFile(new ByteArrayOutputStream());
+        assertTrue("The font embedding should override the default of the document. ", embeddedFont.containsKey(new PdfName(PdfNameValue.FONT_DESCRIPTOR)));
+        assertEquals("Embedded fonts should not have a subset tag. ", "/Helvetica-Bold", ((PdfName) embeddedFont.get(PdfNameValue.BASE_FONT)).getName());
+
+        Font subset = new BaseFont(FontFamilyType.HELVETICA, FontStyle.ITALIC).embedding(FontEmbedding.SUBSET);
+        PdfFont subsetFont = (PdfFont) document.addFont(subset).getObject();
+        subsetFont.getEncoding().updateDifferences("Test");
+        subsetFont.writeToFile(new ByteArrayOutputStream());
+        assertTrue("Subset fonts should have a subset tag. ", ((PdfName) subsetFont.get(PdfNameValue.BASE_FONT)).getName().endsWith("+Helvetica-Oblique"));
+    }
+
     @Test
     public void testAddParts() {
         new MockUp<PdfTable>() {
@@ -104,4 +152,129 @@ public class PdfDocumentTest {
         assertEquals(7, document.getCurrentPage().getCurrentStream().getContentSize());
     }
 
+    @Test
+    public void testTotalPages() throws IOException {
+        BaseStateText text = new BaseStateText("Page 1 of %totalPages");
+        text.on(10, 50);
+        text.reserveTotalPages("%totalPages", "000");
+        text.processContentSize(new BaseStatePage(100, 100), 10, true);
+        for (int i = 0; i < 4; ++i) {
+            document.addPage(new BasePage(100, 100));
+            document.add(text);
+            assertEquals("The total should be drawn after the text. ", 2, document.getCurrentPage().getCurrentStream().getContentSize());
+        }
+        document.addDocumentInfo("", "", "", Calendar.getInstance());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.write(baos);
+        String output = ByteEncoder.getString(baos);
+        assertEquals("All pages should share the same form. ", output.indexOf("/Subtype /Form"), output.lastIndexOf("/Subtype /Form"));
+        assertTrue("The total should be filled in when the document is written. ", output.contains("[(3)] TJ"));
+        assertTrue("A narrower total should be right-aligned within the reserved space. ", output.contains("1.0 0 0 1 "));
+    }
+
+    @Test
+    public void testGivenTotalPages() throws IOException {
+        BaseStateText text = new BaseStateText("Page 1 of %totalPages");
+        text.on(10, 50);
+        text.reserveTotalPages("%totalPages", "9");
+        text.processContentSize(new BaseStatePage(100, 100), 10, true);
+        document.addPage(new BasePage(100, 100));
+        document.add(text);
+        document.setTotalPages(1000);
+        document.addDocumentInfo("", "", "", Calendar.getInstance());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.write(baos);
+        String output = ByteEncoder.getString(baos);
+        assertTrue("The given total should be used. ", output.contains("[(1000)] TJ"));
+        assertTrue("A wider total should be scaled to the reserved space. ", output.contains("0.25 0 0 1 0.0 0 Tm"));
+    }
+
+    private Font createTrueTypeFont() throws Exception {
+        String fontFile = new File(PdfDocumentTest.class.getResource("/fonts/DejaVuSans-Subset.ttf").toURI()).getPath();
+        return new BaseFont(FontFamilyType.HELVETICA, FontStyle.NORMAL, new FontFamily(FontType.TRUETYPE, fontFile));
+    }
+
+    @Test
+    public void testTrueTypeFont() throws Exception {
+        Font font = createTrueTypeFont();
+        TrueTypeFontMetrics metrics = (TrueTypeFontMetrics) font.getMetrics();
+        int a = metrics.getGlyphId('A');
+        int b = metrics.getGlyphId('B');
+        int zhe = metrics.getGlyphId(0x416);
+        BaseStateText text = new BaseStateText("ABA \u0416");
+        text.font(font);
+        text.on(10, 50);
+        text.processContentSize(new BaseStatePage(200, 200), 10, true);
+        document.addPage(new BasePage(200, 200));
+        document.add(text);
+        document.addDocumentInfo("", "", "", Calendar.getInstance());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.write(baos);
+        String output = new String(baos.toByteArray(), StandardCharsets.ISO_8859_1);
+
+        assertTrue(output.contains("/Subtype /Type0"));
+        assertTrue(output.contains("/Encoding /Identity-H"));
+        assertTrue(output.contains("/Subtype /CIDFontType2"));
+        assertTrue("Subset fonts should have a subset tag. ", output.matches("(?s).*/BaseFont /[A-Z]{6}\\+DejaVuSans\n.*"));
+        int space = metrics.getGlyphId(' ');
+        assertEquals("Only the used glyphs should be in the width array. ",
+                "/W [ " + space + " [ " + metrics.getGlyphWidth(space) + " ] " + a + " [ " + metrics.getGlyphWidth(a) + " " + metrics.getGlyphWidth(b) + " ] " + zhe + " [ "
+                        + metrics.getGlyphWidth(zhe) + " ] ]", find(output, "/W \\[.*\\]"));
+
+        String toUnicode = new String(getStream(output, find(output, "/ToUnicode (\\d+)")), StandardCharsets.ISO_8859_1);
+        assertTrue(toUnicode.contains("4 beginbfchar"));
+        assertTrue(toUnicode.contains(String.format("<%04X> <0416>", zhe)));
+        assertTrue(toUnicode.contains(String.format("<%04X> <0041>", a)));
+
+        String fontFileNumber = find(output, "/FontFile2 (\\d+)");
+        byte[] stream = getStream(output, fontFileNumber);
+        int length1 = Integer.parseInt(find(output.substring(output.indexOf("\n" + fontFileNumber + " 0 obj")), "/Length1 (\\d+)"));
+        assertTrue(length1 <= stream.length);
+        assertTrue("The font program should be a subset. ", length1 < metrics.getFontFile().length / 2);
+        TrueTypeParser parser = new TrueTypeParser(ByteBuffer.wrap(Arrays.copyOf(stream, length1)));
+        assertEquals(zhe + 1, parser.getNumGlyphs());
+        assertTrue(parser.getGlyphLength(a) > 0);
+        assertTrue(parser.getGlyphLength(zhe) > 0);
+        assertEquals("Unused glyphs should be removed from the program. ", 0, parser.getGlyphLength(metrics.getGlyphId('C')));
+    }
+
+    @Test
+    public void testCFFFontHasNoSubsetTag() throws Exception {
+        new MockUp<TrueTypeFontMetrics>() {
+            @Mock
+            public boolean isCFF() {
+                return true;
+            }
+        };
+        PdfType0Font font = (PdfType0Font) document.addFont(createTrueTypeFont()).getObject();
+        assertEquals("CFF fonts are embedded entirely and should not have a subset tag. ", "DejaVuSans", font.getBaseFontName());
+    }
+
+    /**
+     * Returns the first group of the first match of the given pattern, or the entire match if the pattern has no groups.
+     */
+    private static String find(String output, String pattern) {
+        Matcher matcher = Pattern.compile(pattern).matcher(output);
+        assertTrue("Output does not contain " + pattern + ". ", matcher.find());
+        return matcher.group(matcher.groupCount());
+    }
+
+    /**
+     * Returns the decompressed data of the stream with the given object number.
+     */
+    private static byte[] getStream(String output, String objectNumber) throws DataFormatException {
+        String object = output.substring(output.indexOf("\n" + objectNumber + " 0 obj"));
+        int length = Integer.parseInt(find(object, "/Length (\\d+)"));
+        int start = object.indexOf("stream\n") + "stream\n".length();
+        Inflater inflater = new Inflater();
+        inflater.setInput(object.substring(start, start + length).getBytes(StandardCharsets.ISO_8859_1));
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!inflater.finished()) {
+            int amount = inflater.inflate(buffer);
+            assertTrue("Stream ended unexpectedly. ", amount > 0 || !inflater.needsInput());
+            data.write(buffer, 0, amount);
+        }
+        return data.toByteArray();
+    }
 }
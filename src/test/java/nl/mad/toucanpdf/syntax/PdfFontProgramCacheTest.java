@@ -0,0 +1,105 @@
+package nl.mad.toucanpdf.syntax;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nl.mad.toucanpdf.font.Type1FontMetrics;
+import nl.mad.toucanpdf.model.Compression;
+import nl.mad.toucanpdf.model.FontEmbedding;
+import nl.mad.toucanpdf.model.FontMetrics;
+import nl.mad.toucanpdf.model.PdfNameValue;
+import nl.mad.toucanpdf.pdf.syntax.PdfFontDifferences;
+import nl.mad.toucanpdf.pdf.syntax.PdfFontProgram;
+import nl.mad.toucanpdf.pdf.syntax.PdfFontProgramCache;
+import nl.mad.toucanpdf.pdf.syntax.PdfFontProgramCache.EncodedFontProgram;
+import nl.mad.toucanpdf.pdf.syntax.PdfNumber;
+import nl.mad.toucanpdf.pdf.syntax.Type1FontDifferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PdfFontProgramCacheTest {
+    private static final List<Compression> FILTERS = Collections.singletonList(Compression.FLATE);
+    private FontMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new Type1FontMetrics("Courier");
+    }
+
+    @Test
+    public void testSharedProgram() throws IOException {
+        PdfFontProgramCache cache = PdfFontProgramCache.getSharedCache();
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        byte[] first = writeProgram();
+        byte[] second = writeProgram();
+        assertEquals("Program was created twice. ", misses + 1, cache.getMissCount());
+        assertEquals(hits + 1, cache.getHitCount());
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void testLengths() throws IOException {
+        PdfFontProgram program = new PdfFontProgram(metrics);
+        program.addFilter(Compression.FLATE);
+        program.writeToFile(new ByteArrayOutputStream());
+        int[] lengths = metrics.getFontProgramLengths();
+        assertEquals(lengths[0], ((PdfNumber) program.get(PdfNameValue.LENGTH1)).getNumber(), 0);
+        assertEquals(lengths[1], ((PdfNumber) program.get(PdfNameValue.LENGTH2)).getNumber(), 0);
+        assertEquals(lengths[2], ((PdfNumber) program.get(PdfNameValue.LENGTH3)).getNumber(), 0);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        PdfFontProgramCache cache = new PdfFontProgramCache(10);
+        EncodedFontProgram program = new EncodedFontProgram(new byte[6], new int[0]);
+        assertSame(program, cache.get(metrics, FontEmbedding.EMBED, FILTERS, () -> program));
+        assertSame(program, cache.get(metrics, FontEmbedding.EMBED, FILTERS, () -> null));
+        cache.get(metrics, FontEmbedding.SUBSET, FILTERS, () -> new EncodedFontProgram(new byte[6], new int[0]));
+        assertEquals("Least recently used program was not removed. ", 6, cache.size());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSubsetsShareParsedProgram() throws IOException {
+        metrics = new Type1FontMetrics("Times-Bold");
+        PdfFontProgramCache cache = PdfFontProgramCache.getSharedCache();
+        long misses = cache.getMissCount();
+        byte[] first = writeSubset("Ab");
+        byte[] second = writeSubset("AbcdefghijklmnopqrstuvwxyzBCDEFGH");
+        assertEquals("Font program was parsed for every subset. ", misses + 1, cache.getMissCount());
+        assertTrue("Subsets are not created for each document. ", first.length < second.length);
+        assertArrayEquals(first, writeSubset("Ab"));
+    }
+
+    private byte[] writeSubset(String text) throws IOException {
+        PdfFontProgram program = new PdfFontProgram(metrics);
+        program.addFilter(Compression.FLATE);
+        PdfFontDifferences differences = new Type1FontDifferences();
+        differences.updateDifferences(text);
+        program.setSubsetDifferences(differences);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        program.writeToFile(os);
+        return os.toByteArray();
+    }
+
+    private byte[] writeProgram() throws IOException {
+        PdfFontProgram program = new PdfFontProgram(metrics);
+        program.addFilter(Compression.FLATE);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        program.writeToFile(os);
+        return os.toByteArray();
+    }
+}
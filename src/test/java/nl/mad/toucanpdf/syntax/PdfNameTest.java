@@ -32,6 +32,9 @@ public class PdfNameTest {
         name.setName("/test");
         assertEquals("/test", name.getName());
         assertEquals("/test", new String(name.getByteRepresentation(), StandardCharsets.UTF_8));
+        //test escaping of whitespace and delimiters
+        name.setName("DejaVu Sans(1)");
+        assertEquals("/DejaVu#20Sans#281#29", name.getName());
     }
 
     @Test
@@ -104,6 +104,33 @@ public class PdfTextTest {
         //assertEquals(expectedResult, new String(pdfText.getByteRepresentation(), "UTF-8"));
     }
 
+    @Test
+    public void testWordCaching(@Mocked final StateText text) throws UnsupportedEncodingException {
+        new NonStrictExpectations() {
+            {
+                text.getTextSize();
+                returns(11);
+
+                Map<Position, String> textSplit = new LinkedHashMap<Position, String>();
+                textSplit.put(new Position(100, 100), "To To (To)");
+                text.getTextSplit();
+                returns(textSplit);
+
+                text.getFont();
+                returns(new BaseFont());
+
+                text.getColor();
+                returns(Color.BLACK);
+            }
+        };
+        PdfFont font = new PdfFont(new BaseFont(), null);
+        pdfText = new PdfText(font);
+        pdfText.addText(text, fontReference, Page.DEFAULT_NEW_LINE_SIZE);
+        assertEquals("Words should be cached. ", 3, font.getWordCache().size());
+        String expected = "/R1 11 Tf\n0.0 0.0 0.0 0.0 100.0 100.0 Tm\n0.0 0.0 0.0 rg [(T) 80 (o ) 18 (T) 80 (o \\(T) 80 (o\\))] TJ\n";
+        assertEquals(expected, ByteEncoder.getString(pdfText.getByteRepresentation()));
+    }
+
     @Test
     public void testMatrixAdding() throws UnsupportedEncodingException {
         StateText text = new BaseStateText("Test");
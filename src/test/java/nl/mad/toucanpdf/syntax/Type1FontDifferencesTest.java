@@ -0,0 +1,61 @@
+package nl.mad.toucanpdf.syntax;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import nl.mad.toucanpdf.pdf.syntax.Type1FontDifferences;
+import nl.mad.toucanpdf.utility.UnicodeConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class Type1FontDifferencesTest {
+    private Type1FontDifferences differences;
+
+    @Before
+    public void setUp() throws Exception {
+        differences = new Type1FontDifferences();
+        differences.updateDifferences("ab\u00e9a");
+    }
+
+    @Test
+    public void testWinAnsiCharacters() {
+        assertEquals("WinAnsi characters should not need differences. ", 0, differences.getDifferences().size());
+        assertEquals(Arrays.asList("a", "b", "eacute"), differences.getCharacterNames());
+        assertEquals(97, differences.getFirstCode());
+        assertEquals(233, differences.getLastCode());
+        assertEquals("b", differences.getNameOf(98));
+        assertEquals("eacute", differences.getNameOf("351"));
+        assertEquals(UnicodeConverter.getGlyphId('a'), differences.getGlyphOf(97));
+        assertEquals(UnicodeConverter.NO_GLYPH, differences.getGlyphOf(99));
+        assertEquals("", differences.getNameOf(300));
+    }
+
+    @Test
+    public void testOtherCharacters() {
+        differences.updateDifferences("\u03b1\u0141");
+        assertEquals(2, differences.getDifferences().size());
+        assertEquals(Integer.valueOf(0), differences.getDifferences().get("alpha"));
+        assertEquals(Integer.valueOf(1), differences.getDifferences().get("Lslash"));
+        assertEquals(0, differences.getFirstCode());
+    }
+
+    @Test
+    public void testConversion() {
+        assertArrayEquals(new byte[] { 98, 97, (byte) 233 }, differences.convertToCodes("ba\u00e9"));
+        assertArrayEquals("Unknown characters should be skipped. ", new byte[] { 97 }, differences.convertToCodes("ac"));
+        assertEquals("\\142\\141\\351", differences.convertString("ba\u00e9"));
+    }
+
+    @Test
+    public void testInsertDifference() {
+        differences.insertDifference("c", 200);
+        differences.insertDifference("d", 98);
+        assertEquals("c", differences.getNameOf(200));
+        assertEquals("Existing code should not be replaced. ", "b", differences.getNameOf(98));
+        assertArrayEquals(new byte[] { (byte) 200 }, differences.convertToCodes("cd"));
+        assertEquals(Integer.valueOf(200), differences.getDifferences().get("c"));
+    }
+}
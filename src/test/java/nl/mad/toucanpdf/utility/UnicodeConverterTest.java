@@ -0,0 +1,23 @@
+package nl.mad.toucanpdf.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class UnicodeConverterTest {
+
+    @Test
+    public void testGlyphIds() {
+        int glyphId = UnicodeConverter.getGlyphId((int) 'A');
+        assertEquals("A", UnicodeConverter.getGlyphName(glyphId));
+        assertEquals(glyphId, UnicodeConverter.getGlyphId("A"));
+        assertEquals((int) 'A', UnicodeConverter.getCodePoint(glyphId));
+        assertEquals(UnicodeConverter.NO_GLYPH, UnicodeConverter.getCodePoint(-1));
+        assertEquals("Lslash", UnicodeConverter.getPostscriptForUnicode(0x0141));
+        assertEquals(UnicodeConverter.NO_GLYPH, UnicodeConverter.getGlyphId(0x10FFFF));
+        assertEquals(UnicodeConverter.NO_GLYPH, UnicodeConverter.getGlyphId(-1));
+        assertEquals(UnicodeConverter.NO_GLYPH, UnicodeConverter.getGlyphId("ikbestaniet"));
+        assertNull(UnicodeConverter.getGlyphName(UnicodeConverter.getGlyphCount()));
+    }
+}
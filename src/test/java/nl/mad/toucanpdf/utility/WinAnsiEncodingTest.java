@@ -0,0 +1,27 @@
+package nl.mad.toucanpdf.utility;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class WinAnsiEncodingTest {
+
+    @Test
+    public void testCodes() {
+        assertEquals(65, WinAnsiEncoding.getCode(UnicodeConverter.getGlyphId('A')));
+        assertEquals(128, WinAnsiEncoding.getCode(UnicodeConverter.getGlyphId("Euro")));
+        assertEquals(233, WinAnsiEncoding.getCode(UnicodeConverter.getGlyphId("eacute")));
+        assertEquals("Space should keep its ASCII code. ", 32, WinAnsiEncoding.getCode(UnicodeConverter.getGlyphId("space")));
+        assertEquals(WinAnsiEncoding.NO_CODE, WinAnsiEncoding.getCode(UnicodeConverter.getGlyphId("alpha")));
+        assertEquals(WinAnsiEncoding.NO_CODE, WinAnsiEncoding.getCode(UnicodeConverter.NO_GLYPH));
+    }
+
+    @Test
+    public void testGlyphs() {
+        assertEquals("quotesingle", UnicodeConverter.getGlyphName(WinAnsiEncoding.getGlyphId(39)));
+        assertEquals("hyphen", UnicodeConverter.getGlyphName(WinAnsiEncoding.getGlyphId(173)));
+        assertEquals(UnicodeConverter.NO_GLYPH, WinAnsiEncoding.getGlyphId(129));
+        assertEquals(UnicodeConverter.NO_GLYPH, WinAnsiEncoding.getGlyphId(10));
+        assertEquals(UnicodeConverter.NO_GLYPH, WinAnsiEncoding.getGlyphId(256));
+    }
+}